@@ -1,12 +1,13 @@
 package com.ryanair.interconnector;
 
+import com.ryanair.interconnector.config.FeignTransportConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.scheduling.annotation.EnableAsync;
 
-@EnableFeignClients
+@EnableFeignClients(defaultConfiguration = FeignTransportConfig.class)
 @EnableCaching
 @EnableAsync
 @SpringBootApplication
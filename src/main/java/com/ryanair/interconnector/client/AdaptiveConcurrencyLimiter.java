@@ -0,0 +1,233 @@
+package com.ryanair.interconnector.client;
+
+import com.ryanair.interconnector.config.ExternalApiLimiterProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the calls to an external API in flight at once, adapting the limit to how the API behaves (AIMD): every call
+ * answered within the latency threshold while the limit is in use raises it a little, up to one more call per limit's
+ * worth of calls, and every slow or failed call cuts it by the backoff ratio. So once the API slows down fewer calls
+ * are sent its way, instead of piling more of them onto it.
+ * Calls beyond the limit wait for their turn in order, without blocking any thread, and are rejected with an
+ * {@link ExternalApiException} once the queue is full or they have waited for longer than the queue timeout.
+ * Cancelling a waiting call removes it from the queue, and cancelling a started one cancels the call itself.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+  private final String api;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final int maxQueued;
+  private final LongSupplier nanoClock;
+  private final Executor timeoutExecutor;
+  private final Counter queueFullRejections;
+  private final Counter queueTimeoutRejections;
+
+  // Guarded by this
+  private final Deque<Call<?>> queue = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+
+  /**
+   * @param api Name of the API called, as shown in the error messages (e.g. Schedules)
+   * @param metricPrefix Prefix of the limit, in flight, queued and rejected metrics
+   */
+  public AdaptiveConcurrencyLimiter(String api, String metricPrefix, ExternalApiLimiterProperties properties,
+      MeterRegistry meterRegistry) {
+    this(api, metricPrefix, properties, meterRegistry, System::nanoTime, CompletableFuture.delayedExecutor(
+        properties.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * @param timeoutExecutor Runs the expiry of a waiting call once it has waited for the queue timeout
+   */
+  AdaptiveConcurrencyLimiter(String api, String metricPrefix, ExternalApiLimiterProperties properties,
+      MeterRegistry meterRegistry, LongSupplier nanoClock, Executor timeoutExecutor) {
+    this.api = api;
+    this.minLimit = properties.getMinLimit();
+    this.maxLimit = properties.getMaxLimit();
+    this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+    this.backoffRatio = properties.getBackoffRatio();
+    this.maxQueued = properties.getMaxQueued();
+    this.nanoClock = nanoClock;
+    this.timeoutExecutor = timeoutExecutor;
+    this.limit = Math.clamp(properties.getInitialLimit(), minLimit, maxLimit);
+
+    Gauge.builder(metricPrefix + ".limit", this, AdaptiveConcurrencyLimiter::limit)
+        .description("Calls to the %s API allowed in flight at once".formatted(api))
+        .register(meterRegistry);
+    Gauge.builder(metricPrefix + ".in.flight", this, AdaptiveConcurrencyLimiter::inFlight)
+        .description("Calls to the %s API in flight".formatted(api))
+        .register(meterRegistry);
+    Gauge.builder(metricPrefix + ".queued", this, AdaptiveConcurrencyLimiter::queued)
+        .description("Calls to the %s API waiting for their turn".formatted(api))
+        .register(meterRegistry);
+    this.queueFullRejections = rejections(metricPrefix, "queue_full", meterRegistry);
+    this.queueTimeoutRejections = rejections(metricPrefix, "queue_timeout", meterRegistry);
+  }
+
+  private Counter rejections(String metricPrefix, String reason, MeterRegistry meterRegistry) {
+    return Counter.builder(metricPrefix + ".rejected")
+        .description("Calls to the %s API rejected as the limit was reached".formatted(api))
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  /**
+   * @param call Starts the call, only invoked once it is its turn
+   * @return A future completed as the call is, or failed with an {@link ExternalApiException} if it is rejected
+   */
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+    Call<T> pending = new Call<>(call);
+    boolean startNow;
+    synchronized (this) {
+      startNow = queue.isEmpty() && inFlight < currentLimit();
+      if (startNow) {
+        inFlight++;
+      } else if (queue.size() < maxQueued) {
+        queue.addLast(pending);
+      } else {
+        queueFullRejections.increment();
+        return CompletableFuture.failedFuture(rejected("the queue is full"));
+      }
+    }
+
+    pending.result.whenComplete((value, error) -> {
+      if (pending.result.isCancelled()) {
+        pending.cancel();
+      }
+    });
+    if (startNow) {
+      start(pending);
+    } else {
+      timeoutExecutor.execute(() -> expire(pending));
+    }
+    return pending.result;
+  }
+
+  public synchronized int limit() {
+    return currentLimit();
+  }
+
+  public synchronized int inFlight() {
+    return inFlight;
+  }
+
+  public synchronized int queued() {
+    return queue.size();
+  }
+
+  private int currentLimit() {
+    return (int) limit;
+  }
+
+  private <T> void start(Call<T> pending) {
+    long startedAt = nanoClock.getAsLong();
+    // The limit in use at the start, so a call only raises it when the limit was actually what bound the calls
+    boolean limitInUse;
+    synchronized (this) {
+      limitInUse = inFlight * 2 >= currentLimit();
+    }
+
+    CompletableFuture<T> future;
+    try {
+      future = pending.call.get();
+    } catch (RuntimeException ex) {
+      future = CompletableFuture.failedFuture(ex);
+    }
+    pending.started.set(future);
+    // Cancelled while starting, so the cancellation did not find the call yet
+    if (pending.result.isCancelled()) {
+      future.cancel(true);
+    }
+
+    future.whenComplete((value, error) -> {
+      release(error, nanoClock.getAsLong() - startedAt, limitInUse);
+      if (error == null) {
+        pending.result.complete(value);
+      } else {
+        pending.result.completeExceptionally(
+            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+      }
+    });
+  }
+
+  private void release(Throwable error, long latencyNanos, boolean limitInUse) {
+    List<Call<?>> next = new ArrayList<>();
+    synchronized (this) {
+      inFlight--;
+      // A cancelled call says nothing about the API, nobody waited for its answer
+      if (!(error instanceof CancellationException)) {
+        if (error != null || latencyNanos > latencyThresholdNanos) {
+          limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (limitInUse) {
+          limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+      }
+      while (!queue.isEmpty() && inFlight < currentLimit()) {
+        next.add(queue.pollFirst());
+        inFlight++;
+      }
+    }
+    // Started outside the lock, as a call may complete right away and release its slot again
+    next.forEach(this::start);
+  }
+
+  private void expire(Call<?> pending) {
+    synchronized (this) {
+      if (!queue.remove(pending)) {
+        return;
+      }
+    }
+    queueTimeoutRejections.increment();
+    pending.result.completeExceptionally(rejected("it waited too long for its turn"));
+  }
+
+  private ExternalApiException rejected(String reason) {
+    return new ExternalApiException(
+        "[%s API] call rejected, %d calls in flight at the limit and %s".formatted(api, inFlight(), reason), null);
+  }
+
+  private void dequeue(Call<?> pending) {
+    synchronized (this) {
+      queue.remove(pending);
+    }
+  }
+
+  private final class Call<T> {
+
+    private final Supplier<CompletableFuture<T>> call;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final AtomicReference<CompletableFuture<T>> started = new AtomicReference<>();
+
+    private Call(Supplier<CompletableFuture<T>> call) {
+      this.call = call;
+    }
+
+    private void cancel() {
+      CompletableFuture<T> future = started.get();
+      if (future != null) {
+        future.cancel(true);
+      } else {
+        dequeue(this);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.ryanair.interconnector.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.config.ExternalApiClientProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking client for the Schedules API, the counterpart of {@link SchedulesClient} for the async client mode.
+ * Calls are sent through the shared HTTP client and return as soon as the request is on its way, so no thread waits
+ * for the response; cancelling the returned future aborts the call. Failures are reported as the Feign client does,
+ * with an {@link ExternalApiException}.
+ */
+@Component
+public class AsyncSchedulesClient {
+
+  private static final String SCHEDULES_PATH = "timtbl/3/schedules/%s/%s/years/%d/months/%d";
+
+  private final HttpClient httpClient;
+  private final ObjectReader scheduleReader;
+  private final URI baseUri;
+  private final Duration requestTimeout;
+
+  @Autowired
+  public AsyncSchedulesClient(@Qualifier("externalApiHttpClient") HttpClient httpClient, ObjectMapper objectMapper,
+      @Value("${ryanair.api.schedules.url}") String schedulesUrl, ExternalApiClientProperties properties) {
+    this.httpClient = httpClient;
+    // Immutable and bound to the response type once, instead of keeping the shared mapper
+    this.scheduleReader = objectMapper.readerFor(ScheduleResponse.class);
+    // Resolved against the path of the base URL, which is only kept if it ends with a slash
+    this.baseUri = URI.create(schedulesUrl.endsWith("/") ? schedulesUrl : schedulesUrl + "/");
+    this.requestTimeout = properties.getRequestTimeout();
+  }
+
+  /**
+   * @return A future completed with the schedule of the month, or failed with an {@link ExternalApiException}
+   */
+  public CompletableFuture<ScheduleResponse> getSchedule(String departure, String arrival, int year, int month) {
+    URI uri = baseUri.resolve(SCHEDULES_PATH.formatted(departure, arrival, year, month));
+    HttpRequest request = HttpRequest.newBuilder(uri)
+        .timeout(requestTimeout)
+        .header("Accept", "application/json")
+        .GET()
+        .build();
+
+    // Cancelling the dependent future does not reach the exchange, so it is cancelled along with it
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(scope.track(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+        .handle((response, failure) -> {
+          if (failure != null) {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            throw new ExternalApiException("[Schedules API] call failed", cause);
+          }
+          return toSchedule(response);
+        }));
+  }
+
+  private ScheduleResponse toSchedule(HttpResponse<byte[]> response) {
+    int status = response.statusCode();
+    if (status < 200 || status >= 300) {
+      throw new ExternalApiException("[Schedules API] call failed (%d)".formatted(status), null);
+    }
+    try {
+      return scheduleReader.readValue(response.body());
+    } catch (IOException e) {
+      throw new ExternalApiException("[Schedules API] unreadable response", e);
+    }
+  }
+}
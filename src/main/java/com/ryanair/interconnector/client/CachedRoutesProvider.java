@@ -1,25 +1,51 @@
 package com.ryanair.interconnector.client;
 
 import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnector.config.ExternalApiCircuitBreakerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
 /**
  * Service that acts as a facade for fetching routes from the RoutesClient in a cached manner.
+ * Calls go through the {@link CircuitBreaker} of the Routes API, so none is made while it is failing.
  */
 @Service
 public class CachedRoutesProvider {
 
   private final RoutesClient routesClient;
+  private final CircuitBreaker circuitBreaker;
 
   @Autowired
-  public CachedRoutesProvider(RoutesClient routesClient) {
+  public CachedRoutesProvider(RoutesClient routesClient, ExternalApiCircuitBreakerProperties circuitBreakerProperties,
+      MeterRegistry meterRegistry) {
     this.routesClient = routesClient;
+    this.circuitBreaker = new CircuitBreaker("Routes", "routes", circuitBreakerProperties.getRoutes(), meterRegistry);
   }
-  @Cacheable(cacheNames = "routesCache", sync = true)
+
+  /**
+   * Concurrent misses are coalesced by the RoutesSnapshotProvider, its only reader, so there is no need to lock here.
+   */
+  @Cacheable(cacheNames = "routesCache")
   public List<Route> fetchAllRoutesCached() {
-    return routesClient.fetchAllRoutes();
+    return circuitBreaker.call(routesClient::fetchAllRoutes);
+  }
+
+  /**
+   * Always calls the Routes API and replaces the cached routes with the response.
+   */
+  @CachePut(cacheNames = "routesCache")
+  public List<Route> refreshAllRoutes() {
+    return circuitBreaker.call(routesClient::fetchAllRoutes);
+  }
+
+  /**
+   * @return Whether the circuit of the Routes API is open, so the last routes known are all there is to serve
+   */
+  public boolean isCircuitOpen() {
+    return circuitBreaker.state() != CircuitBreaker.State.CLOSED;
   }
 }
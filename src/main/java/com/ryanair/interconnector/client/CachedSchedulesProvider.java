@@ -1,25 +1,176 @@
 package com.ryanair.interconnector.client;
 
 import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.InterruptibleFuture;
+import com.ryanair.interconnector.config.ExternalApiCircuitBreakerProperties;
+import com.ryanair.interconnector.config.ExternalApiClientProperties;
+import com.ryanair.interconnector.config.ExternalApiHedgingProperties;
+import com.ryanair.interconnector.config.ExternalApiLimiterProperties;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.mapping.ScheduleMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Service that acts as a facade for the SchedulesClient, providing a cached version of the schedule response.
+ * Service that acts as a facade for the SchedulesClient, providing a cached version of the schedule.
+ * The schedule is mapped once, when it is loaded, into its compact representation, which is the one kept in the cache.
+ * Concurrent misses of the same month are coalesced into a single call to the Schedules API, and callers get a future
+ * instead of waiting on each other. In async client mode the call goes through the {@link AsyncSchedulesClient}, so no
+ * thread is parked while it is in flight; in blocking mode it is made with the Feign client on the external API
+ * executor. Once every caller of a load has cancelled its future the call is aborted, or never made if it had not
+ * started yet. Calls go through an {@link AdaptiveConcurrencyLimiter}, so fewer of them are in flight at once while the
+ * Schedules API is slow or failing, and the ones slower than usual are optionally hedged by a {@link RequestHedger}.
+ * While the {@link CircuitBreaker} of the Schedules API is open no call is made: the last slots known for the month are
+ * served instead, even if they already expired from the cache, and the probe of the circuit runs in the background.
  */
 @Service
 public class CachedSchedulesProvider {
 
+  static final String CACHE_NAME = "schedulesCache";
+  static final String STALE_CACHE_NAME = "schedulesStaleCache";
+
   private final SchedulesClient schedulesClient;
+  private final AsyncSchedulesClient asyncSchedulesClient;
+  private final boolean async;
+  private final ScheduleMapper scheduleMapper;
+  private final Cache schedulesCache;
+  // Last slots known for every month, kept for longer than in the cache to be served while the circuit is open
+  private final Cache staleSchedulesCache;
+  private final Executor externalApiExecutor;
+  private final Timer loadTimer;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final RequestHedger hedger;
+  private final CircuitBreaker circuitBreaker;
+  private final Counter staleServed;
+
+  private final SingleFlightLoader<ScheduleKey, MonthlySlots> loader = new SingleFlightLoader<>();
 
   @Autowired
-  public CachedSchedulesProvider(SchedulesClient schedulesClient) {
+  public CachedSchedulesProvider(SchedulesClient schedulesClient, AsyncSchedulesClient asyncSchedulesClient,
+      ScheduleMapper scheduleMapper, CacheManager cacheManager,
+      @Qualifier("externalApiExecutor") Executor externalApiExecutor, MeterRegistry meterRegistry,
+      ExternalApiClientProperties clientProperties, ExternalApiLimiterProperties limiterProperties,
+      ExternalApiHedgingProperties hedgingProperties, ExternalApiCircuitBreakerProperties circuitBreakerProperties) {
     this.schedulesClient = schedulesClient;
+    this.asyncSchedulesClient = asyncSchedulesClient;
+    this.async = clientProperties.getMode() == ExternalApiClientProperties.Mode.ASYNC;
+    this.scheduleMapper = scheduleMapper;
+    this.schedulesCache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Missing cache " + CACHE_NAME);
+    this.staleSchedulesCache = Objects.requireNonNull(cacheManager.getCache(STALE_CACHE_NAME),
+        "Missing cache " + STALE_CACHE_NAME);
+    this.externalApiExecutor = externalApiExecutor;
+    // The load happens outside the cache, so its duration is not part of the cache statistics
+    this.loadTimer = Timer.builder("interconnector.schedules.load")
+        .description("Time taken to load and map a monthly schedule from the Schedules API")
+        .register(meterRegistry);
+    this.limiter = new AdaptiveConcurrencyLimiter("Schedules", "interconnector.schedules.limiter", limiterProperties,
+        meterRegistry);
+    this.hedger = new RequestHedger("Schedules", "interconnector.schedules.hedging", hedgingProperties, meterRegistry);
+    this.circuitBreaker = new CircuitBreaker("Schedules", "schedules", circuitBreakerProperties.getSchedules(),
+        meterRegistry);
+    this.staleServed = Counter.builder("interconnector.schedules.stale.served")
+        .description("Monthly schedules served from the last known ones as the circuit of the Schedules API was open")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return A future completed with the slots of the month, straight from the cache if they are already there
+   */
+  public CompletableFuture<MonthlySlots> getScheduleCached(String departure, String arrival, Integer year,
+      Integer month) {
+    ScheduleKey key = new ScheduleKey(departure, arrival, year, month);
+    MonthlySlots cached = schedulesCache.get(key, MonthlySlots.class);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    CircuitBreaker.Permit permit = circuitBreaker.acquire();
+    if (permit.permission() == CircuitBreaker.Permission.CALL) {
+      return loadShared(key, permit);
+    }
+
+    MonthlySlots stale = staleSchedulesCache.get(key, MonthlySlots.class);
+    if (permit.permission() == CircuitBreaker.Permission.PROBE) {
+      // Nobody waits for the probe when there is something to serve meanwhile, it goes on in the background
+      CompletableFuture<MonthlySlots> probe = loadShared(key, permit);
+      if (stale == null) {
+        return probe;
+      }
+    }
+    if (stale != null) {
+      staleServed.increment();
+      return CompletableFuture.completedFuture(stale);
+    }
+    String scheduleMonth = "%s-%s/%d-%02d".formatted(key.departure(), key.arrival(), key.year(), key.month());
+    return CompletableFuture.failedFuture(new ExternalApiException(
+        "[Schedules API] circuit open and no schedule known for " + scheduleMonth, null));
+  }
+
+  /**
+   * @return Whether the given slots are still the ones cached for the month, so it has not been refreshed or evicted
+   * since they were loaded
+   */
+  public boolean isCached(String departure, String arrival, int year, int month, MonthlySlots slots) {
+    return schedulesCache.get(new ScheduleKey(departure, arrival, year, month), MonthlySlots.class) == slots;
   }
 
-  @Cacheable(value = "schedulesCache", key = "#departure + #arrival + #year + #month", sync = true)
-  public ScheduleResponse getScheduleCached(String departure, String arrival, Integer year, Integer month) {
-    return schedulesClient.getSchedule(departure, arrival, year, month);
+  private CompletableFuture<MonthlySlots> loadShared(ScheduleKey key, CircuitBreaker.Permit permit) {
+    AtomicBoolean started = new AtomicBoolean();
+    // A hedge is one more call, so it also waits for its turn under the limit
+    CompletableFuture<MonthlySlots> load = loader.load(key, () -> {
+      started.set(true);
+      return hedger.execute(() -> limiter.execute(() -> circuitBreaker.record(async
+          ? loadAsync(key)
+          : InterruptibleFuture.run(() -> load(key), externalApiExecutor), permit)));
+    });
+    if (!started.get()) {
+      // Joined a load already in flight, so no probe was made and the outcome of that load does not decide the circuit
+      circuitBreaker.release(permit);
+    }
+    return load;
   }
+
+  private MonthlySlots load(ScheduleKey key) {
+    Timer.Sample sample = Timer.start();
+    try {
+      return cache(key, schedulesClient.getSchedule(key.departure(), key.arrival(), key.year(), key.month()));
+    } finally {
+      sample.stop(loadTimer);
+    }
+  }
+
+  private CompletableFuture<MonthlySlots> loadAsync(ScheduleKey key) {
+    Timer.Sample sample = Timer.start();
+    // Cancelling the mapped future does not reach the call, so it is aborted along with it
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(scope.track(asyncSchedulesClient.getSchedule(key.departure(), key.arrival(), key.year(),
+            key.month()))
+        .thenApply(response -> cache(key, response))
+        .whenComplete((slots, error) -> sample.stop(loadTimer)));
+  }
+
+  private MonthlySlots cache(ScheduleKey key, ScheduleResponse response) {
+    MonthlySlots slots = scheduleMapper.toMonthlySlots(key.year(), response);
+    // Cached before the load leaves the in-flight map, so later callers always find it somewhere. A hedged load may
+    // complete twice, and only the slots cached first are handed out, so every caller holds the ones in the cache
+    Cache.ValueWrapper existing = schedulesCache.putIfAbsent(key, slots);
+    if (existing != null && existing.get() instanceof MonthlySlots cached) {
+      return cached;
+    }
+    staleSchedulesCache.put(key, slots);
+    return slots;
+  }
+
+  record ScheduleKey(String departure, String arrival, int year, int month) { }
 }
@@ -0,0 +1,227 @@
+package com.ryanair.interconnector.client;
+
+import com.ryanair.interconnector.config.ExternalApiCircuitBreakerProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker of the calls to an external API. While closed every call goes through and its outcome is kept, and
+ * once the failure rate of the recent calls reaches the threshold the circuit opens: no call is made for the open
+ * duration, so a failing API is not hammered while it recovers and callers fall back at once instead of waiting for
+ * it. Then a single probe call is let through, closing the circuit if it succeeds or opening it again if it fails. The
+ * probe is tagged by its {@link Permit}, so the outcome of any other call, like one started before the circuit opened,
+ * never decides it. A probe that never reports back, like a cancelled one, is replaced by a new one after another open
+ * duration.
+ * Only an {@link ExternalApiException} counts as a failure, a cancelled call says nothing about the API.
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  public enum Permission {
+    /** The circuit is closed, the call can be made. */
+    CALL,
+    /** The circuit is open but the call can be made to probe the API, its outcome closes or opens the circuit. */
+    PROBE,
+    /** The circuit is open, the call must not be made. */
+    REJECTED
+  }
+
+  /**
+   * Permission acquired for a call, to be handed back with its outcome.
+   * @param probe Number of the probe the call is, 0 unless it is one
+   */
+  public record Permit(Permission permission, long probe) {
+
+    private static final Permit CALL = new Permit(Permission.CALL, 0);
+    private static final Permit REJECTED = new Permit(Permission.REJECTED, 0);
+  }
+
+  private final String api;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long openDurationNanos;
+  private final LongSupplier nanoClock;
+  private final Counter rejections;
+
+  // Guarded by this, the outcomes of the recent calls as a ring (true for a failure)
+  private final boolean[] outcomes;
+  private int recorded;
+  private int nextOutcome;
+  private int failures;
+  private State state = State.CLOSED;
+  private long openedAt;
+  private long probes;
+
+  /**
+   * @param api Name of the API called, as shown in the error messages (e.g. Schedules)
+   * @param upstream Tag of the circuit metrics (e.g. schedules)
+   */
+  public CircuitBreaker(String api, String upstream, ExternalApiCircuitBreakerProperties.Circuit properties,
+      MeterRegistry meterRegistry) {
+    this(api, upstream, properties, meterRegistry, System::nanoTime);
+  }
+
+  CircuitBreaker(String api, String upstream, ExternalApiCircuitBreakerProperties.Circuit properties,
+      MeterRegistry meterRegistry, LongSupplier nanoClock) {
+    this.api = api;
+    this.outcomes = new boolean[Math.max(1, properties.getWindowSize())];
+    this.minimumCalls = Math.clamp(properties.getMinimumCalls(), 1, outcomes.length);
+    this.failureRateThreshold = properties.getFailureRateThreshold();
+    this.openDurationNanos = properties.getOpenDuration().toNanos();
+    this.nanoClock = nanoClock;
+
+    Gauge.builder("interconnector.circuit.state", this, breaker -> breaker.state().ordinal())
+        .description("State of the circuit of an external API (0 closed, 1 open, 2 half open)")
+        .tag("upstream", upstream)
+        .register(meterRegistry);
+    this.rejections = Counter.builder("interconnector.circuit.rejected")
+        .description("Calls to an external API not made as its circuit was open")
+        .tag("upstream", upstream)
+        .register(meterRegistry);
+  }
+
+  public synchronized State state() {
+    return state;
+  }
+
+  /**
+   * @return Whether a call can be made now, either as a regular one or as the probe of an open circuit
+   */
+  public synchronized Permit acquire() {
+    if (state == State.CLOSED) {
+      return Permit.CALL;
+    }
+    long now = nanoClock.getAsLong();
+    if (now - openedAt >= openDurationNanos) {
+      state = State.HALF_OPEN;
+      // Restarted, so a probe that never reports back is replaced after another open duration
+      openedAt = now;
+      return new Permit(Permission.PROBE, ++probes);
+    }
+    rejections.increment();
+    return Permit.REJECTED;
+  }
+
+  /**
+   * Gives back the permit of a probe that was not made, e.g. as the load it was acquired for was already in flight, so
+   * the next call probes the API instead of waiting for another open duration.
+   */
+  public synchronized void release(Permit permit) {
+    if (isProbing(permit)) {
+      state = State.OPEN;
+      openedAt = nanoClock.getAsLong() - openDurationNanos;
+    }
+  }
+
+  /**
+   * Makes a blocking call if the circuit allows it, keeping its outcome.
+   * @throws ExternalApiException If the call fails, or is not made as the circuit is open
+   */
+  public <T> T call(Supplier<T> call) {
+    Permit permit = acquire();
+    if (permit.permission() == Permission.REJECTED) {
+      throw new ExternalApiException("[%s API] circuit open, call not made".formatted(api), null);
+    }
+    T result;
+    try {
+      result = call.get();
+    } catch (ExternalApiException ex) {
+      onFailure(permit);
+      throw ex;
+    }
+    onSuccess(permit);
+    return result;
+  }
+
+  /**
+   * Keeps the outcome of a call made with the given permit.
+   * @return The same call
+   */
+  public <T> CompletableFuture<T> record(CompletableFuture<T> call, Permit permit) {
+    call.whenComplete((value, error) -> {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      if (cause == null) {
+        onSuccess(permit);
+      } else if (cause instanceof ExternalApiException) {
+        onFailure(permit);
+      }
+    });
+    return call;
+  }
+
+  // Whether the permit is the one of the probe the circuit is waiting for
+  private boolean isProbing(Permit permit) {
+    return state == State.HALF_OPEN && permit.permission() == Permission.PROBE && permit.probe() == probes;
+  }
+
+  private synchronized void onSuccess(Permit permit) {
+    switch (state) {
+      case CLOSED -> addOutcome(false);
+      case HALF_OPEN -> {
+        // Any other call, like one started before the circuit opened, leaves the decision to the probe
+        if (isProbing(permit)) {
+          close();
+        }
+      }
+      case OPEN -> { }
+    }
+  }
+
+  private synchronized void onFailure(Permit permit) {
+    switch (state) {
+      case CLOSED -> {
+        addOutcome(true);
+        if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+          log.atWarn().setMessage("Circuit of the {} API opened, {} of the last {} calls failed")
+              .addArgument(api)
+              .addArgument(failures)
+              .addArgument(recorded)
+              .log();
+          open();
+        }
+      }
+      case HALF_OPEN -> {
+        if (isProbing(permit)) {
+          log.atWarn().setMessage("Circuit of the {} API opened again, the probe call failed").addArgument(api).log();
+          open();
+        }
+      }
+      case OPEN -> { }
+    }
+  }
+
+  private void addOutcome(boolean failure) {
+    if (recorded == outcomes.length) {
+      failures -= outcomes[nextOutcome] ? 1 : 0;
+    } else {
+      recorded++;
+    }
+    outcomes[nextOutcome] = failure;
+    failures += failure ? 1 : 0;
+    nextOutcome = (nextOutcome + 1) % outcomes.length;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = nanoClock.getAsLong();
+  }
+
+  private void close() {
+    log.atInfo().setMessage("Circuit of the {} API closed, the probe call succeeded").addArgument(api).log();
+    state = State.CLOSED;
+    recorded = 0;
+    nextOutcome = 0;
+    failures = 0;
+  }
+}
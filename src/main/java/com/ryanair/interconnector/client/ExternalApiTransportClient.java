@@ -0,0 +1,34 @@
+package com.ryanair.interconnector.client;
+
+import com.ryanair.interconnector.exception.ExternalApiException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+
+/**
+ * Feign transport reporting the calls that fail without a response, like a timeout or a refused connection, as an
+ * {@link ExternalApiException} too, the same as the {@link ExternalApiErrorDecoder} does for error responses.
+ */
+public class ExternalApiTransportClient implements Client {
+
+  private final String api;
+  private final Client delegate;
+
+  /**
+   * @param api Name of the API called, as shown in the error messages (e.g. Schedules)
+   */
+  public ExternalApiTransportClient(String api, Client delegate) {
+    this.api = api;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) {
+    try {
+      return delegate.execute(request, options);
+    } catch (IOException e) {
+      throw new ExternalApiException("[%s API] call failed (%s)".formatted(api, e), e);
+    }
+  }
+}
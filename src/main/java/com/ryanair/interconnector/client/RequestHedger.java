@@ -0,0 +1,200 @@
+package com.ryanair.interconnector.client;
+
+import com.ryanair.interconnector.config.ExternalApiHedgingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedges the calls to an external API that take longer than usual: once a call has not completed by the configured
+ * percentile of the latency of the recent calls, an identical one is sent, the first to answer wins and the other one
+ * is cancelled. So a few slow calls no longer hold back every result waiting for all of them.
+ * The hedges are capped by a budget, saved up at the configured ratio per call, so the extra load on the API stays
+ * bounded however slow it gets. A call failing is not hedged, the hedges only cut the tail latency, and the result
+ * only fails once every call sent has failed. The latency sampled is always the one of the first call, up to the answer
+ * of its hedge when that one wins, so the slow calls cut short keep the percentile from drifting down.
+ */
+public final class RequestHedger {
+
+  // Latencies needed before their percentile is trusted over the initial delay
+  private static final int MIN_SAMPLES = 20;
+
+  private final boolean enabled;
+  private final double percentile;
+  private final long initialDelayNanos;
+  private final long minDelayNanos;
+  private final double budgetRatio;
+  private final int maxBurst;
+  private final LongSupplier nanoClock;
+  private final BiConsumer<Duration, Runnable> scheduler;
+  private final Counter hedges;
+  private final Counter hedgeWins;
+  private final Counter hedgesDenied;
+
+  // Guarded by this, the latencies of the recent calls as a ring
+  private final long[] latencies;
+  private int sampleCount;
+  private int nextSample;
+  private double budget;
+
+  /**
+   * @param api Name of the API called, as shown in the metric descriptions (e.g. Schedules)
+   * @param metricPrefix Prefix of the hedges, wins, denied and delay metrics
+   */
+  public RequestHedger(String api, String metricPrefix, ExternalApiHedgingProperties properties,
+      MeterRegistry meterRegistry) {
+    this(api, metricPrefix, properties, meterRegistry, System::nanoTime,
+        (delay, task) -> CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(task));
+  }
+
+  /**
+   * @param scheduler Runs the hedge of a call once its delay has elapsed
+   */
+  RequestHedger(String api, String metricPrefix, ExternalApiHedgingProperties properties,
+      MeterRegistry meterRegistry, LongSupplier nanoClock, BiConsumer<Duration, Runnable> scheduler) {
+    this.enabled = properties.isEnabled();
+    this.percentile = properties.getPercentile();
+    this.initialDelayNanos = properties.getInitialDelay().toNanos();
+    this.minDelayNanos = properties.getMinDelay().toNanos();
+    this.budgetRatio = properties.getBudgetRatio();
+    this.maxBurst = properties.getMaxBurst();
+    this.nanoClock = nanoClock;
+    this.scheduler = scheduler;
+    this.latencies = new long[Math.max(MIN_SAMPLES, properties.getSamples())];
+    // Starts saved up, so the first slow calls after startup can already be hedged
+    this.budget = maxBurst;
+
+    this.hedges = Counter.builder(metricPrefix + ".hedges")
+        .description("Calls to the %s API hedged with a second call".formatted(api))
+        .register(meterRegistry);
+    this.hedgeWins = Counter.builder(metricPrefix + ".wins")
+        .description("Hedges answering before the call to the %s API they hedged".formatted(api))
+        .register(meterRegistry);
+    this.hedgesDenied = Counter.builder(metricPrefix + ".denied")
+        .description("Calls to the %s API not hedged as the budget was exhausted".formatted(api))
+        .register(meterRegistry);
+    Gauge.builder(metricPrefix + ".delay", this, hedger -> hedger.delayNanos() / 1e9)
+        .description("Time after which a call to the %s API is hedged".formatted(api))
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @param call Sends the call, invoked again for the hedge
+   * @return A future completed as the first call to answer is, and cancelling every call sent once cancelled
+   */
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+    if (!enabled) {
+      return call.get();
+    }
+    synchronized (this) {
+      budget = Math.min(maxBurst, budget + budgetRatio);
+    }
+
+    Hedged<T> hedged = new Hedged<>(call);
+    hedged.attempt(false);
+    if (!hedged.result.isDone()) {
+      scheduler.accept(Duration.ofNanos(delayNanos()), hedged::hedge);
+    }
+    return hedged.result;
+  }
+
+  synchronized long delayNanos() {
+    if (sampleCount < MIN_SAMPLES) {
+      return initialDelayNanos;
+    }
+    long[] sorted = Arrays.copyOf(latencies, sampleCount);
+    Arrays.sort(sorted);
+    int index = Math.clamp((long) Math.ceil(percentile * sampleCount) - 1, 0, sampleCount - 1);
+    return Math.max(minDelayNanos, sorted[index]);
+  }
+
+  private synchronized void record(long latencyNanos) {
+    latencies[nextSample] = latencyNanos;
+    nextSample = (nextSample + 1) % latencies.length;
+    sampleCount = Math.min(sampleCount + 1, latencies.length);
+  }
+
+  private synchronized boolean tryAcquireBudget() {
+    if (budget < 1) {
+      return false;
+    }
+    budget--;
+    return true;
+  }
+
+  private final class Hedged<T> {
+
+    private final Supplier<CompletableFuture<T>> call;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+    private final long startedAt = nanoClock.getAsLong();
+    // Guarded by this
+    private int pending;
+
+    private Hedged(Supplier<CompletableFuture<T>> call) {
+      this.call = call;
+      // Cancels the loser once there is a winner, or every call if nobody waits for the result anymore
+      result.whenComplete((value, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+    }
+
+    private void hedge() {
+      if (result.isDone()) {
+        return;
+      }
+      if (!tryAcquireBudget()) {
+        hedgesDenied.increment();
+        return;
+      }
+      hedges.increment();
+      attempt(true);
+    }
+
+    private void attempt(boolean hedge) {
+      CompletableFuture<T> future;
+      try {
+        future = call.get();
+      } catch (RuntimeException ex) {
+        future = CompletableFuture.failedFuture(ex);
+      }
+      synchronized (this) {
+        pending++;
+      }
+      attempts.add(future);
+      // Completed while sending, so the cancellation did not find this call yet
+      if (result.isDone()) {
+        future.cancel(true);
+      }
+      future.whenComplete((value, error) -> complete(value, error, hedge));
+    }
+
+    private void complete(T value, Throwable error, boolean hedge) {
+      boolean last;
+      synchronized (this) {
+        last = --pending == 0;
+      }
+      if (error == null) {
+        if (result.complete(value)) {
+          // Time the first call took, or had taken so far when its hedge answered first
+          record(nanoClock.getAsLong() - startedAt);
+          if (hedge) {
+            hedgeWins.increment();
+          }
+        }
+      } else if (last) {
+        result.completeExceptionally(
+            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.ryanair.interconnector.client;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnector.config.RoutesRefreshProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.validation.route.RouteValidator;
+import com.ryanair.interconnector.validation.route.RouteValidatorChain;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the index of the valid routes following a stale-while-revalidate approach.
+ * Readers always get the current snapshot without waiting for the Routes API, while a scheduled task builds a new
+ * snapshot off the request path and swaps it atomically. If a refresh fails the previous snapshot keeps being served
+ * until it is older than the configured maximum staleness, or for as long as the circuit of the Routes API is open, in
+ * which case the scheduled refresh is also what probes the API.
+ */
+@Service
+@Slf4j
+public class RoutesSnapshotProvider implements SchedulingConfigurer {
+
+  private final CachedRoutesProvider routesProvider;
+  private final RouteValidatorChain routeValidator;
+  private final Duration refreshInterval;
+  private final Duration maxStaleness;
+  private final Executor externalApiExecutor;
+
+  private final AtomicReference<RoutesSnapshot> snapshot = new AtomicReference<>();
+  private final SingleFlightLoader<String, RoutesSnapshot> initialLoader = new SingleFlightLoader<>();
+
+  @Autowired
+  public RoutesSnapshotProvider(CachedRoutesProvider routesProvider, List<RouteValidator> routeValidators,
+      RoutesRefreshProperties properties, @Qualifier("externalApiExecutor") Executor externalApiExecutor) {
+    this.routesProvider = routesProvider;
+    this.routeValidator = RouteValidatorChain.of(routeValidators);
+    this.refreshInterval = properties.getRefreshInterval();
+    this.maxStaleness = properties.getMaxStaleness();
+    this.externalApiExecutor = externalApiExecutor;
+  }
+
+  /**
+   * Returns the index of the current routes snapshot. Only the very first call (or the first one after an eviction)
+   * waits for the Routes API, as there is nothing to serve yet, and every reader arriving meanwhile shares that load.
+   * @return A future completed with the index, or failed with an {@link ExternalApiException} if the routes cannot be
+   * loaded or the snapshot is older than the maximum staleness
+   */
+  public CompletableFuture<RoutesIndex> currentIndex() {
+    RoutesSnapshot current = snapshot.get();
+    if (current == null) {
+      return loadInitialSnapshot().thenApply(this::checkStaleness);
+    }
+    try {
+      return CompletableFuture.completedFuture(checkStaleness(current));
+    } catch (ExternalApiException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+  }
+
+  /**
+   * Returns the index of the current snapshot as it is, without loading it or checking its staleness. Only a refresh
+   * changing the routes swaps in a new index, so it also tells whether anything derived from a previous one is
+   * outdated.
+   * @return The index, empty if no snapshot has been loaded yet
+   */
+  public Optional<RoutesIndex> loadedIndex() {
+    return Optional.ofNullable(snapshot.get()).map(RoutesSnapshot::index);
+  }
+
+  /**
+   * Schedules the refresh every refresh interval, the first one after an interval too as the initial snapshot is
+   * loaded by the first reader.
+   */
+  @Override
+  public void configureTasks(ScheduledTaskRegistrar registrar) {
+    registrar.addFixedDelayTask(new FixedDelayTask(this::refresh, refreshInterval, refreshInterval));
+  }
+
+  public void refresh() {
+    try {
+      RoutesSnapshot refreshed = buildSnapshot(routesProvider.refreshAllRoutes());
+      RoutesSnapshot previous = snapshot.get();
+      // Unchanged routes keep the previous index, so whatever was derived from it is still current
+      if (previous != null && previous.index().hasSameRoutesAs(refreshed.index())) {
+        refreshed = new RoutesSnapshot(previous.index(), refreshed.createdAt());
+      }
+      snapshot.set(refreshed);
+      log.atInfo().setMessage("Routes snapshot refreshed").log();
+    } catch (RuntimeException ex) {
+      // Keep serving the previous snapshot, next scheduled execution will try again
+      log.atWarn().setMessage("Routes snapshot refresh failed, serving the previous one. Exception: {}")
+          .addArgument(ex)
+          .log();
+    }
+  }
+
+  /**
+   * Drops the current snapshot, so the next reader loads a new one.
+   */
+  public void evict() {
+    snapshot.set(null);
+  }
+
+  private CompletableFuture<RoutesSnapshot> loadInitialSnapshot() {
+    return initialLoader.load("routes", () -> CompletableFuture.supplyAsync(() -> {
+      RoutesSnapshot current = snapshot.get();
+      if (current == null) {
+        current = buildSnapshot(routesProvider.fetchAllRoutesCached());
+        // A refresh may have completed meanwhile, and it is newer than what we just built
+        if (!snapshot.compareAndSet(null, current)) {
+          current = snapshot.get();
+        }
+      }
+      return current;
+    }, externalApiExecutor));
+  }
+
+  private RoutesIndex checkStaleness(RoutesSnapshot current) {
+    Duration age = Duration.between(current.createdAt(), Instant.now());
+    // While the Routes API is failing there is nothing newer to get, so the last snapshot is served however old it is
+    if (age.compareTo(maxStaleness) > 0 && !routesProvider.isCircuitOpen()) {
+      throw new ExternalApiException(
+          "[Routes API] routes snapshot is %s old, exceeding the maximum staleness of %s".formatted(age, maxStaleness),
+          null);
+    }
+    return current.index();
+  }
+
+  private RoutesSnapshot buildSnapshot(List<Route> routes) {
+    return new RoutesSnapshot(RoutesIndex.of(routes, routeValidator::isValidRoute), Instant.now());
+  }
+
+  private record RoutesSnapshot(RoutesIndex index, Instant createdAt) { }
+}
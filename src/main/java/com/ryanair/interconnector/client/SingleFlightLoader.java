@@ -0,0 +1,110 @@
+package com.ryanair.interconnector.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into a single one.
+ * The first caller for a key triggers the loader and every caller arriving while it is in flight gets the same result,
+ * without blocking any thread while waiting. Each caller receives its own dependent copy of the shared future, so
+ * one caller cancelling its copy does not affect the others. Once every caller has cancelled its copy nobody waits for
+ * the load anymore, so the future of the loader is cancelled and a later caller starts a new load.
+ *
+ * @param <K> Type of the key identifying a load
+ * @param <V> Type of the loaded value
+ */
+public class SingleFlightLoader<K, V> {
+
+  private final ConcurrentMap<K, Load<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * @param key Key identifying the load
+   * @param loader Starts the load, only invoked if there is no load in flight for the key
+   * @return A future completed with the result of the load in flight for the key
+   */
+  public CompletableFuture<V> load(K key, Supplier<CompletableFuture<V>> loader) {
+    while (true) {
+      Load<V> created = new Load<>();
+      Load<V> existing = inFlight.putIfAbsent(key, created);
+      if (existing == null) {
+        start(key, created, loader);
+        return created.waiter();
+      }
+      if (existing.join()) {
+        return existing.waiter();
+      }
+      // Abandoned by all its callers and being cancelled, so it is replaced by a new load
+      inFlight.remove(key, existing);
+    }
+  }
+
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private void start(K key, Load<V> load, Supplier<CompletableFuture<V>> loader) {
+    try {
+      CompletableFuture<V> source = loader.get();
+      load.source = source;
+      source.whenComplete((value, error) -> {
+        inFlight.remove(key, load);
+        if (error != null) {
+          load.shared.completeExceptionally(error);
+        } else {
+          load.shared.complete(value);
+        }
+      });
+    } catch (RuntimeException ex) {
+      inFlight.remove(key, load);
+      load.shared.completeExceptionally(ex);
+    }
+  }
+
+  /**
+   * A load in flight with the number of callers still waiting for it, starting with the one that triggered it.
+   */
+  private static final class Load<V> {
+
+    private static final int ABANDONED = -1;
+
+    private final CompletableFuture<V> shared = new CompletableFuture<>();
+    private final AtomicInteger waiters = new AtomicInteger(1);
+    private volatile CompletableFuture<V> source;
+
+    // Counts one more caller, unless the load was already abandoned
+    private boolean join() {
+      int current;
+      do {
+        current = waiters.get();
+        if (current == ABANDONED) {
+          return false;
+        }
+      } while (!waiters.compareAndSet(current, current + 1));
+      return true;
+    }
+
+    private CompletableFuture<V> waiter() {
+      CompletableFuture<V> copy = shared.copy();
+      copy.whenComplete((value, error) -> {
+        if (copy.isCancelled()) {
+          leave();
+        }
+      });
+      return copy;
+    }
+
+    private void leave() {
+      // A caller joining between both steps keeps the load alive
+      if (waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, ABANDONED)) {
+        shared.cancel(false);
+        CompletableFuture<V> loading = source;
+        if (loading != null) {
+          loading.cancel(true);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.ryanair.interconnector.concurrent;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Futures started on behalf of a single result. Cancelling a future does not reach the ones it depends on, so once the
+ * result fails or is cancelled (its deadline expired, the client went away or one of the children it needs failed)
+ * every child still pending is cancelled here instead of running to completion for nobody. A failing child cancels
+ * its siblings right away, as combining them would otherwise wait for every one of them before failing the result, and
+ * the result fails with that first failure rather than with the cancellation of a sibling it caused.
+ * Children backed by an {@link InterruptibleFuture} stop the work behind them, like an in-flight HTTP call.
+ */
+public final class CancellationScope {
+
+  private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+  private final Set<CompletableFuture<?>> results = ConcurrentHashMap.newKeySet();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private volatile boolean cancelled;
+
+  /**
+   * Tracks a child the result needs, whose failure cancels the scope.
+   * @return The same child, which is cancelled along with the scope while pending
+   */
+  public <T> CompletableFuture<T> track(CompletableFuture<T> child) {
+    return track(child, true);
+  }
+
+  /**
+   * Tracks a child the result can do without, like a best-effort lookup or a query of a batch answered on its own,
+   * whose failure leaves its siblings running.
+   * @return The same child, which is cancelled along with the scope while pending
+   */
+  public <T> CompletableFuture<T> trackOptional(CompletableFuture<T> child) {
+    return track(child, false);
+  }
+
+  private <T> CompletableFuture<T> track(CompletableFuture<T> child, boolean required) {
+    if (child.isDone()) {
+      if (required && child.isCompletedExceptionally()) {
+        child.whenComplete((value, error) -> fail(error));
+      }
+      return child;
+    }
+    pending.add(child);
+    child.whenComplete((value, error) -> {
+      pending.remove(child);
+      if (required && error != null) {
+        fail(error);
+      }
+    });
+    // Checked after adding it, so a child tracked while the scope is being cancelled is never missed
+    if (cancelled) {
+      child.cancel(true);
+    }
+    return child;
+  }
+
+  /**
+   * @return The same result, whose failure or cancellation cancels the scope
+   */
+  public <T> CompletableFuture<T> bind(CompletableFuture<T> result) {
+    results.add(result);
+    result.whenComplete((value, error) -> {
+      results.remove(result);
+      if (error != null) {
+        cancel();
+      }
+    });
+    // Checked after adding it, so a result bound once a child has failed still fails with it
+    Throwable failed = failure.get();
+    if (failed != null) {
+      result.completeExceptionally(failed);
+    }
+    return result;
+  }
+
+  public void cancel() {
+    cancelled = true;
+    pending.forEach(child -> child.cancel(true));
+  }
+
+  // The results are failed before the siblings are cancelled, as their cancellation could otherwise reach them first
+  private void fail(Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if (!(cause instanceof CancellationException) && failure.compareAndSet(null, cause)) {
+      results.forEach(result -> result.completeExceptionally(cause));
+    }
+    cancel();
+  }
+}
@@ -0,0 +1,44 @@
+package com.ryanair.interconnector.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which the result of a request is no longer useful, measured on the monotonic clock.
+ */
+public final class Deadline {
+
+  private final Duration timeout;
+  private final long expiresAtNanos;
+
+  private Deadline(Duration timeout) {
+    this.timeout = timeout;
+    this.expiresAtNanos = System.nanoTime() + timeout.toNanos();
+  }
+
+  public static Deadline after(Duration timeout) {
+    return new Deadline(timeout);
+  }
+
+  public Duration timeout() {
+    return timeout;
+  }
+
+  public Duration remaining() {
+    return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return remaining().isZero();
+  }
+
+  /**
+   * Fails the future with a {@link java.util.concurrent.TimeoutException} if it is still pending at the deadline, which
+   * cancels the work of its {@link CancellationScope}.
+   * @return The same future
+   */
+  public <T> CompletableFuture<T> enforce(CompletableFuture<T> future) {
+    return future.orTimeout(remaining().toNanos(), TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,91 @@
+package com.ryanair.interconnector.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Future of a task whose cancellation interrupts the thread running it, which {@link CompletableFuture#supplyAsync}
+ * never does. A blocking HTTP call on a virtual thread is aborted by the interruption, and a task cancelled before
+ * starting does not run at all. The interruption never leaks to the next task of a pooled thread.
+ *
+ * @param <T> Type of the result of the task
+ */
+public final class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+  private final Lock lock = new ReentrantLock();
+  private Thread runner;
+  private boolean interrupted;
+
+  private InterruptibleFuture() {
+  }
+
+  /**
+   * @return A future completed with the result of the supplier, run by the executor
+   */
+  public static <T> CompletableFuture<T> run(Supplier<T> supplier, Executor executor) {
+    InterruptibleFuture<T> future = new InterruptibleFuture<>();
+    executor.execute(() -> future.execute(supplier));
+    return future;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled && mayInterruptIfRunning) {
+      lock.lock();
+      try {
+        if (runner != null) {
+          runner.interrupt();
+          interrupted = true;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return cancelled;
+  }
+
+  private void execute(Supplier<T> supplier) {
+    if (!start()) {
+      return;
+    }
+    try {
+      complete(supplier.get());
+    } catch (Throwable ex) {
+      completeExceptionally(ex);
+    } finally {
+      finish();
+    }
+  }
+
+  private boolean start() {
+    lock.lock();
+    try {
+      if (isDone()) {
+        return false;
+      }
+      runner = Thread.currentThread();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void finish() {
+    boolean clearInterrupt;
+    lock.lock();
+    try {
+      runner = null;
+      clearInterrupt = interrupted;
+    } finally {
+      lock.unlock();
+    }
+    if (clearInterrupt) {
+      // Only clears the interruption caused by the cancellation, the thread may run other tasks
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.ryanair.interconnector.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Sink handing over its values only once the values before them have been, like the connections with more stops of a
+ * stream after the ones with fewer. Values arriving before are held until then, while the ones arriving after go
+ * straight through, so they are only kept when they are found ahead of their turn.
+ */
+public final class OrderedSink<T> implements Consumer<T> {
+
+  private final Consumer<T> sink;
+  private final CompletableFuture<Void> released;
+  private List<T> held = new ArrayList<>();
+
+  /**
+   * @param preceding Completed once the values before are handed over
+   */
+  public OrderedSink(CompletableFuture<?> preceding, Consumer<T> sink) {
+    this.sink = sink;
+    this.released = preceding.thenRun(this::release);
+  }
+
+  @Override
+  public synchronized void accept(T value) {
+    if (held == null) {
+      sink.accept(value);
+    } else {
+      held.add(value);
+    }
+  }
+
+  /**
+   * @return CompletableFuture completed once the values held have been handed over, after which every value goes
+   *     straight through. Each call returns a copy, so completing it does not release anything
+   */
+  public CompletableFuture<Void> released() {
+    return released.copy();
+  }
+
+  private synchronized void release() {
+    held.forEach(sink);
+    held = null;
+  }
+}
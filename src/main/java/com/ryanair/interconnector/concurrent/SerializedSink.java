@@ -0,0 +1,34 @@
+package com.ryanair.interconnector.concurrent;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Sink receiving values produced on different threads, like the results of a search completing one by one, and
+ * handing them over one at a time as the sink behind it is not thread-safe (e.g. a response being written).
+ */
+public final class SerializedSink {
+
+  private SerializedSink() {
+  }
+
+  /**
+   * @param skipped Tells the values not worth handing over, like an empty batch of connections
+   */
+  public static <T> Consumer<T> of(Consumer<T> sink, Predicate<T> skipped) {
+    Lock lock = new ReentrantLock();
+    return value -> {
+      if (skipped.test(value)) {
+        return;
+      }
+      lock.lock();
+      try {
+        sink.accept(value);
+      } finally {
+        lock.unlock();
+      }
+    };
+  }
+}
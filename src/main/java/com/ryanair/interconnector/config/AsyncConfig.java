@@ -1,5 +1,6 @@
 package com.ryanair.interconnector.config;
 
+import com.ryanair.interconnector.config.ExternalApiExecutorProperties.Mode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
@@ -8,7 +9,8 @@ import org.springframework.context.annotation.Configuration;
 import java.util.concurrent.Executor;
 
 /**
- * Configuration class for setting up an asynchronous executor using Spring Configuration Properties
+ * Configuration class for setting up an asynchronous executor using Spring Configuration Properties.
+ * The executor is either a bounded pool of platform threads or, in virtual mode, a virtual thread per external call.
  */
 
 @Configuration
@@ -17,6 +19,9 @@ public class AsyncConfig {
 
   @Bean(name = "externalApiExecutor")
   public Executor externalApiExecutor(ExternalApiExecutorProperties properties) {
+    if (properties.getMode() == Mode.VIRTUAL) {
+      return new BoundedVirtualThreadExecutor("externalApi-", properties.getMaxConcurrentCalls());
+    }
     return new ThreadPoolTaskExecutorBuilder()
         .corePoolSize(properties.getCorePoolSize())
         .maxPoolSize(properties.getMaxPoolSize())
@@ -0,0 +1,42 @@
+package com.ryanair.interconnector.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs every task on its own virtual thread, with at most the given number of them running at once. Tasks over the
+ * limit are never rejected nor do they block the caller: they wait for a permit on their own virtual thread, which costs
+ * next to nothing, so the fan-out of a request is no longer capped by a pool of platform threads while the calls in
+ * flight towards the external APIs stay bounded.
+ */
+public class BoundedVirtualThreadExecutor implements Executor {
+
+  private final ThreadFactory threadFactory;
+  private final Semaphore permits;
+
+  public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrentTasks) {
+    this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+    this.permits = new Semaphore(maxConcurrentTasks);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    threadFactory.newThread(() -> {
+      // Not interruptible, as a task that never runs would leave its future incomplete
+      permits.acquireUninterruptibly();
+      try {
+        task.run();
+      } finally {
+        permits.release();
+      }
+    }).start();
+  }
+
+  /**
+   * @return Number of tasks waiting for a permit to run
+   */
+  public int waitingTasks() {
+    return permits.getQueueLength();
+  }
+}
@@ -0,0 +1,35 @@
+package com.ryanair.interconnector.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ryanair.interconnector.config.CacheSpecProperties.CacheSpec;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the in-process caches. Every cache declared in the properties is a Caffeine cache bounded by
+ * the weight of its entries and expiring after write, optionally recording statistics that are exposed as metrics.
+ */
+
+@Configuration
+@EnableConfigurationProperties(CacheSpecProperties.class)
+public class CacheConfig {
+
+  @Bean
+  public CacheManager cacheManager(CacheSpecProperties properties) {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    properties.getSpecs().forEach((name, spec) ->
+        cacheManager.registerCustomCache(name, buildCache(spec, properties.isRecordStats()).build()));
+    return cacheManager;
+  }
+
+  private Caffeine<Object, Object> buildCache(CacheSpec spec, boolean recordStats) {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumWeight(spec.getMaxWeight())
+        .weigher(new FlightCountWeigher())
+        .expireAfterWrite(spec.getExpireAfterWrite());
+    return recordStats ? builder.recordStats() : builder;
+  }
+}
@@ -0,0 +1,41 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "interconnector.cache")
+public class CacheSpecProperties {
+
+    /** Whether hit, miss, eviction and load time statistics are recorded for the caches. */
+    private boolean recordStats = true;
+
+    /** Specification of every cache, keyed by the cache name (e.g. schedulesCache). */
+    private Map<String, CacheSpec> specs = new LinkedHashMap<>();
+
+    public Map<String, CacheSpec> getSpecs() {
+        return Collections.unmodifiableMap(specs);
+    }
+
+    public void setSpecs(Map<String, CacheSpec> specs) {
+        this.specs = new LinkedHashMap<>(specs);
+    }
+
+    @Getter
+    @Setter
+    public static class CacheSpec {
+
+        /** Maximum total weight of the cache, where the weight of an entry is the number of flights or routes it holds. */
+        private long maxWeight = 100_000;
+
+        /** Time after which an entry expires since it was written. */
+        private Duration expireAfterWrite = Duration.ofHours(1);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "interconnector.deadline")
+public class DeadlineProperties {
+
+    /** Deadline of the requests that do not set one with the X-Request-Timeout header. */
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    /** Longest deadline a request can ask for, longer ones are capped to it. */
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,67 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "external.api.circuit-breaker")
+public class ExternalApiCircuitBreakerProperties {
+
+    /** Circuit of the Schedules API, called on every schedule month missing the cache. */
+    private Circuit schedules = new Circuit();
+
+    /** Circuit of the Routes API, called about once per routes refresh, so a couple of calls are enough to open it. */
+    private Circuit routes = new Circuit(4, 2);
+
+    // Copied both ways, so nobody changes the thresholds of a circuit behind its back
+    public Circuit getSchedules() {
+        return new Circuit(schedules);
+    }
+
+    public void setSchedules(Circuit schedules) {
+        this.schedules = new Circuit(schedules);
+    }
+
+    public Circuit getRoutes() {
+        return new Circuit(routes);
+    }
+
+    public void setRoutes(Circuit routes) {
+        this.routes = new Circuit(routes);
+    }
+
+    @Getter
+    @Setter
+    public static class Circuit {
+
+        /** Recent calls to the external API whose outcome is kept to compute its failure rate. */
+        private int windowSize = 20;
+
+        /** Calls needed in the window before the circuit can open. */
+        private int minimumCalls = 10;
+
+        /** Failure rate of the recent calls at which the circuit opens (0.5 = half of them failed). */
+        private double failureRateThreshold = 0.5;
+
+        /** Time the circuit stays open before a probe call is let through to check whether the API recovered. */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public Circuit() {
+        }
+
+        Circuit(int windowSize, int minimumCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+        }
+
+        Circuit(Circuit circuit) {
+            this.windowSize = circuit.windowSize;
+            this.minimumCalls = circuit.minimumCalls;
+            this.failureRateThreshold = circuit.failureRateThreshold;
+            this.openDuration = circuit.openDuration;
+        }
+    }
+}
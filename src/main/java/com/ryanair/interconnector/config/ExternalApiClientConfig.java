@@ -0,0 +1,41 @@
+package com.ryanair.interconnector.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.net.http.HttpClient;
+
+/**
+ * Configuration class for the non-blocking HTTP client of the external APIs. A single client is shared by every call,
+ * so its connections are pooled and, over HTTP/2, the calls to the same host are multiplexed on a single connection.
+ * Its few dispatch threads only handle responses as they arrive, as no thread waits for a call in flight.
+ * The pooled transport of the Feign clients is set up per client by {@link FeignTransportConfig}.
+ */
+@Configuration
+@EnableConfigurationProperties({ExternalApiClientProperties.class, ExternalApiTransportProperties.class,
+    ExternalApiLimiterProperties.class, ExternalApiHedgingProperties.class,
+    ExternalApiCircuitBreakerProperties.class})
+public class ExternalApiClientConfig {
+
+  @Bean(name = "externalApiHttpExecutor")
+  public ThreadPoolTaskExecutor externalApiHttpExecutor(ExternalApiClientProperties properties) {
+    return new ThreadPoolTaskExecutorBuilder()
+        .corePoolSize(properties.getThreads())
+        .maxPoolSize(properties.getThreads())
+        .threadNamePrefix("externalApiHttp-")
+        .build();
+  }
+
+  @Bean(name = "externalApiHttpClient")
+  public HttpClient externalApiHttpClient(ExternalApiClientProperties properties,
+      @Qualifier("externalApiHttpExecutor") ThreadPoolTaskExecutor externalApiHttpExecutor) {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(properties.getConnectTimeout())
+        .executor(externalApiHttpExecutor)
+        .build();
+  }
+}
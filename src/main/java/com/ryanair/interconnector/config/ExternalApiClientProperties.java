@@ -0,0 +1,34 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "external.api.client")
+public class ExternalApiClientProperties {
+
+    /** How the schedules are fetched from the Schedules API, the Feign client being opt-in with the blocking mode. */
+    private Mode mode = Mode.ASYNC;
+
+    /** Time to establish a connection with the external APIs in async mode. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /** Time to receive the response of a call to the external APIs in async mode. */
+    private Duration requestTimeout = Duration.ofSeconds(10);
+
+    /** Threads dispatching the responses of the external APIs in async mode, however many calls are in flight. */
+    private int threads = 4;
+
+    public enum Mode {
+        /** Blocking Feign client, with a thread of the external API executor waiting for every call in flight. */
+        BLOCKING,
+        /**
+         * Non-blocking HTTP client sharing its connections and multiplexing the calls over HTTP/2 when the server
+         * supports it, so no thread waits for a call in flight.
+         */
+        ASYNC
+    }
+}
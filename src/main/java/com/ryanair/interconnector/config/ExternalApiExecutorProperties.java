@@ -9,6 +9,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "external.api.executor")
 public class ExternalApiExecutorProperties {
 
+    /** How the blocking calls to the external APIs are run. */
+    private Mode mode = Mode.PLATFORM;
+
     /** Core pool size for the external API executor. */
     private int corePoolSize = 10;
 
@@ -18,4 +21,14 @@ public class ExternalApiExecutorProperties {
     /** Queue capacity for the external API executor. */
     private int queueCapacity = 100;
 
+    /** Calls to the external APIs in flight at once in virtual mode, the rest wait for their turn. */
+    private int maxConcurrentCalls = 64;
+
+    public enum Mode {
+        /** Bounded pool of platform threads (core and max pool size) with a bounded queue, rejecting the excess. */
+        PLATFORM,
+        /** A virtual thread per call, limited to the maximum concurrent calls and never rejecting. */
+        VIRTUAL
+    }
+
 }
\ No newline at end of file
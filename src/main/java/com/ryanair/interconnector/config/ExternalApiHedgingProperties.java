@@ -0,0 +1,33 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "external.api.hedging")
+public class ExternalApiHedgingProperties {
+
+    /** Whether a second call is sent for the Schedules API calls that are slower than usual. */
+    private boolean enabled = false;
+
+    /** Percentile of the latency of the recent calls after which a call is hedged. */
+    private double percentile = 0.95;
+
+    /** Recent calls whose latency is kept to compute the percentile. */
+    private int samples = 200;
+
+    /** Delay used until enough calls have been observed to compute the percentile. */
+    private Duration initialDelay = Duration.ofMillis(500);
+
+    /** Shortest delay before hedging, however fast the recent calls were. */
+    private Duration minDelay = Duration.ofMillis(50);
+
+    /** Hedges allowed per call, capping the extra load on the Schedules API (0.1 = at most 10% more calls). */
+    private double budgetRatio = 0.1;
+
+    /** Hedges that can be sent in a row once the budget has been saved up. */
+    private int maxBurst = 10;
+}
@@ -0,0 +1,33 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "external.api.limiter")
+public class ExternalApiLimiterProperties {
+
+    /** Calls to the Schedules API in flight at once before any latency has been observed. */
+    private int initialLimit = 10;
+
+    /** Lowest limit, kept however slow the Schedules API gets. Equal to the max limit for a fixed one. */
+    private int minLimit = 2;
+
+    /** Highest limit, never above the threads of the external API executor in platform mode. */
+    private int maxLimit = 30;
+
+    /** Latency above which a call is taken as a sign of an overloaded Schedules API, the same as a failed one. */
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+
+    /** Factor the limit is multiplied by on every slow or failed call. */
+    private double backoffRatio = 0.9;
+
+    /** Calls waiting for their turn once the limit is reached, the rest are rejected. 0 to reject them right away. */
+    private int maxQueued = 100;
+
+    /** Time a call waits for its turn before it is rejected. */
+    private Duration queueTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,60 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "external.api.transport")
+public class ExternalApiTransportProperties {
+
+    /** Transport of every Feign client, keyed by the client name (e.g. schedulesClient). */
+    private Map<String, Transport> clients = new LinkedHashMap<>();
+
+    public Map<String, Transport> getClients() {
+        return Collections.unmodifiableMap(clients);
+    }
+
+    public void setClients(Map<String, Transport> clients) {
+        this.clients = new LinkedHashMap<>(clients);
+    }
+
+    /**
+     * @return The transport configured for the client, or the default one if it has none
+     */
+    public Transport transportOf(String clientName) {
+        return clients.getOrDefault(clientName, new Transport());
+    }
+
+    @Getter
+    @Setter
+    public static class Transport {
+
+        /** Connections kept open to the same host, leased or idle. */
+        private int maxConnectionsPerRoute = 20;
+
+        /** Connections kept open across all hosts, leased or idle. */
+        private int maxConnections = 50;
+
+        /** Time after which an idle connection is closed instead of being kept alive. */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        /** Time after which a connection is closed instead of being reused, so DNS changes are eventually picked up. */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /** Time to establish a connection. */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /** Time waiting for data of the response before the call fails. */
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        /** Whether compressed responses are requested and transparently decompressed. */
+        private boolean compression = true;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.ryanair.interconnector.config;
+
+import com.ryanair.interconnector.client.ExternalApiTransportClient;
+import com.ryanair.interconnector.config.ExternalApiTransportProperties.Transport;
+import feign.Client;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.util.StringUtils;
+
+/**
+ * Transport of the Feign clients, registered in the context of each client so every one of them gets its own pool of
+ * keep-alive connections, sized and timed out as configured for it under {@code external.api.transport.clients}. Idle
+ * and expired connections are evicted in the background, and the pool is exposed as the
+ * {@code httpcomponents.httpclient.pool.*} metrics tagged with the client name.
+ * Not a Configuration class on purpose, or the component scan would pick it up and share a single pool between all the
+ * clients.
+ */
+public class FeignTransportConfig {
+
+  private static final String CLIENT_NAME = "${spring.cloud.openfeign.client.name}";
+
+  @Bean
+  public CloseableHttpClient feignHttpClient(@Value(CLIENT_NAME) String clientName,
+      ExternalApiTransportProperties properties, MeterRegistry meterRegistry) {
+    Transport transport = properties.transportOf(clientName);
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnPerRoute(transport.getMaxConnectionsPerRoute())
+        .setMaxConnTotal(transport.getMaxConnections())
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(transport.getConnectTimeout()))
+            .setSocketTimeout(Timeout.of(transport.getReadTimeout()))
+            .setTimeToLive(TimeValue.of(transport.getTimeToLive()))
+            .build())
+        .build();
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, clientName).bindTo(meterRegistry);
+
+    HttpClientBuilder builder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.of(transport.getIdleTimeout()));
+    if (!transport.isCompression()) {
+      builder.disableContentCompression();
+    }
+    return builder.build();
+  }
+
+  @Bean
+  public Client feignClient(@Value(CLIENT_NAME) String clientName, CloseableHttpClient feignHttpClient) {
+    // schedulesClient reports its failures as the Schedules API, the same as the error decoder
+    String api = StringUtils.capitalize(clientName.replace("Client", ""));
+    return new ExternalApiTransportClient(api, new ApacheHttp5Client(feignHttpClient));
+  }
+
+  // Feign applies its own timeouts to every request, overriding the ones of the connection pool
+  @Bean
+  public Request.Options feignRequestOptions(@Value(CLIENT_NAME) String clientName,
+      ExternalApiTransportProperties properties) {
+    Transport transport = properties.transportOf(clientName);
+    return new Request.Options(transport.getConnectTimeout(), transport.getReadTimeout(), true);
+  }
+}
@@ -0,0 +1,31 @@
+package com.ryanair.interconnector.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.search.InterconnectionResultCache.CachedResult;
+import java.util.Collection;
+
+/**
+ * Weighs the cache entries by the number of elements they hold: flights for a schedule, routes for the routes list and
+ * connections for an interconnections result. Every entry weighs at least 1, so empty schedules are bounded too.
+ */
+public class FlightCountWeigher implements Weigher<Object, Object> {
+
+  @Override
+  public int weigh(Object key, Object value) {
+    return Math.max(1, count(value));
+  }
+
+  private int count(Object value) {
+    if (value instanceof MonthlySlots slots) {
+      return slots.size();
+    }
+    if (value instanceof CachedResult result) {
+      return result.size();
+    }
+    if (value instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    return 1;
+  }
+}
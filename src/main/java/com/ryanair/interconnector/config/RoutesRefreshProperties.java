@@ -0,0 +1,19 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "interconnector.routes")
+public class RoutesRefreshProperties {
+
+    /** Interval between background refreshes of the routes snapshot. */
+    private Duration refreshInterval = Duration.ofMinutes(10);
+
+    /** Maximum age of a routes snapshot that can still be served when the refreshes keep failing. */
+    private Duration maxStaleness = Duration.ofHours(6);
+
+}
@@ -0,0 +1,15 @@
+package com.ryanair.interconnector.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling the scheduled background tasks, like the refresh of the routes snapshot.
+ */
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RoutesRefreshProperties.class)
+public class SchedulingConfig {
+}
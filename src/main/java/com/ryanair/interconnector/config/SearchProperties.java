@@ -0,0 +1,49 @@
+package com.ryanair.interconnector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "interconnector.search")
+public class SearchProperties {
+
+    /** Shortest flight in the network, so the part of a window too short to fly a leg in is never looked up. */
+    private Duration minFlightDuration = Duration.ofMinutes(20);
+
+    /** How the schedules of both legs of a connection are fetched. */
+    private LegFetchStrategy legFetchStrategy = LegFetchStrategy.EAGER;
+
+    /** Highest number of stops a request can ask for, as every stop widens the schedules to scan. */
+    private int maxStops = 2;
+
+    /**
+     * Most route schedules a search with two or more stops looks up, the routes out of the airports reached earliest
+     * going first once exceeded.
+     */
+    private int maxRouteLookups = 200;
+
+    /** Largest page of sorted connections, also used when a page is requested without a limit. */
+    private int maxPageSize = 500;
+
+    /** Most queries a batch can hold, as all of them are searched at once. */
+    private int maxBatchSize = 20;
+
+    /**
+     * Most calendar days the window of a query can span to have its result cached by day bucket, 0 to disable the
+     * result cache.
+     */
+    private int resultCacheMaxDays = 2;
+
+    public enum LegFetchStrategy {
+        /** Both legs are fetched in parallel, for the lowest latency. */
+        EAGER,
+        /**
+         * The second leg is only fetched once the first one has flights, and only from the earliest time a connection
+         * can depart, for the fewest Schedules API calls.
+         */
+        CONDITIONAL
+    }
+}
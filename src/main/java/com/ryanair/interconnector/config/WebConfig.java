@@ -0,0 +1,21 @@
+package com.ryanair.interconnector.config;
+
+import com.ryanair.interconnector.controller.PendingResultCancellingInterceptor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class for the request deadlines, cancelling the lookups of asynchronous requests that end before them.
+ */
+
+@Configuration
+@EnableConfigurationProperties(DeadlineProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.registerDeferredResultInterceptors(new PendingResultCancellingInterceptor());
+  }
+}
@@ -2,31 +2,256 @@ package com.ryanair.interconnector.controller;
 
 import com.ryanair.interconnectingflights.api.InterconnectionsApi;
 import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.InterconnectionBatchRequest;
+import com.ryanair.interconnectingflights.model.InterconnectionBatchResponse;
+import com.ryanair.interconnectingflights.model.InterconnectionResult;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.Deadline;
+import com.ryanair.interconnector.config.DeadlineProperties;
+import com.ryanair.interconnector.exception.GlobalExceptionHandler;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.search.ConnectionCursor;
+import com.ryanair.interconnector.search.ConnectionPage;
+import com.ryanair.interconnector.search.PageRequest;
+import com.ryanair.interconnector.search.PartialConnections;
 import com.ryanair.interconnector.service.InterconnectionService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Controller for handling interconnection requests.
  * Implements the InterconnectionsApi interface generated by OpenAPI to provide interconnection data.
+ * The streaming variants are mapped by hand, as the generated interface wraps every response in a single future: the
+ * connections between two airports, and the ones from an airport to every destination grouped by destination.
+ * Every request runs under a deadline, given by the X-Request-Timeout header or the configured default: once it expires
+ * or the request ends without a result, the lookups still pending are cancelled. Partial results skip them instead,
+ * answering by the deadline with the connections found and headers telling what was skipped. The queries of a batch
+ * are answered together, each one with its connections or its own error.
  */
 @RestController
+@Slf4j
 public class InterconnectionController implements InterconnectionsApi {
 
+    static final String STREAM_PATH = "/v1/interconnections/stream";
+    static final String ANYWHERE_PATH = "/v1/interconnections/anywhere";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+    static final String COMPLETENESS_HEADER = "X-Result-Completeness";
+    static final String SKIPPED_INTERMEDIATES_HEADER = "X-Skipped-Intermediates";
+    static final String SKIPPED_MONTHS_HEADER = "X-Skipped-Months";
+
     private final InterconnectionService interconnectionService;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
 
     @Autowired
-    public InterconnectionController(InterconnectionService interconnectionService) {
+    public InterconnectionController(InterconnectionService interconnectionService,
+        DeadlineProperties deadlineProperties) {
         this.interconnectionService = interconnectionService;
+        this.defaultTimeout = deadlineProperties.getDefaultTimeout();
+        this.maxTimeout = deadlineProperties.getMaxTimeout();
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<List<Connection>>> getInterconnections(String departure, String arrival,
+        LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, Integer maxStops, String sort, Integer limit,
+        String cursor, Boolean partial, String xRequestTimeout) {
+
+        Deadline deadline = deadlineOf(xRequestTimeout);
+        int stops = maxStops == null ? InterconnectionService.DEFAULT_MAX_STOPS : maxStops;
+        boolean paged = sort != null || limit != null || cursor != null;
+        if (Boolean.TRUE.equals(partial)) {
+            if (paged) {
+                throw new InvalidRequestException(
+                    "Partial results are not supported together with parameters 'sort', 'limit' or 'cursor'");
+            }
+            // The service answers by the deadline on its own, skipping the lookups still pending
+            return PendingResultCancellingInterceptor.cancelOnAbandon(
+                interconnectionService.findInterconnections(departure, arrival, departureDateTime, arrivalDateTime,
+                    stops, deadline)).thenApply(InterconnectionController::toPartialResponse);
+        }
+        if (!paged) {
+            return PendingResultCancellingInterceptor.cancelOnAbandon(deadline.enforce(
+                interconnectionService.findInterconnections(departure, arrival, departureDateTime, arrivalDateTime,
+                    stops))).thenApply(ResponseEntity::ok);
+        }
+
+        return PendingResultCancellingInterceptor.cancelOnAbandon(deadline.enforce(
+            interconnectionService.findInterconnections(departure, arrival, departureDateTime, arrivalDateTime,
+                stops, PageRequest.of(sort, limit, cursor)))).thenApply(InterconnectionController::toResponse);
     }
 
     @Override
-    public CompletableFuture<List<Connection>> getInterconnections(String departure, String arrival,
-        LocalDateTime departureDateTime, LocalDateTime arrivalDateTime) {
+    public CompletableFuture<ResponseEntity<InterconnectionBatchResponse>> getInterconnectionsBatch(
+        InterconnectionBatchRequest interconnectionBatchRequest, String xRequestTimeout) {
+
+        Deadline deadline = deadlineOf(xRequestTimeout);
+        CancellationScope scope = new CancellationScope();
+        List<CompletableFuture<InterconnectionResult>> results = interconnectionService
+            .findInterconnectionsBatch(interconnectionBatchRequest.getQueries()).stream()
+            .map(query -> deadline.enforce(scope.trackOptional(query)).handle(InterconnectionController::toResult))
+            .toList();
+
+        // Every query fails on its own, so the batch only ends without its results if the request is abandoned
+        return PendingResultCancellingInterceptor.cancelOnAbandon(scope.bind(
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(v -> ResponseEntity.ok(new InterconnectionBatchResponse()
+                    .results(results.stream().map(CompletableFuture::join).toList())))));
+    }
+
+    private static InterconnectionResult toResult(List<Connection> connections, Throwable error) {
+        return error == null
+            ? new InterconnectionResult().connections(connections)
+            : new InterconnectionResult().error(GlobalExceptionHandler.errorOf(error));
+    }
+
+    private static ResponseEntity<List<Connection>> toPartialResponse(PartialConnections result) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .header(COMPLETENESS_HEADER, result.isComplete() ? "complete" : "partial");
+        if (!result.skippedIntermediates().isEmpty()) {
+            response.header(SKIPPED_INTERMEDIATES_HEADER, String.join(",", result.skippedIntermediates()));
+        }
+        if (!result.skippedMonths().isEmpty()) {
+            response.header(SKIPPED_MONTHS_HEADER, String.join(",", result.skippedMonths()));
+        }
+        return response.body(result.connections());
+    }
+
+    /**
+     * Deadline of the request from the header, capped by the longest one allowed, or the default one without it.
+     */
+    private Deadline deadlineOf(String requestTimeout) {
+        if (requestTimeout == null) {
+            return Deadline.after(defaultTimeout);
+        }
+        try {
+            Duration timeout = Duration.parse(requestTimeout);
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new InvalidRequestException(invalidTimeout(requestTimeout));
+            }
+            return Deadline.after(timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+        } catch (DateTimeParseException ex) {
+            throw new InvalidRequestException(invalidTimeout(requestTimeout));
+        }
+    }
+
+    private static String invalidTimeout(String requestTimeout) {
+        return "Invalid value '%s' for header '%s'. Expected a positive ISO-8601 duration, e.g. PT5S"
+            .formatted(requestTimeout, REQUEST_TIMEOUT_HEADER);
+    }
+
+    private static ResponseEntity<List<Connection>> toResponse(ConnectionPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.next().map(ConnectionCursor::encode).ifPresent(next -> response.header(NEXT_CURSOR_HEADER, next));
+        return response.body(page.connections());
+    }
+
+    /**
+     * Streams the interconnections as they are found, one connection per line as NDJSON or one per event as
+     * Server-Sent Events when the client accepts {@code text/event-stream}. The direct connections come first, then
+     * the ones through each intermediate airport as soon as its schedules are fetched. The stream ends early with an
+     * error if the deadline expires first.
+     */
+    @GetMapping(value = STREAM_PATH, produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> streamInterconnections(
+        @RequestParam String departure,
+        @RequestParam String arrival,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime departureDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime arrivalDateTime,
+        @RequestParam(required = false) Integer maxStops,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) String requestTimeout) {
+
+        Deadline deadline = deadlineOf(requestTimeout);
+        return stream(accept, departure, arrival, emitter -> deadline.enforce(
+            interconnectionService.streamInterconnections(departure, arrival, departureDateTime, arrivalDateTime,
+                maxStops == null ? InterconnectionService.DEFAULT_MAX_STOPS : maxStops,
+                connections -> connections.forEach(connection -> send(emitter, "connection", connection)))));
+    }
+
+    /**
+     * Streams the interconnections from an airport to every destination, one destination with all its connections
+     * per line as NDJSON or per event as Server-Sent Events, as soon as the legs reaching it are joined. The stream
+     * ends early with an error if the deadline expires first.
+     */
+    @GetMapping(value = ANYWHERE_PATH,
+        produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> streamInterconnectionsAnywhere(
+        @RequestParam String departure,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime departureDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime arrivalDateTime,
+        @RequestParam(required = false) Integer maxStops,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) String requestTimeout) {
+
+        Deadline deadline = deadlineOf(requestTimeout);
+        return stream(accept, departure, "anywhere", emitter -> deadline.enforce(
+            interconnectionService.streamInterconnectionsFrom(departure, departureDateTime, arrivalDateTime,
+                maxStops == null ? InterconnectionService.DEFAULT_MAX_STOPS : maxStops,
+                destination -> send(emitter, "destination", destination))));
+    }
+
+    /**
+     * Answers with an emitter for the content type accepted by the client, fed by the given search and completed with
+     * it. The search is cancelled when the emitter completes first.
+     */
+    private ResponseEntity<ResponseBodyEmitter> stream(String accept, String departure, String arrival,
+        Function<ResponseBodyEmitter, CompletableFuture<Void>> search) {
+
+        boolean serverSentEvents = accept != null && MediaType.parseMediaTypes(accept).stream()
+            .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+        ResponseBodyEmitter emitter = serverSentEvents ? new SseEmitter() : new ResponseBodyEmitter();
+
+        CompletableFuture<Void> streaming = search.apply(emitter);
+        // Also when the client disconnects or the servlet async timeout expires, a no-op once the stream is done
+        emitter.onCompletion(() -> streaming.cancel(true));
+        streaming.whenComplete((v, error) -> {
+            if (error == null) {
+                emitter.complete();
+            } else {
+                // Headers are already sent, so the client only sees the stream ending early
+                log.atError().setMessage("Streaming interconnections from {} to {} failed: {}")
+                    .addArgument(departure)
+                    .addArgument(arrival)
+                    .addArgument(error)
+                    .log();
+                emitter.completeWithError(error);
+            }
+        });
+
+        return ResponseEntity.ok()
+            .contentType(serverSentEvents ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+            .body(emitter);
+    }
 
-        return interconnectionService.findInterconnections(departure, arrival, departureDateTime, arrivalDateTime);
+    private static void send(ResponseBodyEmitter emitter, String eventName, Object data) {
+        try {
+            if (emitter instanceof SseEmitter sseEmitter) {
+                sseEmitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+            } else {
+                emitter.send(data, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 }
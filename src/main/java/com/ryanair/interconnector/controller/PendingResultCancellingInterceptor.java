@@ -0,0 +1,38 @@
+package com.ryanair.interconnector.controller;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cancels the pending result of an asynchronous request once it ends without it, as when the servlet async timeout
+ * expires or the client disconnects, so its lookups do not keep running for nobody. Results that already completed
+ * are left untouched.
+ */
+public class PendingResultCancellingInterceptor implements DeferredResultProcessingInterceptor {
+
+  private static final String PENDING_RESULT_ATTRIBUTE = PendingResultCancellingInterceptor.class.getName() + ".result";
+
+  /**
+   * Registers the result of the current request to be cancelled if the request ends before it completes.
+   * @return The same result
+   */
+  static <T> CompletableFuture<T> cancelOnAbandon(CompletableFuture<T> result) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      attributes.setAttribute(PENDING_RESULT_ATTRIBUTE, result, RequestAttributes.SCOPE_REQUEST);
+    }
+    return result;
+  }
+
+  @Override
+  public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+    if (request.getAttribute(PENDING_RESULT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+        instanceof CompletableFuture<?> pending) {
+      pending.cancel(true);
+    }
+  }
+}
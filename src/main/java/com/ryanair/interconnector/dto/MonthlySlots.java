@@ -0,0 +1,171 @@
+package com.ryanair.interconnector.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact and immutable flight slots of a route for a single month, sorted by departure.
+ * Departure and arrival times are stored as minutes since the epoch (in the local time of the airports, as returned
+ * by the Schedules API) in two aligned primitive arrays, so a cached month takes a few bytes per flight.
+ * Time windows are selected by binary search over the arrays, and only the slots they select are built as
+ * {@link FlightSlot}, so a request pays for the flights of its window instead of the whole month.
+ */
+public final class MonthlySlots {
+
+  public static final MonthlySlots EMPTY = new MonthlySlots(new int[0], new int[0], 0);
+
+  private final int[] departures;
+  private final int[] arrivals;
+  // Longest flight of the month, any slot departing this long before a bound arrives at or before it
+  private final int maxDurationMinutes;
+
+  private MonthlySlots(int[] departures, int[] arrivals, int maxDurationMinutes) {
+    this.departures = departures;
+    this.arrivals = arrivals;
+    this.maxDurationMinutes = maxDurationMinutes;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return departures.length;
+  }
+
+  public boolean isEmpty() {
+    return departures.length == 0;
+  }
+
+  public int departureMinuteAt(int index) {
+    return departures[index];
+  }
+
+  public int arrivalMinuteAt(int index) {
+    return arrivals[index];
+  }
+
+  public FlightSlot slotAt(int index) {
+    return new FlightSlot(fromEpochMinute(departures[index]), fromEpochMinute(arrivals[index]));
+  }
+
+  /**
+   * Selects the slots departing at or after the start and arriving at or before the end (both included).
+   * The departure range is found by binary search and only the slots departing less than the longest flight duration
+   * before the end have their arrival checked one by one, so narrow windows cost logarithmic time.
+   * The slots arriving too late are counted out first so the list is backed by an array of its exact size.
+   * @return An immutable list of the slots, built once so the joins reading them over and over never rebuild them,
+   *     sorted by departure
+   */
+  public List<FlightSlot> window(int startMinute, int endMinute) {
+    int from = firstDepartingAtOrAfter(startMinute);
+    int to = Math.max(from, firstDepartingAfter(endMinute));
+    int safeTo = Math.min(to, Math.max(from, firstDepartingAfter(endMinute - maxDurationMinutes)));
+
+    int size = safeTo - from;
+    for (int i = safeTo; i < to; i++) {
+      if (arrivals[i] <= endMinute) {
+        size++;
+      }
+    }
+    FlightSlot[] selected = new FlightSlot[size];
+    int next = 0;
+    for (int i = from; i < to; i++) {
+      if (i < safeTo || arrivals[i] <= endMinute) {
+        selected[next++] = slotAt(i);
+      }
+    }
+    return Collections.unmodifiableList(Arrays.asList(selected));
+  }
+
+  /**
+   * @return Index of the first slot departing at or after the given minute, or {@link #size()} if there is none
+   */
+  public int firstDepartingAtOrAfter(int minute) {
+    int low = 0;
+    int high = departures.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (departures[mid] < minute) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return Index of the first slot departing strictly after the given minute, or {@link #size()} if there is none
+   */
+  public int firstDepartingAfter(int minute) {
+    return minute == Integer.MAX_VALUE ? departures.length : firstDepartingAtOrAfter(minute + 1);
+  }
+
+  /**
+   * @return Minute the given time falls in, to be used as upper bound: a window ending at 10:00:30 admits the slots
+   *     arriving at 10:00
+   */
+  public static int toEpochMinute(LocalDateTime dateTime) {
+    return Math.toIntExact(Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60));
+  }
+
+  /**
+   * @return First whole minute at or after the given time, to be used as lower bound: a window starting at 10:00:30
+   *     must not admit the slots departing at 10:00
+   */
+  public static int toEpochMinuteCeil(LocalDateTime dateTime) {
+    int floor = toEpochMinute(dateTime);
+    return dateTime.getSecond() == 0 && dateTime.getNano() == 0 ? floor : Math.addExact(floor, 1);
+  }
+
+  public static LocalDateTime fromEpochMinute(int epochMinute) {
+    return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Accumulates slots in any order and sorts them by departure (then arrival) when building.
+   */
+  public static final class Builder {
+
+    private long[] packed = new long[16];
+    private int size;
+
+    private Builder() {
+    }
+
+    public Builder add(LocalDateTime departure, LocalDateTime arrival) {
+      return add(toEpochMinute(departure), toEpochMinute(arrival));
+    }
+
+    public Builder add(int departureMinute, int arrivalMinute) {
+      if (size == packed.length) {
+        packed = Arrays.copyOf(packed, size * 2);
+      }
+      // Departure in the high bits, so sorting the packed values sorts by departure first
+      packed[size++] = ((long) departureMinute << 32) | (arrivalMinute & 0xFFFFFFFFL);
+      return this;
+    }
+
+    public MonthlySlots build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      long[] sorted = Arrays.copyOf(packed, size);
+      Arrays.sort(sorted);
+
+      int[] departures = new int[size];
+      int[] arrivals = new int[size];
+      int maxDuration = 0;
+      for (int i = 0; i < size; i++) {
+        departures[i] = (int) (sorted[i] >> 32);
+        arrivals[i] = (int) sorted[i];
+        maxDuration = Math.max(maxDuration, arrivals[i] - departures[i]);
+      }
+      return new MonthlySlots(departures, arrivals, maxDuration);
+    }
+  }
+}
@@ -13,6 +13,7 @@ import org.springframework.http.HttpStatus;
 public enum ErrorType {
     INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, 5001, "An internal error occurred"),
     EXTERNAL_API_ERROR(HttpStatus.BAD_GATEWAY, 5002, "An error occurred while calling an external API"),
+    DEADLINE_EXCEEDED(HttpStatus.GATEWAY_TIMEOUT, 5003, "The request did not complete before its deadline"),
     INVALID_REQUEST(HttpStatus.BAD_REQUEST, 4000, "The request is invalid"),
     NOT_FOUND(HttpStatus.NOT_FOUND, 4001, "Resource not found");
 
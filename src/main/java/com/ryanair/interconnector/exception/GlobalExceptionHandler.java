@@ -2,22 +2,58 @@ package com.ryanair.interconnector.exception;
 
 import com.ryanair.interconnectingflights.model.Error;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A global exception handler that simplifies controller code, provides consistent error responses, logs issues safely,
  * and improves maintainability and API caller communication.
+ * Errors are always written as JSON, also for the streaming endpoint whose clients accept NDJSON or events instead.
+ * The queries of a batch fail on their own, with the same errors as the handlers would answer for them.
  */
 
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+  private static final String DEADLINE_EXCEEDED_DETAILS =
+      "The interconnections were not found in time, try again or with a longer deadline";
+
+  /**
+   * Error of a part of a response that failed on its own, like a query of a batch, following the same rules as the
+   * handlers: server errors are logged and internal ones are not detailed.
+   */
+  public static Error errorOf(Throwable failure) {
+    Throwable ex = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    if (ex instanceof InvalidRequestException invalid) {
+      return error(invalid.getErrorType(), invalid.getMessage());
+    }
+    if (ex instanceof TimeoutException) {
+      return error(ErrorType.DEADLINE_EXCEEDED, DEADLINE_EXCEEDED_DETAILS);
+    }
+    log.atError()
+        .setMessage("Query failed with exception: {}")
+        .addArgument(ex)
+        .log();
+    if (ex instanceof ExternalApiException external) {
+      return error(external.getErrorType(), external.getMessage());
+    }
+    return error(ErrorType.INTERNAL_ERROR, "Unexpected internal server error");
+  }
+
+  private static Error error(ErrorType errorType, String details) {
+    return new Error().code(errorType.getCode()).message(errorType.getMessage()).details(details);
+  }
+
   // 5xx handlers
   @ExceptionHandler(ExternalApiException.class)
   public ResponseEntity<Error> handleApiException(ExternalApiException ex) {
@@ -30,11 +66,27 @@ public class GlobalExceptionHandler {
 
     return ResponseEntity
         .status(ex.getErrorType().getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
         .body(new Error().code(ex.getErrorType().getCode())
             .message(ex.getErrorType().getMessage())
             .details(ex.getMessage()));
   }
 
+  // Raised when the deadline of the request expires, once the pending lookups have been cancelled
+  @ExceptionHandler(TimeoutException.class)
+  public ResponseEntity<Error> handleDeadlineExceeded(TimeoutException ex) {
+    log.atWarn()
+        .setMessage("Request cancelled after exceeding its deadline")
+        .log();
+
+    return ResponseEntity
+        .status(ErrorType.DEADLINE_EXCEEDED.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new Error().code(ErrorType.DEADLINE_EXCEEDED.getCode())
+            .message(ErrorType.DEADLINE_EXCEEDED.getMessage())
+            .details(DEADLINE_EXCEEDED_DETAILS));
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<Error> handleUnhandledRuntimeException(RuntimeException ex) {
     log.atError()
@@ -50,11 +102,22 @@ public class GlobalExceptionHandler {
 
     return ResponseEntity
         .status(ErrorType.INTERNAL_ERROR.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
         .body(apiError);
   }
 
   // 4xx handlers. No need to log these as they are client errors but not the API server fault.
 
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<Error> handleInvalidRequest(InvalidRequestException ex) {
+    return ResponseEntity
+        .status(ex.getErrorType().getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new Error().code(ex.getErrorType().getCode())
+            .message(ex.getErrorType().getMessage())
+            .details(ex.getMessage()));
+  }
+
   @ExceptionHandler(MissingServletRequestParameterException.class)
   public ResponseEntity<Error> handleMissingParams(MissingServletRequestParameterException ex) {
 
@@ -67,9 +130,31 @@ public class GlobalExceptionHandler {
 
     return ResponseEntity
         .status(ErrorType.INVALID_REQUEST.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
         .body(apiError);
   }
 
+  @ExceptionHandler(MethodArgumentNotValidException.class)
+  public ResponseEntity<Error> handleInvalidBody(MethodArgumentNotValidException ex) {
+    String detail = ex.getBindingResult().getFieldErrors().stream()
+        .map(error -> "'" + error.getField() + "' " + error.getDefaultMessage())
+        .findFirst()
+        .orElse("Invalid request body");
+
+    return ResponseEntity
+        .status(ErrorType.INVALID_REQUEST.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(error(ErrorType.INVALID_REQUEST, detail));
+  }
+
+  @ExceptionHandler(HttpMessageNotReadableException.class)
+  public ResponseEntity<Error> handleUnreadableBody(HttpMessageNotReadableException ex) {
+    return ResponseEntity
+        .status(ErrorType.INVALID_REQUEST.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(error(ErrorType.INVALID_REQUEST, "Malformed request body, e.g. dates not in ISO 8601 format"));
+  }
+
   @ExceptionHandler(MethodArgumentTypeMismatchException.class)
   public ResponseEntity<Error> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
     String expectedType = Optional.ofNullable(ex.getRequiredType())
@@ -87,6 +172,7 @@ public class GlobalExceptionHandler {
 
     return ResponseEntity
         .status(ErrorType.INVALID_REQUEST.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
         .body(new Error()
             .code(ErrorType.INVALID_REQUEST.getCode())
             .message(ErrorType.INVALID_REQUEST.getMessage())
@@ -0,0 +1,13 @@
+package com.ryanair.interconnector.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidRequestException extends RuntimeException {
+
+    private final ErrorType errorType = ErrorType.INVALID_REQUEST;
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
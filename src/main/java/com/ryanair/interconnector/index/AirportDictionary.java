@@ -0,0 +1,73 @@
+package com.ryanair.interconnector.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable dictionary mapping IATA airport codes to dense integer identifiers (0..size-1) and back.
+ * Codes are normalized to upper case and identifiers are assigned in alphabetical order, so the same set of
+ * airports always produces the same identifiers.
+ */
+public final class AirportDictionary {
+
+  public static final int UNKNOWN = -1;
+
+  private final String[] codes;
+  private final Map<String, Integer> ids;
+
+  private AirportDictionary(String[] codes) {
+    this.codes = codes;
+    this.ids = new HashMap<>(codes.length * 2);
+    for (int id = 0; id < codes.length; id++) {
+      ids.put(codes[id], id);
+    }
+  }
+
+  public static AirportDictionary of(Collection<String> airports) {
+    TreeSet<String> sorted = new TreeSet<>();
+    for (String airport : airports) {
+      if (airport != null) {
+        sorted.add(normalize(airport));
+      }
+    }
+    return new AirportDictionary(sorted.toArray(new String[0]));
+  }
+
+  /**
+   * @return The identifier of the airport or {@link #UNKNOWN} if it is not part of the dictionary
+   */
+  public int idOf(String airport) {
+    if (airport == null) {
+      return UNKNOWN;
+    }
+    Integer id = ids.get(normalize(airport));
+    return id == null ? UNKNOWN : id;
+  }
+
+  public String codeOf(int id) {
+    return codes[id];
+  }
+
+  public int size() {
+    return codes.length;
+  }
+
+  /**
+   * @return Whether both dictionaries hold the same airports, and therefore assign them the same identifiers
+   */
+  public boolean hasSameAirportsAs(AirportDictionary other) {
+    return Arrays.equals(codes, other.codes);
+  }
+
+  /**
+   * @return The airport code as stored in the dictionaries, upper-cased and without surrounding blanks
+   */
+  public static String normalize(String airport) {
+    // Both calls return the same instance when there is nothing to change, so well-formed codes do not allocate
+    return airport.trim().toUpperCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,136 @@
+package com.ryanair.interconnector.index;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable adjacency index built once per snapshot of routes.
+ * It keeps only the routes accepted by the given filter. Airports are mapped to dense identifiers through an
+ * {@link AirportDictionary} and the outbound and inbound neighbours of every airport are stored as bitsets, so direct
+ * route checks are a single bit test and intermediate airports are a word-wise AND of two bitsets.
+ */
+public final class RoutesIndex {
+
+  public static final RoutesIndex EMPTY = new RoutesIndex(AirportDictionary.of(List.of()), new long[0][], new long[0][]);
+
+  private final AirportDictionary airports;
+  private final long[][] outbound;
+  private final long[][] inbound;
+
+  private RoutesIndex(AirportDictionary airports, long[][] outbound, long[][] inbound) {
+    this.airports = airports;
+    this.outbound = outbound;
+    this.inbound = inbound;
+  }
+
+  /**
+   * Builds the index from the given routes, ignoring the ones without both airports or not accepted by the filter.
+   * @param routes Routes as returned by the Routes API
+   * @param routeFilter Predicate deciding whether a route can be used (e.g. the route validators chain)
+   * @return An immutable index of the valid routes
+   */
+  public static RoutesIndex of(Collection<Route> routes, Predicate<Route> routeFilter) {
+    List<Route> validRoutes = new ArrayList<>();
+    List<String> codes = new ArrayList<>();
+    for (Route route : routes) {
+      if (route.getAirportFrom() == null || route.getAirportTo() == null || !routeFilter.test(route)) {
+        continue;
+      }
+      validRoutes.add(route);
+      codes.add(route.getAirportFrom());
+      codes.add(route.getAirportTo());
+    }
+
+    AirportDictionary airports = AirportDictionary.of(codes);
+    int words = wordsFor(airports.size());
+    long[][] outbound = new long[airports.size()][words];
+    long[][] inbound = new long[airports.size()][words];
+
+    for (Route route : validRoutes) {
+      int from = airports.idOf(route.getAirportFrom());
+      int to = airports.idOf(route.getAirportTo());
+      set(outbound[from], to);
+      set(inbound[to], from);
+    }
+
+    return new RoutesIndex(airports, outbound, inbound);
+  }
+
+  public boolean hasDirectRoute(String from, String to) {
+    int fromId = airports.idOf(from);
+    int toId = airports.idOf(to);
+    return fromId != AirportDictionary.UNKNOWN && toId != AirportDictionary.UNKNOWN && isSet(outbound[fromId], toId);
+  }
+
+  /**
+   * Airports reachable from the origin and from which there is a route to the destination.
+   * @return A new mutable set with the IATA codes of the intermediate airports
+   */
+  public Set<String> intermediateAirports(String from, String to) {
+    Set<String> intermediates = new HashSet<>();
+    int fromId = airports.idOf(from);
+    int toId = airports.idOf(to);
+    if (fromId == AirportDictionary.UNKNOWN || toId == AirportDictionary.UNKNOWN) {
+      return intermediates;
+    }
+
+    long[] fromOrigin = outbound[fromId];
+    long[] toDestination = inbound[toId];
+    for (int word = 0; word < fromOrigin.length; word++) {
+      long common = fromOrigin[word] & toDestination[word];
+      while (common != 0) {
+        intermediates.add(airports.codeOf((word << 6) + Long.numberOfTrailingZeros(common)));
+        common &= common - 1;
+      }
+    }
+    return intermediates;
+  }
+
+  public Set<String> destinationsFrom(String from) {
+    int fromId = airports.idOf(from);
+    return fromId == AirportDictionary.UNKNOWN ? Set.of() : decode(outbound[fromId]);
+  }
+
+  public Set<String> originsTo(String to) {
+    int toId = airports.idOf(to);
+    return toId == AirportDictionary.UNKNOWN ? Set.of() : decode(inbound[toId]);
+  }
+
+  /**
+   * @return Whether both indexes hold the same valid routes, however they were listed by the Routes API
+   */
+  public boolean hasSameRoutesAs(RoutesIndex other) {
+    // Identifiers only depend on the airports, and the inbound bitsets are derived from the outbound ones
+    return airports.hasSameAirportsAs(other.airports) && Arrays.deepEquals(outbound, other.outbound);
+  }
+
+  private Set<String> decode(long[] bits) {
+    Set<String> decoded = new HashSet<>();
+    for (int word = 0; word < bits.length; word++) {
+      long remaining = bits[word];
+      while (remaining != 0) {
+        decoded.add(airports.codeOf((word << 6) + Long.numberOfTrailingZeros(remaining)));
+        remaining &= remaining - 1;
+      }
+    }
+    return Set.copyOf(decoded);
+  }
+
+  private static int wordsFor(int bits) {
+    return (bits + Long.SIZE - 1) >>> 6;
+  }
+
+  private static void set(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private static boolean isSet(long[] bits, int index) {
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+}
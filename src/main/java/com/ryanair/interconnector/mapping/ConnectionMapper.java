@@ -4,6 +4,7 @@ import com.ryanair.interconnectingflights.model.Connection;
 import com.ryanair.interconnectingflights.model.Leg;
 import com.ryanair.interconnector.dto.FlightSlot;
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,29 @@ public class ConnectionMapper {
         );
     }
 
+    /**
+     * Maps an itinerary with any number of legs, where the legs go between consecutive airports of the given ones.
+     */
+    public Optional<Connection> toConnection(List<String> airports, List<FlightSlot> slots) {
+        if (slots.isEmpty() || airports.size() != slots.size() + 1) {
+            return Optional.empty();
+        }
+
+        List<Leg> legs = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            Optional<Leg> leg = toLeg(airports.get(i), airports.get(i + 1), slots.get(i));
+            if (leg.isEmpty()) {
+                return Optional.empty();
+            }
+            legs.add(leg.get());
+        }
+
+        return Optional.of(new Connection()
+            .stops(slots.size() - 1)
+            .legs(legs)
+        );
+    }
+
     private Optional<Leg> toLeg(String dep, String arr, FlightSlot slot) {
         if (dep == null || arr == null || slot == null || slot.departureDateTime() == null || slot.arrivalDateTime() == null) {
             return Optional.empty();
@@ -1,43 +1,39 @@
 package com.ryanair.interconnector.mapping;
 
+import com.ryanair.interconnectingflights.external.model.DaySchedule;
 import com.ryanair.interconnectingflights.external.model.Flight;
 import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
-import com.ryanair.interconnector.dto.FlightSlot;
-import jakarta.validation.constraints.NotNull;
+import com.ryanair.interconnector.dto.MonthlySlots;
 import org.springframework.stereotype.Component;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
 
 @Component
 public class ScheduleMapper {
 
-    public List<FlightSlot> toFlightSlots(int year, ScheduleResponse response) {
+    /**
+     * Maps a monthly schedule into its compact representation, skipping the days and flights without times.
+     */
+    public MonthlySlots toMonthlySlots(int year, ScheduleResponse response) {
         if (response == null || response.getMonth() == null || response.getDays() == null) {
-            return List.of();
+            return MonthlySlots.EMPTY;
         }
 
         int month = response.getMonth();
+        MonthlySlots.Builder builder = MonthlySlots.builder();
 
-        return response.getDays().stream()
-            .filter(day -> day.getFlights() != null && day.getDay() != null)
-            .flatMap(day -> day.getFlights().stream()
-                .map(flight -> toSlot(year, month, day.getDay(), flight))
-                .flatMap(Optional::stream)
-            )
-            .toList();
-    }
-
-    private Optional<FlightSlot> toSlot(int year, int month, int day, @NotNull Flight flight) {
-        if (flight.getDepartureTime() == null || flight.getArrivalTime() == null) {
-            return Optional.empty();
+        for (DaySchedule day : response.getDays()) {
+            if (day.getFlights() == null || day.getDay() == null) {
+                continue;
+            }
+            LocalDate date = LocalDate.of(year, month, day.getDay());
+            for (Flight flight : day.getFlights()) {
+                if (flight.getDepartureTime() != null && flight.getArrivalTime() != null) {
+                    builder.add(LocalDateTime.of(date, flight.getDepartureTime()),
+                        LocalDateTime.of(date, flight.getArrivalTime()));
+                }
+            }
         }
-
-        LocalDate date = LocalDate.of(year, month, day);
-        return Optional.of(new FlightSlot(
-            LocalDateTime.of(date, flight.getDepartureTime()),
-            LocalDateTime.of(date, flight.getArrivalTime())
-        ));
+        return builder.build();
     }
 }
@@ -0,0 +1,168 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.SerializedSink;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * One-to-many search: every destination reachable from a departure airport, directly or with one stop.
+ * The first legs are the outbound routes of the origin in the routes index, and the schedule of each one is fetched
+ * once, serving both the direct connections to that airport and every connection through it. The second legs of an
+ * intermediate airport are only fetched when its first legs have flights, from the earliest time a connection can
+ * depart from it. Each destination is handed over with all its connections as soon as the legs reaching it are joined,
+ * instead of searching it as a separate request that would scan the routes and fetch the first legs again.
+ */
+@Component
+@Slf4j
+public class AnywhereSearch {
+
+  // Every intermediate airport fans out to all its destinations, so more stops would fetch most of the network
+  private static final int ANYWHERE_MAX_STOPS = 1;
+
+  private final RoutesSnapshotProvider routesSnapshotProvider;
+  private final ScheduleQueryService scheduleQueryService;
+  private final ConnectionMapper connectionMapper;
+  private final ConnectionJoiner connectionJoiner;
+  private final int maxStopsLimit;
+
+  @Autowired
+  public AnywhereSearch(
+      RoutesSnapshotProvider routesSnapshotProvider,
+      ScheduleQueryService scheduleQueryService,
+      ConnectionMapper connectionMapper,
+      ConnectionJoiner connectionJoiner,
+      SearchProperties searchProperties
+  ) {
+    this.routesSnapshotProvider = routesSnapshotProvider;
+    this.scheduleQueryService = scheduleQueryService;
+    this.connectionMapper = connectionMapper;
+    this.connectionJoiner = connectionJoiner;
+    this.maxStopsLimit = Math.min(ANYWHERE_MAX_STOPS, searchProperties.getMaxStops());
+  }
+
+  /**
+   * Finds the connections from an airport to every destination within a time range (extremes included).
+   * @param maxStops Maximum number of stops of the connections, 0 for direct flights only or 1
+   * @param sink Receives the connections of each destination with any, never concurrently
+   * @return CompletableFuture completed once every destination has been handed over to the sink. Cancelling it
+   *     cancels the schedule lookups still pending
+   * @throws InvalidRequestException if the number of stops is not supported
+   */
+  public CompletableFuture<Void> findDestinations(
+      String departure,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int maxStops,
+      Consumer<DestinationConnections> sink) {
+
+    if (maxStops < 0 || maxStops > maxStopsLimit) {
+      throw new InvalidRequestException(
+          "Invalid value '%d' for parameter 'maxStops'. Expected a value between 0 and %d"
+              .formatted(maxStops, maxStopsLimit));
+    }
+    String origin = AirportDictionary.normalize(departure);
+    CancellationScope scope = new CancellationScope();
+    Consumer<DestinationConnections> emitter =
+        SerializedSink.of(sink, destination -> destination.connections().isEmpty());
+
+    return scope.bind(routesSnapshotProvider.currentIndex().thenCompose(index -> {
+      Map<String, CompletableFuture<List<FlightSlot>>> firstLegs = new HashMap<>();
+      for (String intermediate : index.destinationsFrom(origin)) {
+        firstLegs.put(intermediate, scope.track(scheduleQueryService.findFlightSlots(origin, intermediate,
+            minimumDepartureTime, maximumArrivalTime)));
+      }
+
+      // Second legs reaching every destination, by their intermediate airport
+      Map<String, Map<String, CompletableFuture<List<FlightSlot>>>> secondLegs = new TreeMap<>();
+      firstLegs.keySet().forEach(destination -> secondLegs.put(destination, new TreeMap<>()));
+      LocalDateTime shortestArrival = minimumDepartureTime.plus(connectionJoiner.shortestConnection());
+      if (maxStops >= 1 && !shortestArrival.isAfter(maximumArrivalTime)) {
+        firstLegs.forEach((intermediate, firstLeg) -> {
+          for (String destination : index.destinationsFrom(intermediate)) {
+            if (!destination.equals(origin)) {
+              secondLegs.computeIfAbsent(destination, key -> new TreeMap<>()).put(intermediate,
+                  firstLeg.thenCompose(firstSlots -> fetchSecondLeg(scope, intermediate, destination, firstSlots,
+                      minimumDepartureTime, maximumArrivalTime)));
+            }
+          }
+        });
+      }
+
+      log.atInfo().setMessage("Searching {} destinations from {} through {} first legs")
+          .addArgument(secondLegs.size())
+          .addArgument(departure)
+          .addArgument(firstLegs.size())
+          .log();
+
+      List<CompletableFuture<Void>> emitted = new ArrayList<>(secondLegs.size());
+      secondLegs.forEach((destination, legsTo) -> {
+        CompletableFuture<List<FlightSlot>> direct = firstLegs.getOrDefault(destination,
+            CompletableFuture.completedFuture(List.of()));
+        List<CompletableFuture<List<FlightSlot>>> legs = new ArrayList<>(legsTo.values());
+        legs.add(direct);
+        emitted.add(CompletableFuture.allOf(legs.toArray(new CompletableFuture[0]))
+            .thenRun(() -> emitter.accept(joinAt(departure, destination, direct.join(), firstLegs, legsTo))));
+      });
+      return CompletableFuture.allOf(emitted.toArray(new CompletableFuture[0]));
+    }));
+  }
+
+  /**
+   * Fetches the second leg only if the first one has flights, starting from the earliest arrival of them plus the
+   * minimum layover, as no connection can depart from the intermediate airport before.
+   */
+  private CompletableFuture<List<FlightSlot>> fetchSecondLeg(
+      CancellationScope scope,
+      String intermediate,
+      String destination,
+      List<FlightSlot> firstSlots,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime) {
+
+    LocalDateTime secondLegStart = minimumDepartureTime
+        .plus(connectionJoiner.minFlightDuration())
+        .plus(connectionJoiner.minLayover());
+    return connectionJoiner.earliestSecondDeparture(firstSlots, secondLegStart, maximumArrivalTime)
+        .map(earliestSecondDeparture -> scope.track(scheduleQueryService.findFlightSlots(intermediate, destination,
+            earliestSecondDeparture, maximumArrivalTime)))
+        .orElseGet(() -> CompletableFuture.completedFuture(List.of()));
+  }
+
+  /**
+   * Builds the connections to a destination: the direct ones first, then the ones through each intermediate airport,
+   * joined by the {@link ConnectionJoiner}.
+   */
+  private DestinationConnections joinAt(
+      String departure,
+      String destination,
+      List<FlightSlot> directSlots,
+      Map<String, CompletableFuture<List<FlightSlot>>> firstLegs,
+      Map<String, CompletableFuture<List<FlightSlot>>> secondLegs) {
+
+    List<Connection> connections = new ArrayList<>();
+    directSlots.forEach(slot -> connectionMapper.toSingleLegConnection(departure, destination, slot)
+        .ifPresent(connections::add));
+
+    secondLegs.forEach((intermediate, secondLeg) -> connectionJoiner.join(departure, intermediate, destination,
+        firstLegs.get(intermediate).join(), secondLeg.join(), connections::add));
+    return new DestinationConnections(destination, connections);
+  }
+}
@@ -0,0 +1,76 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.InterconnectionQuery;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.service.InterconnectionService;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Searches the queries of a batch together: every query looks up its schedules through the same
+ * {@link ScheduleQueryService#batchView}, so the schedule months they share are fetched once for the whole batch, and
+ * the loads still pending are cancelled once every query is answered or abandoned.
+ */
+@Component
+public class BatchSearch {
+
+  private final ScheduleQueryService scheduleQueryService;
+  private final ConnectionSearch connectionSearch;
+  private final int maxBatchSize;
+
+  @Autowired
+  public BatchSearch(
+      ScheduleQueryService scheduleQueryService,
+      ConnectionSearch connectionSearch,
+      SearchProperties searchProperties
+  ) {
+    this.scheduleQueryService = scheduleQueryService;
+    this.connectionSearch = connectionSearch;
+    this.maxBatchSize = searchProperties.getMaxBatchSize();
+  }
+
+  /**
+   * @param queries Queries of the batch, each one with 1 stop at most unless it says otherwise
+   * @return One CompletableFuture per query in the same order, containing its interconnections ordered by number of
+   *     stops or failed with an InvalidRequestException if the query is not supported
+   * @throws InvalidRequestException if the batch holds too many queries
+   */
+  public List<CompletableFuture<List<Connection>>> findInterconnections(List<InterconnectionQuery> queries) {
+    if (queries.size() > maxBatchSize) {
+      throw new InvalidRequestException(
+          "Invalid batch of %d queries. Expected at most %d".formatted(queries.size(), maxBatchSize));
+    }
+
+    // Every query looks up its schedules through the same view, so the months they share are fetched once
+    CancellationScope batchScope = new CancellationScope();
+    ScheduleQueryService batchSchedules = scheduleQueryService.batchView(batchScope);
+    List<CompletableFuture<List<Connection>>> results = queries.stream()
+        .map(query -> findInterconnections(query, batchSchedules))
+        .toList();
+
+    // Once no query waits for them anymore, the months still loading for the batch are not needed by anyone
+    CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).whenComplete((v, error) -> batchScope.cancel());
+    return results;
+  }
+
+  private CompletableFuture<List<Connection>> findInterconnections(InterconnectionQuery query,
+      ScheduleQueryService schedules) {
+    int maxStops = query.getMaxStops() == null ? InterconnectionService.DEFAULT_MAX_STOPS : query.getMaxStops();
+    try {
+      connectionSearch.validateMaxStops(maxStops);
+    } catch (InvalidRequestException ex) {
+      // Only fails its own query, the rest of the batch is still answered
+      return CompletableFuture.failedFuture(ex);
+    }
+    return connectionSearch.collect(new CancellationScope(), schedules,
+        AirportDictionary.normalize(query.getDeparture()), AirportDictionary.normalize(query.getArrival()),
+        query.getDepartureDateTime(), query.getArrivalDateTime(), maxStops);
+  }
+}
@@ -0,0 +1,80 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.Deadline;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import lombok.extern.slf4j.Slf4j;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Schedule lookups of a single best-effort search. A lookup that fails or is still pending at the deadline counts as a
+ * route without flights instead of failing the search, and its months are recorded as skipped, so the search answers
+ * by the deadline with the connections of the schedules that did resolve.
+ */
+@Slf4j
+public final class BestEffortSchedules implements ScheduleQueryService {
+
+  private final ScheduleQueryService delegate;
+  private final Deadline deadline;
+  private final CancellationScope scope;
+  private final Set<SkippedRoute> skipped = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param scope Scope of the search, to cancel the lookups when it ends
+   */
+  public BestEffortSchedules(ScheduleQueryService delegate, Deadline deadline, CancellationScope scope) {
+    this.delegate = delegate;
+    this.deadline = deadline;
+    this.scope = scope;
+  }
+
+  @Override
+  public CompletableFuture<List<FlightSlot>> findFlightSlots(String from, String to, LocalDateTime start,
+      LocalDateTime end) {
+    // Missing the deadline fails the lookup itself, which cancels the months it was still loading
+    return deadline.enforce(scope.trackOptional(delegate.findFlightSlots(from, to, start, end)))
+        .exceptionally(error -> {
+          log.atWarn().setMessage("Skipping schedules from {} to {} between {} and {}: {}")
+              .addArgument(from)
+              .addArgument(to)
+              .addArgument(start)
+              .addArgument(end)
+              .addArgument(error)
+              .log();
+          skipped.add(new SkippedRoute(from, to, YearMonth.from(start), YearMonth.from(end)));
+          return List.of();
+        });
+  }
+
+  /**
+   * @return The connections with the lookups skipped so far, the intermediates being every airport of a skipped route
+   *     other than the origin and destination
+   */
+  public PartialConnections toPartial(String departure, String arrival, List<Connection> connections) {
+    String origin = AirportDictionary.normalize(departure);
+    String destination = AirportDictionary.normalize(arrival);
+    Set<String> intermediates = new TreeSet<>();
+    Set<String> months = new TreeSet<>();
+    for (SkippedRoute route : skipped) {
+      Stream.of(route.from(), route.to())
+          .map(AirportDictionary::normalize)
+          .filter(airport -> !airport.equals(origin) && !airport.equals(destination))
+          .forEach(intermediates::add);
+      Stream.iterate(route.firstMonth(), month -> !month.isAfter(route.lastMonth()), month -> month.plusMonths(1))
+          .forEach(month -> months.add(route.from() + "-" + route.to() + "/" + month));
+    }
+    return new PartialConnections(connections, List.copyOf(intermediates), List.copyOf(months));
+  }
+
+  private record SkippedRoute(String from, String to, YearMonth firstMonth, YearMonth lastMonth) { }
+}
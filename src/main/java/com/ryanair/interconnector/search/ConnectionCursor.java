@@ -0,0 +1,48 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last connection of a page, to resume from in the next one. It holds the sort key and signature of
+ * that connection instead of an offset, so the next page only keeps the connections after it and does not depend on how
+ * many came before.
+ * @param order Order of the page the cursor comes from
+ * @param key Sort key of the last connection of the page
+ * @param signature Signature of the last connection of the page, to break ties
+ */
+public record ConnectionCursor(ConnectionOrder order, long key, String signature) {
+
+  private static final String SEPARATOR = "|";
+
+  public static ConnectionCursor after(ConnectionOrder order, Connection connection) {
+    return new ConnectionCursor(order, order.keyOf(connection), ConnectionOrder.signatureOf(connection));
+  }
+
+  /**
+   * @throws InvalidRequestException if the value is not a cursor returned by this service
+   */
+  public static ConnectionCursor decode(String value) {
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|", 3);
+      return new ConnectionCursor(ConnectionOrder.valueOf(parts[0]), Long.parseLong(parts[1]), parts[2]);
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+      throw new InvalidRequestException("Invalid value '%s' for parameter 'cursor'".formatted(value));
+    }
+  }
+
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        (order.name() + SEPARATOR + key + SEPARATOR + signature).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return Whether the connection comes after this position in its order
+   */
+  public boolean precedes(Connection connection) {
+    int byKey = Long.compare(key, order.keyOf(connection));
+    return byKey < 0 || byKey == 0 && signature.compareTo(ConnectionOrder.signatureOf(connection)) < 0;
+  }
+}
@@ -0,0 +1,121 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.validation.connection.ConnectionValidatorChain;
+import com.ryanair.interconnector.validation.connection.FlightConnectionValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Joins the two legs of the connections with one stop, for every search building them.
+ * The validators are compiled once into a {@link ConnectionValidatorChain}, whose minimum layover drives the pruning:
+ * both legs come sorted by departure, so for every first leg the second legs departing too early to connect are skipped
+ * by binary search and only the ones leaving after the minimum layover are validated.
+ */
+@Component
+public class ConnectionJoiner {
+
+  private final ConnectionMapper connectionMapper;
+  private final ConnectionValidatorChain connectionValidator;
+  private final Duration minLayover;
+  private final Duration minFlightDuration;
+
+  @Autowired
+  public ConnectionJoiner(ConnectionMapper connectionMapper, List<FlightConnectionValidator> flightConnectionValidators,
+      SearchProperties searchProperties) {
+    this.connectionMapper = connectionMapper;
+    this.connectionValidator = ConnectionValidatorChain.of(flightConnectionValidators);
+    this.minLayover = connectionValidator.minimumLayover();
+    this.minFlightDuration = searchProperties.getMinFlightDuration();
+  }
+
+  /**
+   * @return Shortest layover any validator accepts
+   */
+  public Duration minLayover() {
+    return minLayover;
+  }
+
+  /**
+   * @return Shortest flight expected in the network
+   */
+  public Duration minFlightDuration() {
+    return minFlightDuration;
+  }
+
+  /**
+   * @return Shortest time two flights and the layover between them take, so a window any shorter has no connections
+   */
+  public Duration shortestConnection() {
+    return minFlightDuration.multipliedBy(2).plus(minLayover);
+  }
+
+  /**
+   * Narrows the window of the second leg given the first legs found: no connection can depart from the intermediate
+   * airport before the earliest arrival of them plus the minimum layover.
+   * @param secondLegStart Start of the second leg window before knowing the first legs
+   * @return Earliest departure of a second leg that can connect, empty if no second leg can connect by the maximum
+   *     arrival, so it does not have to be fetched at all
+   */
+  public Optional<LocalDateTime> earliestSecondDeparture(List<FlightSlot> firstSlots, LocalDateTime secondLegStart,
+      LocalDateTime maximumArrivalTime) {
+    return firstSlots.stream()
+        .map(FlightSlot::arrivalDateTime)
+        .filter(Objects::nonNull)
+        .min(LocalDateTime::compareTo)
+        .map(firstArrival -> firstArrival.plus(minLayover))
+        .map(earliest -> earliest.isAfter(secondLegStart) ? earliest : secondLegStart)
+        .filter(earliest -> !earliest.plus(minFlightDuration).isAfter(maximumArrivalTime));
+  }
+
+  /**
+   * Joins the legs sorted by departure. Pairs whose second leg departs before the first one arrives plus the minimum
+   * layover are never visited, so the cost is driven by the number of feasible connections instead of the cross
+   * product of both legs. Every connection is handed over to the sink as soon as it is built.
+   */
+  public void join(
+      String departure,
+      String intermediate,
+      String arrival,
+      List<FlightSlot> firstSlots,
+      List<FlightSlot> secondSlots,
+      Consumer<Connection> sink) {
+
+    for (FlightSlot firstSlot : firstSlots) {
+      if (firstSlot.arrivalDateTime() == null) {
+        continue;
+      }
+      LocalDateTime earliestSecondDeparture = firstSlot.arrivalDateTime().plus(minLayover);
+      for (int i = firstDepartingAtOrAfter(secondSlots, earliestSecondDeparture); i < secondSlots.size(); i++) {
+        FlightSlot secondSlot = secondSlots.get(i);
+        if (connectionValidator.isValidConnection(firstSlot, secondSlot)) {
+          connectionMapper.toMultiLegConnection(departure, intermediate, arrival, firstSlot, secondSlot)
+              .ifPresent(sink);
+        }
+      }
+    }
+  }
+
+  private static int firstDepartingAtOrAfter(List<FlightSlot> slots, LocalDateTime dateTime) {
+    int low = 0;
+    int high = slots.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (slots.get(mid).departureDateTime().isBefore(dateTime)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,67 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.Leg;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Orders in which the connections can be sorted. Every order is total: connections with the same key are tied by their
+ * {@link #signatureOf(Connection) signature}, so a page always ends at a well defined position to resume from.
+ */
+public enum ConnectionOrder {
+
+  /** By departure of the first leg. */
+  DEPARTURE,
+  /** By arrival of the last leg. */
+  ARRIVAL,
+  /** By time from the departure of the first leg to the arrival of the last one. */
+  DURATION;
+
+  /**
+   * @param value Name of the order as given in the request, case insensitive
+   * @throws InvalidRequestException if there is no such order
+   */
+  public static ConnectionOrder fromParameter(String value) {
+    return Arrays.stream(values())
+        .filter(order -> order.name().equalsIgnoreCase(value))
+        .findFirst()
+        .orElseThrow(() -> new InvalidRequestException(
+            "Invalid value '%s' for parameter 'sort'. Expected one of: %s".formatted(value, Arrays.stream(values())
+                .map(order -> order.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(", ")))));
+  }
+
+  public Comparator<Connection> comparator() {
+    return Comparator.comparingLong(this::keyOf).thenComparing(ConnectionOrder::signatureOf);
+  }
+
+  /**
+   * @return The value the connection is sorted by, in minutes
+   */
+  public long keyOf(Connection connection) {
+    List<Leg> legs = connection.getLegs();
+    int departure = MonthlySlots.toEpochMinute(legs.get(0).getDepartureDateTime());
+    int arrival = MonthlySlots.toEpochMinute(legs.get(legs.size() - 1).getArrivalDateTime());
+    return switch (this) {
+      case DEPARTURE -> departure;
+      case ARRIVAL -> arrival;
+      case DURATION -> (long) arrival - departure;
+    };
+  }
+
+  /**
+   * @return The airports and times of every leg, unique for each connection
+   */
+  static String signatureOf(Connection connection) {
+    return connection.getLegs().stream()
+        .map(leg -> leg.getDepartureDateTime() + " " + leg.getDepartureAirport() + " "
+            + leg.getArrivalDateTime() + " " + leg.getArrivalAirport())
+        .collect(Collectors.joining(" "));
+  }
+}
@@ -0,0 +1,17 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Page of sorted connections.
+ * @param connections Connections of the page, in the requested order
+ * @param next Position to request the following page from, empty if this is the last one
+ */
+public record ConnectionPage(List<Connection> connections, Optional<ConnectionCursor> next) {
+
+  public ConnectionPage {
+    connections = List.copyOf(connections);
+  }
+}
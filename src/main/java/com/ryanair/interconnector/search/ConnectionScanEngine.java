@@ -0,0 +1,327 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import com.ryanair.interconnector.validation.connection.ConnectionValidatorChain;
+import com.ryanair.interconnector.validation.connection.FlightConnectionValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Search engine for itineraries with any number of stops, working on the cached schedules as a time-ordered
+ * {@link Timetable} scanned with the Connection Scan Algorithm.
+ * The schedules are fetched hop by hop from the origin: a route is only fetched once an airport it departs from has
+ * been reached in time, if it can still be part of an itinerary within the maximum stops, and only for the part of the
+ * window where it can fall, from the earliest arrival at its origin to the latest arrival at its destination that
+ * leaves time for the legs after it. That keeps the Schedules API calls bounded as stops increase, instead of fanning
+ * out over every combination of intermediate airports, and a cap on the lookups of a search bounds them for good.
+ */
+@Component
+@Slf4j
+public class ConnectionScanEngine {
+
+  private final RoutesSnapshotProvider routesSnapshotProvider;
+  private final ScheduleQueryService scheduleQueryService;
+  private final ConnectionMapper connectionMapper;
+  private final ConnectionValidatorChain connectionValidator;
+  private final Duration minLayover;
+  private final Duration minFlightDuration;
+  private final int maxRouteLookups;
+
+  @Autowired
+  public ConnectionScanEngine(
+      RoutesSnapshotProvider routesSnapshotProvider,
+      ScheduleQueryService scheduleQueryService,
+      ConnectionMapper connectionMapper,
+      List<FlightConnectionValidator> flightConnectionValidators,
+      SearchProperties searchProperties
+  ) {
+    this.routesSnapshotProvider = routesSnapshotProvider;
+    this.scheduleQueryService = scheduleQueryService;
+    this.connectionMapper = connectionMapper;
+    this.connectionValidator = ConnectionValidatorChain.of(flightConnectionValidators);
+    // Layovers shorter than any validator accepts are pruned by the scans instead of being checked one by one
+    this.minLayover = connectionValidator.minimumLayover();
+    this.minFlightDuration = searchProperties.getMinFlightDuration();
+    this.maxRouteLookups = searchProperties.getMaxRouteLookups();
+  }
+
+  /**
+   * Finds the itineraries between two airports within a time range (extremes included) with a number of stops between
+   * the given bounds (both included).
+   * @return CompletableFuture containing the connections found, ordered by the departure of their legs. Cancelling it
+   *     cancels the schedule lookups still pending
+   */
+  public CompletableFuture<List<Connection>> findConnections(
+      String departure,
+      String arrival,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int minStops,
+      int maxStops) {
+    return findConnections(departure, arrival, minimumDepartureTime, maximumArrivalTime, minStops, maxStops,
+        scheduleQueryService);
+  }
+
+  /**
+   * Same as {@link #findConnections(String, String, LocalDateTime, LocalDateTime, int, int)}, looking up the schedules
+   * of the routes with the given service instead, e.g. the {@link BestEffortSchedules} of a search.
+   */
+  public CompletableFuture<List<Connection>> findConnections(
+      String departure,
+      String arrival,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int minStops,
+      int maxStops,
+      ScheduleQueryService schedules) {
+    List<Connection> connections = new ArrayList<>();
+    return findConnections(departure, arrival, minimumDepartureTime, maximumArrivalTime, minStops, maxStops, schedules,
+        connections::add)
+        .thenApply(v -> connections);
+  }
+
+  /**
+   * Same as {@link #findConnections(String, String, LocalDateTime, LocalDateTime, int, int, ScheduleQueryService)},
+   * handing over every connection to the sink as soon as the scan finds it instead of collecting them, e.g. into the
+   * bounded heap of a page.
+   * @param sink Receives the connections found, ordered by the departure of their legs and never concurrently
+   * @return CompletableFuture completed once every connection has been handed over to the sink. Cancelling it cancels
+   *     the schedule lookups still pending
+   */
+  public CompletableFuture<Void> findConnections(
+      String departure,
+      String arrival,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int minStops,
+      int maxStops,
+      ScheduleQueryService schedules,
+      Consumer<Connection> sink) {
+
+    String origin = AirportDictionary.normalize(departure);
+    String destination = AirportDictionary.normalize(arrival);
+    if (origin.equals(destination)) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(routesSnapshotProvider.currentIndex().thenCompose(index -> {
+      RouteExpansion expansion = new RouteExpansion(index, schedules, scope, origin, destination, maximumArrivalTime,
+          maxStops + 1);
+      return expansion.expand(1, Map.of(origin, minimumDepartureTime)).thenAccept(v -> {
+        log.atInfo().setMessage("Scanning {} routes for connections from {} to {} with {} to {} stops")
+            .addArgument(expansion.fetched.size())
+            .addArgument(departure)
+            .addArgument(arrival)
+            .addArgument(minStops)
+            .addArgument(maxStops)
+            .log();
+        scan(origin, destination, minimumDepartureTime, maximumArrivalTime, minStops, maxStops,
+            List.copyOf(expansion.fetched.values()), sink);
+      });
+    }));
+  }
+
+  private void scan(
+      String origin,
+      String destination,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int minStops,
+      int maxStops,
+      List<FetchedRoute> routes,
+      Consumer<Connection> sink) {
+
+    // Dense ids for the airports of the search, every one of them with its normalized code
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> codes = new ArrayList<>();
+    Function<String, Integer> idOf = code -> ids.computeIfAbsent(code, key -> {
+      codes.add(key);
+      return codes.size() - 1;
+    });
+    int originId = idOf.apply(origin);
+    int destinationId = idOf.apply(destination);
+    routes.forEach(route -> {
+      idOf.apply(route.window().from());
+      idOf.apply(route.window().to());
+    });
+
+    Timetable.Builder builder = Timetable.builder(codes.size());
+    for (FetchedRoute route : routes) {
+      int from = ids.get(route.window().from());
+      int to = ids.get(route.window().to());
+      route.slots().forEach(slot -> builder.add(from, to, slot));
+    }
+    Timetable timetable = builder.build();
+
+    timetable.itineraries(originId, destinationId,
+        MonthlySlots.toEpochMinuteCeil(minimumDepartureTime), MonthlySlots.toEpochMinute(maximumArrivalTime),
+        Math.toIntExact(minLayover.toMinutes()), minStops + 1, maxStops + 1, connectionValidator::isValidConnection,
+        itinerary -> {
+          List<String> airports = new ArrayList<>(itinerary.length + 1);
+          List<FlightSlot> legs = new ArrayList<>(itinerary.length);
+          airports.add(codes.get(timetable.fromOf(itinerary[0])));
+          for (int connection : itinerary) {
+            airports.add(codes.get(timetable.toOf(connection)));
+            legs.add(timetable.slotOf(connection));
+          }
+          connectionMapper.toConnection(airports, legs).ifPresent(sink);
+        });
+  }
+
+  /**
+   * Fetches the schedules of the routes hop by hop from the origin, so a route is only looked up once an itinerary can
+   * board it: every round takes the airports reached by the previous one, at the earliest arrival known there, and
+   * fetches the routes out of them from that arrival plus the minimum layover. Routes whose destination cannot reach
+   * the final one within the legs left, or whose window is too short to fly, are never fetched. An airport reached
+   * earlier by a later round has its routes fetched again from the earlier time, as longer itineraries can be faster.
+   * The lookups of a search are capped, the airports reached earliest going first once the cap is hit.
+   */
+  private final class RouteExpansion {
+
+    private final RoutesIndex index;
+    private final ScheduleQueryService schedules;
+    private final CancellationScope scope;
+    private final String origin;
+    private final String destination;
+    private final LocalDateTime maximumArrivalTime;
+    private final int maxLegs;
+    private final Map<String, Integer> hopsToDestination;
+    private final Map<String, LocalDateTime> earliestArrivals = new HashMap<>();
+    private final Map<RouteKey, FetchedRoute> fetched = new LinkedHashMap<>();
+    private int lookupsLeft = maxRouteLookups;
+
+    private RouteExpansion(RoutesIndex index, ScheduleQueryService schedules, CancellationScope scope, String origin,
+        String destination, LocalDateTime maximumArrivalTime, int maxLegs) {
+      this.index = index;
+      this.schedules = schedules;
+      this.scope = scope;
+      this.origin = origin;
+      this.destination = destination;
+      this.maximumArrivalTime = maximumArrivalTime;
+      this.maxLegs = maxLegs;
+      this.hopsToDestination = hopDistances(destination, origin, maxLegs - 1, index::originsTo);
+    }
+
+    /**
+     * @param leg Number of the leg the routes fetched by this round would be in an itinerary
+     * @param readyTimes Airports reached by the previous round (the origin for the first leg), with the earliest time a
+     *     flight can depart from them
+     */
+    private CompletableFuture<Void> expand(int leg, Map<String, LocalDateTime> readyTimes) {
+      List<RouteWindow> routes = nextRoutes(leg, readyTimes);
+      List<CompletableFuture<List<FlightSlot>>> futures = routes.stream()
+          .map(route -> scope.track(schedules.findFlightSlots(route.from(), route.to(), route.start(), route.end())))
+          .toList();
+
+      return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenCompose(v -> {
+        Map<String, LocalDateTime> reached = new HashMap<>();
+        for (int i = 0; i < routes.size(); i++) {
+          RouteWindow route = routes.get(i);
+          List<FlightSlot> slots = futures.get(i).join();
+          fetched.put(new RouteKey(route.from(), route.to()), new FetchedRoute(route, slots));
+          earliestArrival(slots)
+              .filter(arrival -> !route.to().equals(destination))
+              .filter(arrival -> !earliestArrivals.containsKey(route.to())
+                  || arrival.isBefore(earliestArrivals.get(route.to())))
+              .ifPresent(arrival -> {
+                earliestArrivals.put(route.to(), arrival);
+                reached.put(route.to(), arrival.plus(minLayover));
+              });
+        }
+        return leg < maxLegs && !reached.isEmpty() ? expand(leg + 1, reached) : CompletableFuture.completedFuture(null);
+      });
+    }
+
+    // Routes out of the airports reached that can still land at the destination in time, earliest ones first
+    private List<RouteWindow> nextRoutes(int leg, Map<String, LocalDateTime> readyTimes) {
+      List<RouteWindow> routes = new ArrayList<>();
+      for (Map.Entry<String, LocalDateTime> ready : readyTimes.entrySet()) {
+        String from = ready.getKey();
+        LocalDateTime start = ready.getValue();
+        for (String to : index.destinationsFrom(from)) {
+          Integer hopsAfter = hopsToDestination.get(to);
+          if (to.equals(origin) || hopsAfter == null || leg + hopsAfter > maxLegs) {
+            continue;
+          }
+          LocalDateTime end = maximumArrivalTime.minus(minFlightDuration.plus(minLayover).multipliedBy(hopsAfter));
+          FetchedRoute previous = fetched.get(new RouteKey(from, to));
+          if (!start.plus(minFlightDuration).isAfter(end)
+              && (previous == null || start.isBefore(previous.window().start()))) {
+            routes.add(new RouteWindow(from, to, start, end));
+          }
+        }
+      }
+      routes.sort(Comparator.comparing(RouteWindow::start));
+
+      if (routes.size() > lookupsLeft) {
+        log.atWarn().setMessage("Skipping {} routes out of {} beyond the {} route lookups of a search")
+            .addArgument(routes.size() - lookupsLeft)
+            .addArgument(readyTimes.keySet())
+            .addArgument(maxRouteLookups)
+            .log();
+        routes = List.copyOf(routes.subList(0, lookupsLeft));
+      }
+      lookupsLeft -= routes.size();
+      return routes;
+    }
+  }
+
+  // Earliest arrival of the flights the scans would take, the ones landing after departing
+  private static Optional<LocalDateTime> earliestArrival(List<FlightSlot> slots) {
+    return slots.stream()
+        .filter(slot -> slot.departureDateTime() != null && slot.arrivalDateTime() != null
+            && slot.arrivalDateTime().isAfter(slot.departureDateTime()))
+        .map(FlightSlot::arrivalDateTime)
+        .min(LocalDateTime::compareTo);
+  }
+
+  // Breadth-first hop distances from the start airport, never expanding through the excluded one
+  private static Map<String, Integer> hopDistances(String start, String excluded, int maxHops,
+      Function<String, Set<String>> neighbours) {
+    Map<String, Integer> distances = new HashMap<>();
+    distances.put(start, 0);
+    List<String> frontier = List.of(start);
+    for (int hops = 1; hops <= maxHops && !frontier.isEmpty(); hops++) {
+      List<String> next = new ArrayList<>();
+      for (String airport : frontier) {
+        for (String neighbour : neighbours.apply(airport)) {
+          if (distances.putIfAbsent(neighbour, hops) == null && !neighbour.equals(excluded)) {
+            next.add(neighbour);
+          }
+        }
+      }
+      frontier = next;
+    }
+    return distances;
+  }
+
+  private record RouteKey(String from, String to) { }
+
+  private record RouteWindow(String from, String to, LocalDateTime start, LocalDateTime end) { }
+
+  private record FetchedRoute(RouteWindow window, List<FlightSlot> slots) { }
+}
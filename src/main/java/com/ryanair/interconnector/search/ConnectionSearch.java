@@ -0,0 +1,357 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.OrderedSink;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.config.SearchProperties.LegFetchStrategy;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.service.RouteQueryService;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Search of the connections between two airports behind every mode of the interconnection service: the direct
+ * connections, the ones with one stop and the ones with more stops are searched at once and handed over to one sink.
+ * The legs through each intermediate airport are joined by the {@link ConnectionJoiner}, which only visits the pairs
+ * leaving enough layover.
+ * Each leg is fetched only for the part of the window where it can still be part of a connection, given the minimum
+ * layover and the minimum flight duration, so schedule months that cannot contribute are never requested. Depending on
+ * the configured {@link LegFetchStrategy}, the second leg is either fetched in parallel with the first one or only when
+ * the first one has flights, from the earliest time a connection can depart.
+ * Interconnections with two or more stops are delegated to the {@link ConnectionScanEngine}.
+ * Every lookup started for a search belongs to the {@link CancellationScope} it is given, so once the result bound to
+ * it fails or is cancelled the lookups still pending are cancelled too.
+ */
+@Component
+@Slf4j
+public class ConnectionSearch {
+
+  private final RouteQueryService routeQueryService;
+  private final ConnectionMapper connectionMapper;
+  private final ConnectionJoiner connectionJoiner;
+  private final ConnectionScanEngine connectionScanEngine;
+  private final LegFetchStrategy legFetchStrategy;
+  private final int maxStopsLimit;
+  private final DistributionSummary lookedUpLegMonths;
+  private final DistributionSummary skippedLegMonths;
+
+  @Autowired
+  public ConnectionSearch(
+      RouteQueryService routeQueryService,
+      ConnectionMapper connectionMapper,
+      ConnectionJoiner connectionJoiner,
+      ConnectionScanEngine connectionScanEngine,
+      SearchProperties searchProperties,
+      MeterRegistry meterRegistry
+  ) {
+    this.routeQueryService = routeQueryService;
+    this.connectionMapper = connectionMapper;
+    this.connectionJoiner = connectionJoiner;
+    this.connectionScanEngine = connectionScanEngine;
+    this.legFetchStrategy = searchProperties.getLegFetchStrategy();
+    this.maxStopsLimit = searchProperties.getMaxStops();
+    this.lookedUpLegMonths = legMonthsSummary(meterRegistry, "looked-up");
+    this.skippedLegMonths = legMonthsSummary(meterRegistry, "skipped");
+  }
+
+  private static DistributionSummary legMonthsSummary(MeterRegistry meterRegistry, String outcome) {
+    // Lookups, not Schedules API calls: a month looked up may be answered by the cache
+    return DistributionSummary.builder("interconnector.legs.schedule.month.lookups")
+        .description("Schedule months per request looked up or skipped for the legs of the connections")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  /**
+   * @throws InvalidRequestException if the number of stops is not supported
+   */
+  public void validateMaxStops(int maxStops) {
+    if (maxStops < 0 || maxStops > maxStopsLimit) {
+      throw new InvalidRequestException(
+          "Invalid value '%d' for parameter 'maxStops'. Expected a value between 0 and %d"
+              .formatted(maxStops, maxStopsLimit));
+    }
+  }
+
+  /**
+   * Collects the connections between two airports within a time range (extremes included).
+   * @param origin Normalized code of the departure airport
+   * @param destination Normalized code of the arrival airport
+   * @return CompletableFuture bound to the scope containing the connections found, ordered by number of stops
+   */
+  public CompletableFuture<List<Connection>> collect(
+      CancellationScope scope,
+      ScheduleQueryService schedules,
+      String origin,
+      String destination,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int maxStops) {
+
+    List<Connection> connections = new ArrayList<>();
+    return scope.bind(search(scope, schedules, origin, destination, minimumDepartureTime, maximumArrivalTime,
+        maxStops, true, connections::add)
+        .thenApply(v -> connections));
+  }
+
+  /**
+   * Searches the connections between two airports within a time range (extremes included), handing each one over to
+   * the sink as soon as it is found. The caller binds its result to the scope, so the lookups still pending are
+   * cancelled once it fails or is cancelled.
+   * @param schedules Source of the schedules, e.g. the {@link BestEffortSchedules} of the search or the view of a batch
+   * @param origin Normalized code of the departure airport
+   * @param destination Normalized code of the arrival airport
+   * @param ordered Whether the connections are handed over by number of stops, never concurrently: those found before
+   *     their turn are held until the ones with fewer stops are handed over. Otherwise they go straight to the sink,
+   *     which has to be thread-safe, as in a page kept in a bounded heap
+   * @return CompletableFuture completed once every connection has been handed over to the sink
+   */
+  public CompletableFuture<Void> search(
+      CancellationScope scope,
+      ScheduleQueryService schedules,
+      String origin,
+      String destination,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      int maxStops,
+      boolean ordered,
+      Consumer<Connection> sink) {
+
+    Lookups lookups = new Lookups(scope, schedules);
+    CompletableFuture<Void> direct = scope.track(
+        findDirectConnections(lookups, origin, destination, minimumDepartureTime, maximumArrivalTime, sink));
+
+    CompletableFuture<Void> stopovers = maxStops >= 1
+        ? scope.track(inOrder(direct, ordered, sink, stopoverSink ->
+            findStopovers(lookups, origin, destination, minimumDepartureTime, maximumArrivalTime, stopoverSink)))
+        : CompletableFuture.completedFuture(null);
+
+    CompletableFuture<Void> multiStop = maxStops >= 2
+        ? scope.track(inOrder(CompletableFuture.allOf(direct, stopovers), ordered, sink, multiStopSink ->
+            lookups.findConnections(origin, destination, minimumDepartureTime, maximumArrivalTime, maxStops,
+                multiStopSink)))
+        : CompletableFuture.completedFuture(null);
+
+    return CompletableFuture.allOf(direct, stopovers, multiStop);
+  }
+
+  // Runs a part of the search, handing its connections over only once the preceding part is done when ordered
+  private static CompletableFuture<Void> inOrder(CompletableFuture<Void> preceding, boolean ordered,
+      Consumer<Connection> sink, Function<Consumer<Connection>, CompletableFuture<Void>> part) {
+    if (!ordered) {
+      return part.apply(sink);
+    }
+    OrderedSink<Connection> orderedSink = new OrderedSink<>(preceding, sink);
+    return CompletableFuture.allOf(part.apply(orderedSink), orderedSink.released());
+  }
+
+  private CompletableFuture<Void> findDirectConnections(
+      Lookups lookups,
+      String departure,
+      String arrival,
+      LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime,
+      Consumer<Connection> sink) {
+    return routeQueryService.existsDirectRoute(departure, arrival)
+        .thenApply(valid -> {
+              log.atInfo().setMessage("Single leg connections from {} to {} are {}")
+                  .addArgument(departure)
+                  .addArgument(arrival)
+                  .addArgument(valid ? "EXISTING" : "NOT EXISTING")
+                  .log();
+              return valid;
+            }
+        )
+        .thenCompose(valid ->
+            valid
+                ? lookups.findFlightSlots(departure, arrival, departureDateTime, arrivalDateTime)
+                : CompletableFuture.completedFuture(List.<FlightSlot>of()))
+        .thenAccept(slots -> slots.forEach(slot ->
+            connectionMapper.toSingleLegConnection(departure, arrival, slot).ifPresent(sink)));
+  }
+
+  /**
+   * Joins the legs through every intermediate airport, recording the schedule months looked up for them once all are
+   * done, whether they succeeded or not.
+   */
+  private CompletableFuture<Void> findStopovers(
+      Lookups lookups,
+      String departure,
+      String arrival,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      Consumer<Connection> sink) {
+
+    // Two flights and a layover must fit in the window, otherwise there is nothing to look up
+    if (minimumDepartureTime.plus(connectionJoiner.shortestConnection()).isAfter(maximumArrivalTime)) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return routeQueryService.intermediateAirports(departure, arrival)
+        .thenApply(set -> {
+          log.atInfo().setMessage("Finding multi-leg connections from {} to {} with common airports: {}")
+              .addArgument(departure)
+              .addArgument(arrival)
+              .addArgument(set.size())
+              .log();
+          return set;
+        })
+        .thenCompose(set -> {
+          LegFetchCounter counter = new LegFetchCounter();
+          CompletableFuture<Void> joined = CompletableFuture.allOf(set.stream()
+              .map(intermediate -> buildConnectionsVia(lookups, departure, intermediate, arrival,
+                  minimumDepartureTime, maximumArrivalTime, counter, sink))
+              .toArray(CompletableFuture[]::new));
+
+          joined.whenComplete((v, error) -> recordLegFetches(departure, arrival, counter));
+          return joined;
+        });
+  }
+
+  private CompletableFuture<Void> buildConnectionsVia(
+      Lookups lookups,
+      String departure,
+      String intermediate,
+      String arrival,
+      LocalDateTime minimumDepartureTime,
+      LocalDateTime maximumArrivalTime,
+      LegFetchCounter counter,
+      Consumer<Connection> sink) {
+
+    // The first leg has to land in time to take the shortest flight after the layover, and the second one cannot
+    // depart before the earliest possible landing of a first leg plus the layover
+    Duration connectionMargin = connectionJoiner.minLayover().plus(connectionJoiner.minFlightDuration());
+    LocalDateTime firstLegEnd = maximumArrivalTime.minus(connectionMargin);
+    LocalDateTime secondLegStart = minimumDepartureTime.plus(connectionMargin);
+
+    CompletableFuture<List<FlightSlot>> firstLegFut = lookups.findFlightSlots(
+        departure, intermediate, minimumDepartureTime, firstLegEnd);
+    counter.lookedUp(minimumDepartureTime, firstLegEnd);
+
+    if (legFetchStrategy == LegFetchStrategy.CONDITIONAL) {
+      return firstLegFut.thenCompose(firstSlots ->
+          fetchSecondLegAndJoin(lookups, departure, intermediate, arrival, firstSlots, secondLegStart,
+              maximumArrivalTime, counter, sink));
+    }
+
+    CompletableFuture<List<FlightSlot>> secondLegFut = lookups.findFlightSlots(
+        intermediate, arrival, secondLegStart, maximumArrivalTime);
+    counter.lookedUp(secondLegStart, maximumArrivalTime);
+
+    return firstLegFut.thenAcceptBoth(secondLegFut, (firstSlots, secondSlots) ->
+        connectionJoiner.join(departure, intermediate, arrival, firstSlots, secondSlots, sink));
+  }
+
+  /**
+   * Fetches the second leg only if the first one has flights, starting from the earliest arrival of them plus the
+   * minimum layover, as no connection can depart from the intermediate airport before.
+   */
+  private CompletableFuture<Void> fetchSecondLegAndJoin(
+      Lookups lookups,
+      String departure,
+      String intermediate,
+      String arrival,
+      List<FlightSlot> firstSlots,
+      LocalDateTime secondLegStart,
+      LocalDateTime maximumArrivalTime,
+      LegFetchCounter counter,
+      Consumer<Connection> sink) {
+
+    Optional<LocalDateTime> earliestSecondDeparture =
+        connectionJoiner.earliestSecondDeparture(firstSlots, secondLegStart, maximumArrivalTime);
+    if (earliestSecondDeparture.isEmpty()) {
+      counter.skipped(secondLegStart, maximumArrivalTime);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    counter.narrowed(secondLegStart, earliestSecondDeparture.get(), maximumArrivalTime);
+    return lookups.findFlightSlots(intermediate, arrival, earliestSecondDeparture.get(), maximumArrivalTime)
+        .thenAccept(secondSlots ->
+            connectionJoiner.join(departure, intermediate, arrival, firstSlots, secondSlots, sink));
+  }
+
+  private void recordLegFetches(String departure, String arrival, LegFetchCounter counter) {
+    lookedUpLegMonths.record(counter.lookedUp.get());
+    skippedLegMonths.record(counter.skipped.get());
+    log.atDebug().setMessage("Leg schedule months from {} to {}: {} looked up, {} skipped")
+        .addArgument(departure)
+        .addArgument(arrival)
+        .addArgument(counter.lookedUp.get())
+        .addArgument(counter.skipped.get())
+        .log();
+  }
+
+  /**
+   * Schedule months looked up and skipped for the legs of a single request. Every month skipped is a Schedules API
+   * call avoided, while a month looked up only becomes a call when it is not cached yet.
+   */
+  private static final class LegFetchCounter {
+
+    private final AtomicInteger lookedUp = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private void lookedUp(LocalDateTime start, LocalDateTime end) {
+      lookedUp.addAndGet(months(start, end));
+    }
+
+    private void skipped(LocalDateTime start, LocalDateTime end) {
+      skipped.addAndGet(months(start, end));
+    }
+
+    private void narrowed(LocalDateTime fullStart, LocalDateTime start, LocalDateTime end) {
+      int months = months(start, end);
+      lookedUp.addAndGet(months);
+      skipped.addAndGet(months(fullStart, end) - months);
+    }
+
+    private static int months(LocalDateTime start, LocalDateTime end) {
+      if (start.isAfter(end)) {
+        return 0;
+      }
+      return Math.toIntExact(ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(end)) + 1);
+    }
+  }
+
+  /**
+   * Lookups started for a single search, all of them in its {@link CancellationScope}.
+   */
+  private final class Lookups {
+
+    private final CancellationScope scope;
+    private final ScheduleQueryService schedules;
+
+    private Lookups(CancellationScope scope, ScheduleQueryService schedules) {
+      this.scope = scope;
+      this.schedules = schedules;
+    }
+
+    private CompletableFuture<List<FlightSlot>> findFlightSlots(String from, String to, LocalDateTime start,
+        LocalDateTime end) {
+      return scope.track(schedules.findFlightSlots(from, to, start, end));
+    }
+
+    private CompletableFuture<Void> findConnections(String departure, String arrival,
+        LocalDateTime minimumDepartureTime, LocalDateTime maximumArrivalTime, int maxStops, Consumer<Connection> sink) {
+      return scope.track(connectionScanEngine.findConnections(departure, arrival, minimumDepartureTime,
+          maximumArrivalTime, 2, maxStops, schedules, sink));
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import java.util.List;
+
+/**
+ * Connections found to one of the destinations of a one-to-many search.
+ * @param arrival Destination airport code in IATA format
+ * @param connections Connections to the destination, direct first and then through each intermediate airport
+ */
+public record DestinationConnections(String arrival, List<Connection> connections) {
+
+  public DestinationConnections {
+    connections = List.copyOf(connections);
+  }
+}
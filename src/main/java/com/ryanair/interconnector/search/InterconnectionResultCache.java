@@ -0,0 +1,172 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.Leg;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.client.SingleFlightLoader;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cache of the interconnections between two airports by day bucket, the whole days spanned by the window of a query.
+ * The first query of a bucket searches all of its days, and that same window or any narrower one within those days is
+ * then answered by slicing the cached connections, instead of joining the legs and mapping the connections again for
+ * every user searching the same day. Concurrent misses of the same bucket are coalesced into a single search.
+ * Every result keeps the {@link SourceVersions} of the schedule months and routes snapshot it was derived from, and it
+ * is only served while all of them are still the ones cached: once any of them is refreshed the result is recomputed,
+ * so it never outlives its sources. A routes refresh only does so when it changes the routes, as an unchanged refresh
+ * keeps the same index.
+ */
+@Component
+@Slf4j
+public class InterconnectionResultCache {
+
+  public static final String CACHE_NAME = "interconnectionsCache";
+
+  private static final String ROUTES_SOURCE = "routes";
+  private static final LocalTime END_OF_DAY = LocalTime.of(23, 59);
+
+  private final Cache resultsCache;
+  private final RoutesSnapshotProvider routesSnapshotProvider;
+  private final ScheduleQueryService scheduleQueryService;
+  private final int maxDays;
+  private final Counter staleResults;
+
+  private final SingleFlightLoader<ResultKey, CachedResult> loader = new SingleFlightLoader<>();
+
+  @Autowired
+  public InterconnectionResultCache(CacheManager cacheManager, RoutesSnapshotProvider routesSnapshotProvider,
+      ScheduleQueryService scheduleQueryService, SearchProperties searchProperties, MeterRegistry meterRegistry) {
+    this.resultsCache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Missing cache " + CACHE_NAME);
+    this.routesSnapshotProvider = routesSnapshotProvider;
+    this.scheduleQueryService = scheduleQueryService;
+    this.maxDays = searchProperties.getResultCacheMaxDays();
+    this.staleResults = Counter.builder("interconnector.results.stale")
+        .description("Cached interconnection results recomputed as any of their sources was refreshed")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Finds the connections within a window from the cached result of its days, searching them all if there is no
+   * current one. Windows spanning more days than configured are searched as they are, without caching.
+   * @param search Search of the connections within a window, looking up the schedules with the given service
+   * @return CompletableFuture containing the connections within the window, in the order of the search
+   */
+  public CompletableFuture<List<Connection>> find(
+      String departure,
+      String arrival,
+      LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime,
+      int maxStops,
+      WindowSearch search) {
+
+    LocalDate firstDay = departureDateTime.toLocalDate();
+    LocalDate lastDay = arrivalDateTime.toLocalDate();
+    if (lastDay.isBefore(firstDay) || ChronoUnit.DAYS.between(firstDay, lastDay) >= maxDays) {
+      return search.search(scheduleQueryService, departureDateTime, arrivalDateTime);
+    }
+
+    ResultKey key = new ResultKey(AirportDictionary.normalize(departure), AirportDictionary.normalize(arrival),
+        firstDay, lastDay, maxStops);
+    CachedResult cached = resultsCache.get(key, CachedResult.class);
+    if (cached != null) {
+      if (cached.isCurrent()) {
+        return CompletableFuture.completedFuture(cached.slice(departureDateTime, arrivalDateTime));
+      }
+      staleResults.increment();
+    }
+
+    // The search is shared, so it is only cancelled once every caller waiting for it is gone
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(scope.track(loader.load(key, () -> searchBucket(key, search)))
+        .thenApply(result -> result.slice(departureDateTime, arrivalDateTime)));
+  }
+
+  private CompletableFuture<CachedResult> searchBucket(ResultKey key, WindowSearch search) {
+    SourceVersions versions = new SourceVersions();
+    // Taken before searching, so a snapshot swapped in meanwhile makes the result stale instead of going unnoticed.
+    // Without any snapshot yet there is no version to tie the result to, so it is not cached
+    Optional<RoutesIndex> routes = routesSnapshotProvider.loadedIndex();
+    routes.ifPresent(index -> versions.record(ROUTES_SOURCE,
+        () -> routesSnapshotProvider.loadedIndex().filter(current -> current == index).isPresent()));
+
+    return search.search(scheduleQueryService.versionedView(versions), key.firstDay().atStartOfDay(),
+            key.lastDay().atTime(END_OF_DAY))
+        .thenApply(connections -> {
+          CachedResult result = new CachedResult(connections, versions);
+          if (routes.isPresent()) {
+            resultsCache.put(key, result);
+            log.atDebug().setMessage("Cached {} interconnections from {} to {} on {} derived from {} sources")
+                .addArgument(connections.size())
+                .addArgument(key.departure())
+                .addArgument(key.arrival())
+                .addArgument(key.firstDay())
+                .addArgument(versions.size())
+                .log();
+          }
+          return result;
+        });
+  }
+
+  /**
+   * Search of the connections within a window.
+   */
+  @FunctionalInterface
+  public interface WindowSearch {
+
+    CompletableFuture<List<Connection>> search(ScheduleQueryService schedules, LocalDateTime start, LocalDateTime end);
+  }
+
+  private record ResultKey(String departure, String arrival, LocalDate firstDay, LocalDate lastDay, int maxStops) { }
+
+  /**
+   * Connections of a day bucket along with the versions of the sources they were derived from.
+   */
+  public static final class CachedResult {
+
+    private final List<Connection> connections;
+    private final SourceVersions versions;
+
+    private CachedResult(List<Connection> connections, SourceVersions versions) {
+      this.connections = List.copyOf(connections);
+      this.versions = versions;
+    }
+
+    public int size() {
+      return connections.size();
+    }
+
+    private boolean isCurrent() {
+      return versions.isCurrent();
+    }
+
+    // Keeps the order, as removing connections outside the window does not change the order of the rest
+    private List<Connection> slice(LocalDateTime start, LocalDateTime end) {
+      return connections.stream()
+          .filter(connection -> {
+            List<Leg> legs = connection.getLegs();
+            return !legs.get(0).getDepartureDateTime().isBefore(start)
+                && !legs.get(legs.size() - 1).getArrivalDateTime().isAfter(end);
+          })
+          .toList();
+    }
+  }
+}
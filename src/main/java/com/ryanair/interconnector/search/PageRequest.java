@@ -0,0 +1,35 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import java.util.OptionalInt;
+
+/**
+ * Page of connections requested: how they are sorted, how many of them and after which position.
+ * @param order Order of the connections
+ * @param limit Maximum connections of the page, the service default if empty
+ * @param after Position to start after, or null for the first page
+ */
+public record PageRequest(ConnectionOrder order, OptionalInt limit, ConnectionCursor after) {
+
+  public static final ConnectionOrder DEFAULT_ORDER = ConnectionOrder.DEPARTURE;
+
+  /**
+   * Builds the page request from the request parameters. The order defaults to the one of the cursor, if any, so only
+   * the cursor has to be sent to get the next page.
+   * @throws InvalidRequestException if any parameter is invalid or the cursor comes from a different order
+   */
+  public static PageRequest of(String sort, Integer limit, String cursor) {
+    if (limit != null && limit < 1) {
+      throw new InvalidRequestException(
+          "Invalid value '%d' for parameter 'limit'. Expected a positive value".formatted(limit));
+    }
+    ConnectionCursor after = cursor == null ? null : ConnectionCursor.decode(cursor);
+    ConnectionOrder order = sort != null
+        ? ConnectionOrder.fromParameter(sort)
+        : after != null ? after.order() : DEFAULT_ORDER;
+    if (after != null && after.order() != order) {
+      throw new InvalidRequestException("The cursor does not belong to a page sorted by '%s'".formatted(sort));
+    }
+    return new PageRequest(order, limit == null ? OptionalInt.empty() : OptionalInt.of(limit), after);
+  }
+}
@@ -0,0 +1,24 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import java.util.List;
+
+/**
+ * Connections found by a best-effort search, along with what had to be skipped to answer by the deadline.
+ * @param connections Connections found with the schedules that did resolve, ordered by number of stops
+ * @param skippedIntermediates Intermediate airports with connections that may be missing, sorted
+ * @param skippedMonths Schedule months that failed or missed the deadline as {@code FROM-TO/yyyy-MM}, sorted
+ */
+public record PartialConnections(List<Connection> connections, List<String> skippedIntermediates,
+    List<String> skippedMonths) {
+
+  public PartialConnections {
+    connections = List.copyOf(connections);
+    skippedIntermediates = List.copyOf(skippedIntermediates);
+    skippedMonths = List.copyOf(skippedMonths);
+  }
+
+  public boolean isComplete() {
+    return skippedMonths.isEmpty();
+  }
+}
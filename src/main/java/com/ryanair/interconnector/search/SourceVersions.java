@@ -0,0 +1,32 @@
+package com.ryanair.interconnector.search;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Versions of the cached sources a result is derived from, like the schedule months or the routes snapshot. Each source
+ * is recorded once with a check telling whether its cache still holds the same version the result was built with, so
+ * the result can be reused for as long as every check passes and is recomputed once any source has been refreshed.
+ */
+public final class SourceVersions {
+
+  // Recorded as lookups complete, on different threads
+  private final Map<Object, BooleanSupplier> checks = new ConcurrentHashMap<>();
+
+  /**
+   * @param source Key identifying the source, only its first version is kept
+   * @param isCurrent Whether the version used is still the current one of the source
+   */
+  public void record(Object source, BooleanSupplier isCurrent) {
+    checks.putIfAbsent(source, isCurrent);
+  }
+
+  public boolean isCurrent() {
+    return checks.values().stream().allMatch(BooleanSupplier::getAsBoolean);
+  }
+
+  public int size() {
+    return checks.size();
+  }
+}
@@ -0,0 +1,296 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Flights of a search as a connection array: every flight is a connection between two airports (dense ids) with its
+ * departure and arrival in minutes since the epoch, all of them sorted by departure.
+ * Itineraries are enumerated in three passes over the array, following the Connection Scan Algorithm:
+ * <ol>
+ *   <li>A forward scan computes, for every flight, the fewest legs needed to board it from the origin in time, pruning
+ *   the flights that cannot be reached by earliest arrival.</li>
+ *   <li>A backward scan computes, for every reachable flight, the fewest legs needed from it to land at the destination
+ *   in time, by latest departure.</li>
+ *   <li>A depth-first enumeration from the origin that only follows flights satisfying both bounds, so almost every
+ *   visited prefix ends up in an itinerary and the cost follows the size of the output.</li>
+ * </ol>
+ */
+final class Timetable {
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+  private static final int NO_DEPARTURE = Integer.MIN_VALUE;
+
+  private final int airportCount;
+  private final int[] from;
+  private final int[] to;
+  private final int[] departures;
+  private final int[] arrivals;
+  private final FlightSlot[] slots;
+  // Indexes of the connections departing from each airport, sorted by departure
+  private final int[][] departuresByAirport;
+
+  private Timetable(int airportCount, int[] from, int[] to, int[] departures, int[] arrivals, FlightSlot[] slots) {
+    this.airportCount = airportCount;
+    this.from = from;
+    this.to = to;
+    this.departures = departures;
+    this.arrivals = arrivals;
+    this.slots = slots;
+
+    int[] counts = new int[airportCount];
+    for (int airport : from) {
+      counts[airport]++;
+    }
+    this.departuresByAirport = new int[airportCount][];
+    for (int airport = 0; airport < airportCount; airport++) {
+      departuresByAirport[airport] = new int[counts[airport]];
+      counts[airport] = 0;
+    }
+    for (int c = 0; c < from.length; c++) {
+      departuresByAirport[from[c]][counts[from[c]]++] = c;
+    }
+  }
+
+  static Builder builder(int airportCount) {
+    return new Builder(airportCount);
+  }
+
+  int size() {
+    return from.length;
+  }
+
+  int fromOf(int connection) {
+    return from[connection];
+  }
+
+  int toOf(int connection) {
+    return to[connection];
+  }
+
+  FlightSlot slotOf(int connection) {
+    return slots[connection];
+  }
+
+  /**
+   * Enumerates the itineraries from the origin to the destination departing at or after the start and arriving at or
+   * before the end, with a number of legs between the given bounds (both included) and never visiting an airport twice.
+   * @param layoverMinutes Minimum time between the arrival of a leg and the departure of the next one
+   * @param transferFilter Additional check for every pair of consecutive legs
+   * @param sink Receives the connection indexes of every itinerary as soon as it is found, ordered by the departure of
+   *     their legs, so no itinerary is kept here
+   */
+  void itineraries(int origin, int destination, int startMinute, int endMinute, int layoverMinutes,
+      int minLegs, int maxLegs, BiPredicate<FlightSlot, FlightSlot> transferFilter, Consumer<int[]> sink) {
+
+    int[] boardLegs = scanForward(origin, startMinute, layoverMinutes, maxLegs);
+    int[] finishLegs = scanBackward(destination, endMinute, layoverMinutes, maxLegs, boardLegs);
+
+    Enumeration enumeration = new Enumeration(destination, layoverMinutes, minLegs, maxLegs, finishLegs,
+        transferFilter, sink);
+    enumeration.visited[origin] = true;
+    int[] first = departuresByAirport[origin];
+    for (int i = firstDepartingAtOrAfter(first, startMinute); i < first.length; i++) {
+      if (finishLegs[first[i]] != UNREACHABLE) {
+        enumeration.extend(first[i], 0);
+      }
+    }
+  }
+
+  // Fewest legs needed to board every connection from the origin, keeping the earliest arrival per airport and legs
+  private int[] scanForward(int origin, int startMinute, int layoverMinutes, int maxLegs) {
+    int[] boardLegs = new int[size()];
+    Arrays.fill(boardLegs, UNREACHABLE);
+    int[][] earliestArrival = new int[maxLegs + 1][airportCount];
+    for (int[] byAirport : earliestArrival) {
+      Arrays.fill(byAirport, UNREACHABLE);
+    }
+
+    for (int c = 0; c < size(); c++) {
+      int legs = UNREACHABLE;
+      if (from[c] == origin) {
+        legs = departures[c] >= startMinute ? 1 : UNREACHABLE;
+      } else {
+        for (int k = 1; k < maxLegs && legs == UNREACHABLE; k++) {
+          int arrival = earliestArrival[k][from[c]];
+          if (arrival != UNREACHABLE && arrival + layoverMinutes <= departures[c]) {
+            legs = k + 1;
+          }
+        }
+      }
+      if (legs == UNREACHABLE) {
+        continue;
+      }
+      boardLegs[c] = legs;
+      for (int k = legs; k <= maxLegs; k++) {
+        earliestArrival[k][to[c]] = Math.min(earliestArrival[k][to[c]], arrivals[c]);
+      }
+    }
+    return boardLegs;
+  }
+
+  // Fewest legs needed from every reachable connection to the destination, keeping the latest departure per airport
+  // and legs. Connections that cannot be part of an itinerary within the maximum legs are left unreachable.
+  private int[] scanBackward(int destination, int endMinute, int layoverMinutes, int maxLegs, int[] boardLegs) {
+    int[] finishLegs = new int[size()];
+    Arrays.fill(finishLegs, UNREACHABLE);
+    int[][] latestDeparture = new int[maxLegs + 1][airportCount];
+    for (int[] byAirport : latestDeparture) {
+      Arrays.fill(byAirport, NO_DEPARTURE);
+    }
+
+    for (int c = size() - 1; c >= 0; c--) {
+      if (boardLegs[c] == UNREACHABLE) {
+        continue;
+      }
+      int legs = UNREACHABLE;
+      if (to[c] == destination) {
+        legs = arrivals[c] <= endMinute ? 1 : UNREACHABLE;
+      } else {
+        for (int k = 1; k < maxLegs && legs == UNREACHABLE; k++) {
+          int departure = latestDeparture[k][to[c]];
+          if (departure != NO_DEPARTURE && arrivals[c] + layoverMinutes <= departure) {
+            legs = k + 1;
+          }
+        }
+      }
+      if (legs == UNREACHABLE || boardLegs[c] + legs - 1 > maxLegs) {
+        continue;
+      }
+      finishLegs[c] = legs;
+      for (int k = legs; k <= maxLegs; k++) {
+        latestDeparture[k][from[c]] = Math.max(latestDeparture[k][from[c]], departures[c]);
+      }
+    }
+    return finishLegs;
+  }
+
+  private int firstDepartingAtOrAfter(int[] connections, int minute) {
+    int low = 0;
+    int high = connections.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (departures[connections[mid]] < minute) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * State of the depth-first enumeration of the itineraries.
+   */
+  private final class Enumeration {
+
+    private final int destination;
+    private final int layoverMinutes;
+    private final int minLegs;
+    private final int maxLegs;
+    private final int[] finishLegs;
+    private final BiPredicate<FlightSlot, FlightSlot> transferFilter;
+    private final Consumer<int[]> sink;
+
+    private final int[] path;
+    private final boolean[] visited = new boolean[airportCount];
+
+    private Enumeration(int destination, int layoverMinutes, int minLegs, int maxLegs, int[] finishLegs,
+        BiPredicate<FlightSlot, FlightSlot> transferFilter, Consumer<int[]> sink) {
+      this.destination = destination;
+      this.layoverMinutes = layoverMinutes;
+      this.minLegs = minLegs;
+      this.maxLegs = maxLegs;
+      this.finishLegs = finishLegs;
+      this.transferFilter = transferFilter;
+      this.sink = sink;
+      this.path = new int[maxLegs];
+    }
+
+    private void extend(int connection, int depth) {
+      path[depth] = connection;
+      int legs = depth + 1;
+      int airport = to[connection];
+      if (airport == destination) {
+        if (legs >= minLegs) {
+          sink.accept(Arrays.copyOf(path, legs));
+        }
+        return;
+      }
+      if (legs == maxLegs || visited[airport]) {
+        return;
+      }
+
+      visited[airport] = true;
+      int[] next = departuresByAirport[airport];
+      for (int i = firstDepartingAtOrAfter(next, arrivals[connection] + layoverMinutes); i < next.length; i++) {
+        int candidate = next[i];
+        if (finishLegs[candidate] != UNREACHABLE && legs + finishLegs[candidate] <= maxLegs
+            && transferFilter.test(slots[connection], slots[candidate])) {
+          extend(candidate, legs);
+        }
+      }
+      visited[airport] = false;
+    }
+  }
+
+  /**
+   * Accumulates the flights in any order and sorts them by departure when building.
+   */
+  static final class Builder {
+
+    private final int airportCount;
+    private final List<int[]> legs = new ArrayList<>();
+    private final List<FlightSlot> slots = new ArrayList<>();
+
+    private Builder(int airportCount) {
+      this.airportCount = airportCount;
+    }
+
+    /**
+     * Adds a flight, unless it lacks any time or does not land after departing (e.g. overnight flights reported with
+     * the arrival on the same day), as the scans rely on time always moving forward.
+     */
+    Builder add(int fromAirport, int toAirport, FlightSlot slot) {
+      if (slot.departureDateTime() == null || slot.arrivalDateTime() == null
+          || !slot.arrivalDateTime().isAfter(slot.departureDateTime())) {
+        return this;
+      }
+      legs.add(new int[] {fromAirport, toAirport, MonthlySlots.toEpochMinute(slot.departureDateTime()),
+          MonthlySlots.toEpochMinute(slot.arrivalDateTime())});
+      slots.add(slot);
+      return this;
+    }
+
+    Timetable build() {
+      int size = legs.size();
+      long[] order = new long[size];
+      for (int i = 0; i < size; i++) {
+        // Departure in the high bits, so sorting the packed values sorts by departure keeping the index at hand
+        order[i] = ((long) legs.get(i)[2] << 32) | i;
+      }
+      Arrays.sort(order);
+
+      int[] from = new int[size];
+      int[] to = new int[size];
+      int[] departures = new int[size];
+      int[] arrivals = new int[size];
+      FlightSlot[] sorted = new FlightSlot[size];
+      for (int c = 0; c < size; c++) {
+        int index = (int) order[c];
+        int[] leg = legs.get(index);
+        from[c] = leg[0];
+        to[c] = leg[1];
+        departures[c] = leg[2];
+        arrivals[c] = leg[3];
+        sorted[c] = slots.get(index);
+      }
+      return new Timetable(airportCount, from, to, departures, arrivals, sorted);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.ryanair.interconnector.search;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the first connections of a page as they are found, in a heap bounded by the page size: its root is the last
+ * connection kept, replaced whenever a connection sorting before it arrives. Memory and the final sort depend on the
+ * page size instead of on every connection found. Connections can be accepted from several threads.
+ */
+public class TopConnections implements Consumer<Connection> {
+
+  private final ConnectionOrder order;
+  private final ConnectionCursor after;
+  private final int limit;
+  private final Comparator<Connection> comparator;
+  private final PriorityQueue<Connection> heap;
+  private boolean truncated;
+
+  public TopConnections(ConnectionOrder order, ConnectionCursor after, int limit) {
+    this.order = order;
+    this.after = after;
+    this.limit = limit;
+    this.comparator = order.comparator();
+    this.heap = new PriorityQueue<>(limit, comparator.reversed());
+  }
+
+  @Override
+  public synchronized void accept(Connection connection) {
+    if (after != null && !after.precedes(connection)) {
+      return;
+    }
+    if (heap.size() < limit) {
+      heap.add(connection);
+      return;
+    }
+    truncated = true;
+    if (comparator.compare(connection, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(connection);
+    }
+  }
+
+  /**
+   * @return The connections kept, sorted, with the position of the last one if some connections were left out
+   */
+  public synchronized ConnectionPage page() {
+    List<Connection> connections = new ArrayList<>(heap);
+    connections.sort(comparator);
+    Optional<ConnectionCursor> next = truncated
+        ? Optional.of(ConnectionCursor.after(order, connections.get(connections.size() - 1)))
+        : Optional.empty();
+    return new ConnectionPage(connections, next);
+  }
+}
@@ -1,9 +1,16 @@
 package com.ryanair.interconnector.service;
 
 import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.InterconnectionQuery;
+import com.ryanair.interconnector.concurrent.Deadline;
+import com.ryanair.interconnector.search.ConnectionPage;
+import com.ryanair.interconnector.search.DestinationConnections;
+import com.ryanair.interconnector.search.PageRequest;
+import com.ryanair.interconnector.search.PartialConnections;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service that abstracts finding connections from a departure airport to another arrival one in a given range of time.
@@ -11,15 +18,88 @@ import java.util.concurrent.CompletableFuture;
  */
 public interface InterconnectionService {
 
+  int DEFAULT_MAX_STOPS = 1;
+
   /**
-   * Finds interconnections between two airports within a specified time range.
+   * Finds direct and 1-stop interconnections between two airports within a specified time range.
    * @param departure Origin airport code (e.g., "DUB" for Dublin)
    * @param arrival Destination airport code (e.g., "LON" for London)
    * @param departureDateTime LocalDateTime of departure (e.g., 2023-10-01T10:00:00)
    * @param arrivalDateTime LocalDateTime of arrival (e.g., 2023-10-01T12:00:00)
    * @return CompletableFuture containing a list of Connection objects representing the interconnections found.
    */
-  CompletableFuture<List<Connection>> findInterconnections(String departure, String arrival, LocalDateTime departureDateTime,
-      LocalDateTime arrivalDateTime);
+  default CompletableFuture<List<Connection>> findInterconnections(String departure, String arrival,
+      LocalDateTime departureDateTime, LocalDateTime arrivalDateTime) {
+    return findInterconnections(departure, arrival, departureDateTime, arrivalDateTime, DEFAULT_MAX_STOPS);
+  }
+
+  /**
+   * Finds interconnections between two airports within a specified time range, with up to the given number of stops.
+   * @param maxStops Maximum number of stops of the interconnections (0 for direct flights only)
+   * @return CompletableFuture containing a list of Connection objects representing the interconnections found, ordered
+   * by number of stops.
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the number of stops is not supported
+   */
+  CompletableFuture<List<Connection>> findInterconnections(String departure, String arrival,
+      LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, int maxStops);
+
+  /**
+   * Finds the interconnections between two airports within a specified time range on a best-effort basis: the schedule
+   * lookups that fail or are still pending at the deadline are skipped instead of failing or delaying the search, so
+   * its latency is bounded by the deadline rather than by the slowest intermediate airport.
+   * @param maxStops Maximum number of stops of the interconnections (0 for direct flights only)
+   * @param deadline Deadline of the schedule lookups
+   * @return CompletableFuture containing the interconnections found with the schedules that did resolve, ordered by
+   * number of stops, and the intermediate airports and months skipped
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the number of stops is not supported
+   */
+  CompletableFuture<PartialConnections> findInterconnections(String departure, String arrival,
+      LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, int maxStops, Deadline deadline);
+
+  /**
+   * Finds the interconnections of several queries at once, planning the schedules they need together so every
+   * schedule month is fetched once for the whole batch.
+   * @param queries Queries of the batch, each one with 1 stop at most unless it says otherwise
+   * @return One CompletableFuture per query in the same order, containing its interconnections ordered by number of
+   * stops or failed with an InvalidRequestException if the query is not supported
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the batch holds too many queries
+   */
+  List<CompletableFuture<List<Connection>>> findInterconnectionsBatch(List<InterconnectionQuery> queries);
+
+  /**
+   * Finds a page of the interconnections between two airports within a specified time range, sorted as requested.
+   * Only the connections of the page are kept while searching, however many are found.
+   * @param maxStops Maximum number of stops of the interconnections (0 for direct flights only)
+   * @param pageRequest Order, size and starting position of the page
+   * @return CompletableFuture containing the page of connections found
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the number of stops or the page size is
+   * not supported
+   */
+  CompletableFuture<ConnectionPage> findInterconnections(String departure, String arrival,
+      LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, int maxStops, PageRequest pageRequest);
+
+  /**
+   * Streams the interconnections between two airports as they are found instead of waiting for all of them. The direct
+   * connections are handed over first, then the ones through each intermediate airport as soon as they are joined and
+   * finally the ones with more stops.
+   * @param maxStops Maximum number of stops of the interconnections (0 for direct flights only)
+   * @param sink Receives each non-empty batch of connections found, never concurrently
+   * @return CompletableFuture completed once every batch has been handed over to the sink
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the number of stops is not supported
+   */
+  CompletableFuture<Void> streamInterconnections(String departure, String arrival,
+      LocalDateTime departureDateTime, LocalDateTime arrivalDateTime, int maxStops, Consumer<List<Connection>> sink);
+
+  /**
+   * Streams the interconnections from an airport to every destination reachable within a specified time range, grouped
+   * by destination. The schedule of each first leg is fetched once for all the destinations, instead of once per
+   * destination searched.
+   * @param maxStops Maximum number of stops of the interconnections, 0 for direct flights only or 1
+   * @param sink Receives the connections of each destination with any, never concurrently
+   * @return CompletableFuture completed once every destination has been handed over to the sink
+   * @throws com.ryanair.interconnector.exception.InvalidRequestException if the number of stops is not supported
+   */
+  CompletableFuture<Void> streamInterconnectionsFrom(String departure, LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime, int maxStops, Consumer<DestinationConnections> sink);
 
 }
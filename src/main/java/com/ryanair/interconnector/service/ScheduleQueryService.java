@@ -1,6 +1,8 @@
 package com.ryanair.interconnector.service;
 
+import com.ryanair.interconnector.concurrent.CancellationScope;
 import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.search.SourceVersions;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -17,7 +19,28 @@ public interface ScheduleQueryService {
      * @param to Destination airport code in IATA format (e.g., "LON" for London).
      * @param start LocalDateTime representing the start of the search range (e.g , 2023-10-01T08:00:00).
      * @param end LocalDateTime representing the end of the search range (e.g , 2023-10-01T12:00:00).
-     * @return A CompletableFuture that resolves to a list of FlightSlot objects representing the available flight slots.
+     * @return A CompletableFuture that resolves to a list of FlightSlot objects representing the available flight slots,
+     * sorted by departure.
      */
     CompletableFuture<List<FlightSlot>> findFlightSlots(String from, String to, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * View of this service for a batch of searches planned together: while the view lives, every schedule month is
+     * fetched at most once for all of them, however many searches need it and whatever their windows.
+     * @param batchScope Scope of the batch, cancelled once nobody waits for its results anymore, which cancels the
+     * schedules still loading for it
+     * @return The view, this same service if it does not keep the schedules of a batch apart
+     */
+    default ScheduleQueryService batchView(CancellationScope batchScope) {
+        return this;
+    }
+
+    /**
+     * View of this service recording in the given versions the schedule months its lookups are derived from, so a
+     * result built from them can tell later whether any of those months has been refreshed since.
+     * @return The view, this same service if its lookups are not derived from versioned months
+     */
+    default ScheduleQueryService versionedView(SourceVersions versions) {
+        return this;
+    }
 }
@@ -1,54 +1,72 @@
 package com.ryanair.interconnector.service.impl;
 
 import com.ryanair.interconnectingflights.model.Connection;
-import com.ryanair.interconnector.dto.FlightSlot;
-import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnectingflights.model.InterconnectionQuery;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.Deadline;
+import com.ryanair.interconnector.concurrent.SerializedSink;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.index.AirportDictionary;
+import com.ryanair.interconnector.search.AnywhereSearch;
+import com.ryanair.interconnector.search.BatchSearch;
+import com.ryanair.interconnector.search.BestEffortSchedules;
+import com.ryanair.interconnector.search.ConnectionPage;
+import com.ryanair.interconnector.search.ConnectionSearch;
+import com.ryanair.interconnector.search.DestinationConnections;
+import com.ryanair.interconnector.search.InterconnectionResultCache;
+import com.ryanair.interconnector.search.PageRequest;
+import com.ryanair.interconnector.search.PartialConnections;
+import com.ryanair.interconnector.search.TopConnections;
 import com.ryanair.interconnector.service.InterconnectionService;
-import com.ryanair.interconnector.service.RouteQueryService;
 import com.ryanair.interconnector.service.ScheduleQueryService;
-import com.ryanair.interconnector.validation.connection.FlightConnectionValidator;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Implementation of the InterconnectionService that provides methods to find interconnections
- * It uses ScheduleQueryService to find flight slots and RouteQueryService to check routes and combine them
- * into connections.
- * It supports both single-leg and multi-leg connections, validating each connection using a list of validators that are
- * injected into the service by the framework, enabling custom validation logic for flight connections.
+ * Every mode between two airports runs the same {@link ConnectionSearch} on the normalized airport codes, handing the
+ * connections found over to a different sink: a list ordered by number of stops, the bounded heap of a page or the
+ * stream, which gets the direct connections first, then the ones through each intermediate airport as soon as they are
+ * joined and finally the ones with more stops.
+ * Every search belongs to a {@link CancellationScope}: once the returned future fails or is cancelled, e.g. by the
+ * deadline of the request, the schedule lookups still pending are cancelled too. In best-effort mode the schedule
+ * lookups still pending at the deadline, or failing, are skipped instead, so the request answers by the deadline with
+ * whatever did resolve rather than waiting for the slowest intermediate airport.
+ * The complete interconnections of a window are answered from the {@link InterconnectionResultCache} of its days, which
+ * searches them on a miss.
+ * Batches of queries are delegated to the {@link BatchSearch} and searches to every destination of an airport to the
+ * {@link AnywhereSearch}.
  */
 @Service
-@Slf4j
 public class InterconnectionServiceImpl implements InterconnectionService {
 
   private final ScheduleQueryService scheduleQueryService;
-  private final RouteQueryService routeQueryService;
-  private final ConnectionMapper connectionMapper;
-  private final List<FlightConnectionValidator> flightConnectionValidators;
-
-  @SuppressFBWarnings(
-      value = "EI_EXPOSE_REP2",
-      justification = "List is injected by Spring and not exposed"
-  )
+  private final ConnectionSearch connectionSearch;
+  private final BatchSearch batchSearch;
+  private final AnywhereSearch anywhereSearch;
+  private final InterconnectionResultCache resultCache;
+  private final int maxPageSize;
+
   @Autowired
   public InterconnectionServiceImpl(
       ScheduleQueryService scheduleQueryService,
-      RouteQueryService routeQueryService,
-      ConnectionMapper connectionMapper,
-      List<FlightConnectionValidator> flightConnectionValidators
+      ConnectionSearch connectionSearch,
+      BatchSearch batchSearch,
+      AnywhereSearch anywhereSearch,
+      InterconnectionResultCache resultCache,
+      SearchProperties searchProperties
   ) {
     this.scheduleQueryService = scheduleQueryService;
-    this.routeQueryService = routeQueryService;
-    this.connectionMapper = connectionMapper;
-    this.flightConnectionValidators = flightConnectionValidators;
+    this.connectionSearch = connectionSearch;
+    this.batchSearch = batchSearch;
+    this.anywhereSearch = anywhereSearch;
+    this.resultCache = resultCache;
+    this.maxPageSize = searchProperties.getMaxPageSize();
   }
 
   @Override
@@ -56,116 +74,94 @@ public class InterconnectionServiceImpl implements InterconnectionService {
       String departure,
       String arrival,
       LocalDateTime departureDateTime,
-      LocalDateTime arrivalDateTime) {
-
-    CompletableFuture<List<Connection>> singleLegFut = getSingleLegConnections(
-        departure,
-        arrival,
-        departureDateTime,
-        arrivalDateTime);
-
-    CompletableFuture<List<Connection>> multiLegFut = getMultiLegConnections(
-        departure,
-        arrival,
-        departureDateTime,
-        arrivalDateTime);
-
-    // Combine both results preserving the order: direct first, then interconnected
-    return singleLegFut.thenCombine(multiLegFut, (single, multi) -> {
-      List<Connection> combined = new ArrayList<>(single.size() + multi.size());
-      combined.addAll(single);
-      combined.addAll(multi);
-      return combined;
-    });
+      LocalDateTime arrivalDateTime,
+      int maxStops) {
+
+    connectionSearch.validateMaxStops(maxStops);
+    // Every mode searches the normalized codes, so a cached result is served to every request between the same
+    // airports and the connections found carry the same codes whatever the case requested
+    String origin = AirportDictionary.normalize(departure);
+    String destination = AirportDictionary.normalize(arrival);
+    return resultCache.find(origin, destination, departureDateTime, arrivalDateTime, maxStops,
+        (schedules, start, end) -> connectionSearch.collect(new CancellationScope(), schedules, origin, destination,
+            start, end, maxStops));
   }
 
-  private CompletableFuture<List<Connection>> getSingleLegConnections(
+  @Override
+  public CompletableFuture<PartialConnections> findInterconnections(
       String departure,
       String arrival,
       LocalDateTime departureDateTime,
-      LocalDateTime arrivalDateTime) {
-    return routeQueryService.existsDirectRoute(departure, arrival)
-        .thenApply(valid -> {
-              log.atInfo().setMessage("Single leg connections from {} to {} are {}")
-                  .addArgument(departure)
-                  .addArgument(arrival)
-                  .addArgument(valid ? "EXISTING" : "NOT EXISTING")
-                  .log();
-              return valid;
-            }
-        )
-        .thenCompose(valid ->
-            valid
-                ? scheduleQueryService.findFlightSlots(departure, arrival, departureDateTime, arrivalDateTime)
-                : CompletableFuture.completedFuture(Collections.emptyList()))
-        .thenApply(slots ->
-            slots.stream()
-                .map(slot -> connectionMapper.toSingleLegConnection(departure, arrival, slot))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .toList());
+      LocalDateTime arrivalDateTime,
+      int maxStops,
+      Deadline deadline) {
+
+    connectionSearch.validateMaxStops(maxStops);
+    String origin = AirportDictionary.normalize(departure);
+    String destination = AirportDictionary.normalize(arrival);
+    CancellationScope scope = new CancellationScope();
+    BestEffortSchedules bestEffort = new BestEffortSchedules(scheduleQueryService, deadline, scope);
+    return connectionSearch.collect(scope, bestEffort, origin, destination, departureDateTime, arrivalDateTime,
+            maxStops)
+        .thenApply(connections -> bestEffort.toPartial(origin, destination, connections));
   }
 
-  private CompletableFuture<List<Connection>> getMultiLegConnections(
+  @Override
+  public List<CompletableFuture<List<Connection>>> findInterconnectionsBatch(List<InterconnectionQuery> queries) {
+    return batchSearch.findInterconnections(queries);
+  }
+
+  @Override
+  public CompletableFuture<ConnectionPage> findInterconnections(
       String departure,
       String arrival,
-      LocalDateTime minimumDepartureTime,
-      LocalDateTime maximumArrivalTime) {
-
-    return routeQueryService.intermediateAirports(departure, arrival)
-        .thenApply(set -> {
-          log.atInfo().setMessage("Finding multi-leg connections from {} to {} with common airports: {}")
-              .addArgument(departure)
-              .addArgument(arrival)
-              .addArgument(set.size())
-              .log();
-          return set;
-        })
-        .thenCompose(set -> {
-          List<CompletableFuture<List<Connection>>> futures = set.stream()
-              .map(intermediate -> buildConnectionsVia(departure, intermediate, arrival, minimumDepartureTime,
-                  maximumArrivalTime))
-              .toList();
-
-          return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-              .thenApply(v -> futures.stream()
-                  .flatMap(f -> f.join().stream())
-                  .toList());
-        });
+      LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime,
+      int maxStops,
+      PageRequest pageRequest) {
+
+    connectionSearch.validateMaxStops(maxStops);
+    int limit = pageRequest.limit().orElse(maxPageSize);
+    if (limit > maxPageSize) {
+      throw new InvalidRequestException(
+          "Invalid value '%d' for parameter 'limit'. Expected a value between 1 and %d".formatted(limit, maxPageSize));
+    }
+    TopConnections top = new TopConnections(pageRequest.order(), pageRequest.after(), limit);
+
+    // Every connection goes straight into the heap as it is found, whatever its number of stops
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(connectionSearch.search(scope, scheduleQueryService, AirportDictionary.normalize(departure),
+            AirportDictionary.normalize(arrival), departureDateTime, arrivalDateTime, maxStops, false, top)
+        .thenApply(v -> top.page()));
   }
 
-  private CompletableFuture<List<Connection>> buildConnectionsVia(
+  @Override
+  public CompletableFuture<Void> streamInterconnections(
       String departure,
-      String intermediate,
       String arrival,
-      LocalDateTime minimumDepartureTime,
-      LocalDateTime maximumArrivalTime) {
-
-    CompletableFuture<List<FlightSlot>> firstLegFut = scheduleQueryService.findFlightSlots(
-        departure, intermediate, minimumDepartureTime, maximumArrivalTime);
-
-    CompletableFuture<List<FlightSlot>> secondLegFut = scheduleQueryService.findFlightSlots(
-        intermediate, arrival, minimumDepartureTime, maximumArrivalTime);
-
-    return firstLegFut.thenCombine(secondLegFut, (firstSlots, secondSlots) -> {
-      List<Connection> connections = new ArrayList<>();
-      for (FlightSlot firstSlot : firstSlots) {
-        for (FlightSlot secondSlot : secondSlots) {
-          if (isValidConnection(firstSlot, secondSlot)) {
-            connectionMapper.toMultiLegConnection(
-                    departure, intermediate, arrival, firstSlot, secondSlot)
-                .ifPresent(connections::add);
-          }
-        }
-      }
-      return connections;
-    });
+      LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime,
+      int maxStops,
+      Consumer<List<Connection>> sink) {
+
+    connectionSearch.validateMaxStops(maxStops);
+    Consumer<List<Connection>> emitter = SerializedSink.of(sink, List::isEmpty);
+
+    // Connections found before the ones with fewer stops are emitted wait for them, to keep the order
+    CancellationScope scope = new CancellationScope();
+    return scope.bind(connectionSearch.search(scope, scheduleQueryService, AirportDictionary.normalize(departure),
+        AirportDictionary.normalize(arrival), departureDateTime, arrivalDateTime, maxStops, true,
+        connection -> emitter.accept(List.of(connection))));
   }
 
-  private boolean isValidConnection(FlightSlot firstSlot, FlightSlot secondSlot) {
-    return flightConnectionValidators.stream()
-        .allMatch(validator -> validator.isValidConnection(firstSlot, secondSlot));
+  @Override
+  public CompletableFuture<Void> streamInterconnectionsFrom(
+      String departure,
+      LocalDateTime departureDateTime,
+      LocalDateTime arrivalDateTime,
+      int maxStops,
+      Consumer<DestinationConnections> sink) {
+    return anywhereSearch.findDestinations(AirportDictionary.normalize(departure), departureDateTime, arrivalDateTime,
+        maxStops, sink);
   }
 }
-
-
@@ -1,69 +1,120 @@
 package com.ryanair.interconnector.service.impl;
 
-import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
 import com.ryanair.interconnector.client.CachedSchedulesProvider;
+import com.ryanair.interconnector.concurrent.CancellationScope;
 import com.ryanair.interconnector.dto.FlightSlot;
-import com.ryanair.interconnector.mapping.ScheduleMapper;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.search.SourceVersions;
 import com.ryanair.interconnector.service.ScheduleQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
  * Implementation of the ScheduleQueryService that retrieves flight slots for a given route. This service uses a cached
- * provider to fetch schedules to provide a better performance and an executor to handle asynchronous operations in a
- * better way.
+ * provider to fetch schedules to provide a better performance, which already loads the missing months asynchronously.
+ * The returned slots are read-only lists of the slots of the window only, sorted by departure. Cancelling the returned
+ * future cancels the loads of the months still pending, which the provider only aborts once no other caller waits for
+ * them.
  */
 
 @Service
 public class ScheduleQueryServiceImpl implements ScheduleQueryService {
 
   private final CachedSchedulesProvider schedulesProvider;
-  private final ScheduleMapper scheduleMapper;
-  private final Executor externalApiExecutor;
+  private final MonthLoader monthLoader;
 
   @Autowired
-  public ScheduleQueryServiceImpl(CachedSchedulesProvider schedulesProvider, ScheduleMapper scheduleMapper,
-      @Qualifier("externalApiExecutor") Executor externalApiExecutor) {
+  public ScheduleQueryServiceImpl(CachedSchedulesProvider schedulesProvider) {
     this.schedulesProvider = schedulesProvider;
-    this.scheduleMapper = scheduleMapper;
-    this.externalApiExecutor = externalApiExecutor;
+    this.monthLoader = schedulesProvider::getScheduleCached;
+  }
+
+  /**
+   * Keeps the month of every route loaded for the batch, even if the cache evicts it meanwhile. Each search gets its
+   * own copy, so one of them cancelling does not cancel the month for the rest of the batch, while the shared loads
+   * belong to the batch and are only cancelled along with it. A month failing only fails the searches needing it.
+   */
+  @Override
+  public ScheduleQueryService batchView(CancellationScope batchScope) {
+    Map<MonthKey, CompletableFuture<MonthlySlots>> loaded = new ConcurrentHashMap<>();
+    MonthLoader batchLoader = (from, to, year, month) -> loaded.computeIfAbsent(new MonthKey(from, to, year, month),
+        key -> batchScope.trackOptional(monthLoader.load(from, to, year, month))).copy();
+    return (from, to, start, end) -> findFlightSlots(batchLoader, from, to, start, end);
+  }
+
+  /**
+   * Records every month looked up along with the slots it got, which stay current for as long as the cache holds those
+   * same slots for the month.
+   */
+  @Override
+  public ScheduleQueryService versionedView(SourceVersions versions) {
+    MonthLoader versionedLoader = (from, to, year, month) -> {
+      CompletableFuture<MonthlySlots> load = monthLoader.load(from, to, year, month);
+      load.thenAccept(slots -> versions.record(new MonthKey(from, to, year, month),
+          () -> schedulesProvider.isCached(from, to, year, month, slots)));
+      return load;
+    };
+    return (from, to, start, end) -> findFlightSlots(versionedLoader, from, to, start, end);
   }
 
   @Override
   public CompletableFuture<List<FlightSlot>> findFlightSlots(String from, String to, LocalDateTime start,
       LocalDateTime end) {
+    return findFlightSlots(monthLoader, from, to, start, end);
+  }
+
+  private static CompletableFuture<List<FlightSlot>> findFlightSlots(MonthLoader loader, String from, String to,
+      LocalDateTime start, LocalDateTime end) {
     YearMonth startMonth = YearMonth.from(start);
     YearMonth endMonth = YearMonth.from(end);
 
     List<YearMonth> months =
         Stream.iterate(startMonth, month -> !month.isAfter(endMonth), month -> month.plusMonths(1)).toList();
 
+    CancellationScope scope = new CancellationScope();
     List<CompletableFuture<List<FlightSlot>>> futures =
-        months.stream().map(month -> fetchMonthAsync(from, to, month, start, end)).toList();
+        months.stream().map(month -> fetchMonthAsync(loader, scope, from, to, month, start, end)).toList();
 
-    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-        .thenApply(v -> futures.stream().flatMap(f -> f.join().stream()).toList());
+    if (futures.size() == 1) {
+      return scope.bind(futures.get(0));
+    }
+    return scope.bind(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(v -> concat(futures)));
   }
 
-  private CompletableFuture<List<FlightSlot>> fetchMonthAsync(String from, String to, YearMonth month,
-      LocalDateTime start, LocalDateTime end) {
-    return CompletableFuture.supplyAsync(() -> {
-      ScheduleResponse response = schedulesProvider.getScheduleCached(from, to, month.getYear(), month.getMonthValue());
-      List<FlightSlot> slots = scheduleMapper.toFlightSlots(month.getYear(), response);
-      return slots.stream()
-          .filter(slot -> !slot.departureDateTime().isBefore(start) && !slot.arrivalDateTime().isAfter(end))
-          .toList();
-    }, externalApiExecutor);
+  // Consecutive months one after the other, so the result keeps sorted by departure
+  private static List<FlightSlot> concat(List<CompletableFuture<List<FlightSlot>>> months) {
+    List<List<FlightSlot>> windows = months.stream().map(CompletableFuture::join).toList();
+    List<FlightSlot> slots = new ArrayList<>(windows.stream().mapToInt(List::size).sum());
+    windows.forEach(slots::addAll);
+    return Collections.unmodifiableList(slots);
   }
 
-}
+  private static CompletableFuture<List<FlightSlot>> fetchMonthAsync(MonthLoader loader, CancellationScope scope,
+      String from, String to, YearMonth month, LocalDateTime start, LocalDateTime end) {
+    return scope.track(loader.load(from, to, month.getYear(), month.getMonthValue()))
+        .thenApply(slots -> {
+          if (slots == null) {
+            return List.of();
+          }
+          return slots.window(MonthlySlots.toEpochMinuteCeil(start), MonthlySlots.toEpochMinute(end));
+        });
+  }
 
+  @FunctionalInterface
+  private interface MonthLoader {
 
+    CompletableFuture<MonthlySlots> load(String from, String to, int year, int month);
+  }
 
+  private record MonthKey(String from, String to, int year, int month) { }
+}
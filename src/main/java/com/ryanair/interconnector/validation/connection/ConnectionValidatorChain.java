@@ -0,0 +1,49 @@
+package com.ryanair.interconnector.validation.connection;
+
+import com.ryanair.interconnector.dto.FlightSlot;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Validators of a connection compiled once into a single check, meant to be built at startup from the injected ones.
+ * The validators are flattened into an array walked by a plain loop, so checking a candidate in the innermost loop of
+ * the search does not allocate, and their pruning bounds are folded into the strictest one.
+ */
+public final class ConnectionValidatorChain implements FlightConnectionValidator {
+
+  private final FlightConnectionValidator[] validators;
+  private final Duration minimumLayover;
+
+  private ConnectionValidatorChain(FlightConnectionValidator[] validators, Duration minimumLayover) {
+    this.validators = validators;
+    this.minimumLayover = minimumLayover;
+  }
+
+  public static ConnectionValidatorChain of(List<FlightConnectionValidator> validators) {
+    Duration minimumLayover = Duration.ZERO;
+    for (FlightConnectionValidator validator : validators) {
+      if (validator.minimumLayover().compareTo(minimumLayover) > 0) {
+        minimumLayover = validator.minimumLayover();
+      }
+    }
+    return new ConnectionValidatorChain(validators.toArray(new FlightConnectionValidator[0]), minimumLayover);
+  }
+
+  @Override
+  public boolean isValidConnection(FlightSlot firstSlot, FlightSlot secondSlot) {
+    for (FlightConnectionValidator validator : validators) {
+      if (!validator.isValidConnection(firstSlot, secondSlot)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The strictest minimum layover of the validators, as a connection has to pass all of them
+   */
+  @Override
+  public Duration minimumLayover() {
+    return minimumLayover;
+  }
+}
@@ -1,6 +1,7 @@
 package com.ryanair.interconnector.validation.connection;
 
 import com.ryanair.interconnector.dto.FlightSlot;
+import java.time.Duration;
 
 /**
  * Interface for validating flight connections.
@@ -15,4 +16,13 @@ public interface FlightConnectionValidator {
    * @return true if the connection is valid, false otherwise
    */
   boolean isValidConnection(FlightSlot firstSlot, FlightSlot secondSlot);
+
+  /**
+   * Cheap pruning bound of the validator: any connection whose second slot departs less than this after the arrival of
+   * the first one is rejected, so the search can skip those candidates wholesale instead of checking them one by one.
+   * @return The minimum layover enforced by the validator, zero if it does not enforce any
+   */
+  default Duration minimumLayover() {
+    return Duration.ZERO;
+  }
 }
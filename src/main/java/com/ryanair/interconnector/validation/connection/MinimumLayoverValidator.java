@@ -29,4 +29,9 @@ public class MinimumLayoverValidator implements  FlightConnectionValidator {
         .plus(minConnectionTime)
         .isAfter(secondSlot.departureDateTime());
   }
+
+  @Override
+  public Duration minimumLayover() {
+    return minConnectionTime;
+  }
 }
@@ -0,0 +1,31 @@
+package com.ryanair.interconnector.validation.route;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import java.util.List;
+
+/**
+ * Validators of a route compiled once into a single check, meant to be built at startup from the injected ones.
+ * The validators are flattened into an array walked by a plain loop, so checking every route does not allocate.
+ */
+public final class RouteValidatorChain implements RouteValidator {
+
+  private final RouteValidator[] validators;
+
+  private RouteValidatorChain(RouteValidator[] validators) {
+    this.validators = validators;
+  }
+
+  public static RouteValidatorChain of(List<RouteValidator> validators) {
+    return new RouteValidatorChain(validators.toArray(new RouteValidator[0]));
+  }
+
+  @Override
+  public boolean isValidRoute(Route route) {
+    for (RouteValidator validator : validators) {
+      if (!validator.isValidRoute(route)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
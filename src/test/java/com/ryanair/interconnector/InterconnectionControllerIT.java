@@ -9,17 +9,26 @@ import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
 import com.ryanair.interconnectingflights.model.Connection;
 import com.ryanair.interconnectingflights.model.Error;
+import com.ryanair.interconnectingflights.model.InterconnectionBatchResponse;
+import com.ryanair.interconnectingflights.model.InterconnectionResult;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
 import com.ryanair.interconnector.exception.ErrorType;
+import com.ryanair.interconnector.search.DestinationConnections;
 import com.ryanair.interconnector.testutils.InterconnectionTestScenario;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.restassured.common.mapper.TypeRef;
+import io.restassured.response.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.parallel.Execution;
@@ -32,12 +41,19 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.wiremock.spring.ConfigureWireMock;
 import org.wiremock.spring.EnableWireMock;
 import org.wiremock.spring.InjectWireMock;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 @Execution(ExecutionMode.SAME_THREAD)
@@ -46,14 +62,26 @@ import java.util.List;
 })
 @TestPropertySource(properties = {
     "ryanair.api.routes.url=http://localhost:${wiremock.server.port}",
-    "ryanair.api.schedules.url=http://localhost:${wiremock.server.port}"
+    "ryanair.api.schedules.url=http://localhost:${wiremock.server.port}",
+    "external.api.client.request-timeout=PT1S",
+    "external.api.transport.clients[routesClient].read-timeout=PT1S",
+    // The circuits outlive every test, so the upstream failures stubbed by some tests never open them for the rest
+    "external.api.circuit-breaker.schedules.window-size=1000",
+    "external.api.circuit-breaker.schedules.minimum-calls=1000",
+    "external.api.circuit-breaker.routes.window-size=1000",
+    "external.api.circuit-breaker.routes.minimum-calls=1000"
 })
 @Slf4j
 class InterconnectionControllerIT {
 
   private static final String API_PATH = "/v1/interconnections";
+  private static final String STREAM_API_PATH = "/v1/interconnections/stream";
+  private static final String BATCH_API_PATH = "/v1/interconnections/batch";
+  private static final String ANYWHERE_API_PATH = "/v1/interconnections/anywhere";
   private static final String ROUTES_API_PATH = "/views/locate/3/routes";
   private static final String SCHEDULES_API_PATH = "/timtbl/3/schedules/{origin}/{destination}/years/{year}/months/{month}";
+  // Well above the timeouts of the clients in these tests
+  private static final int SLOW_UPSTREAM_DELAY_MS = 3000;
 
   @LocalServerPort
   int port;
@@ -65,6 +93,15 @@ class InterconnectionControllerIT {
   @Autowired
   private CacheManager cacheManager;
 
+  @Autowired
+  private RoutesSnapshotProvider routesSnapshotProvider;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @BeforeEach
   void setup() {
     wireMock.resetToDefaultMappings();
@@ -78,6 +115,7 @@ class InterconnectionControllerIT {
         cache.clear();
       }
     });
+    routesSnapshotProvider.evict();
   }
 
   private List<Connection> callApiWithGivenScenarioOK(InterconnectionTestScenario scenario) {
@@ -119,6 +157,237 @@ class InterconnectionControllerIT {
     assertEquals(serveEvents, serveEventsSecondCall);
   }
 
+  private Response callApiForPage(InterconnectionTestScenario scenario, String cursor) {
+    var request = given()
+        .port(port)
+        .params(scenario.asQueryParams())
+        .param("sort", "departure")
+        .param("limit", 1);
+    if (cursor != null) {
+      request = request.param("cursor", cursor);
+    }
+    return request
+        .when()
+        .get(API_PATH)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .extract()
+        .response();
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldPageConnectionsSortedByDeparture(InterconnectionTestScenario scenario) {
+    List<Connection> expected = scenario.expectedConnections().stream()
+        .sorted(Comparator.comparing(connection -> connection.getLegs().get(0).getDepartureDateTime()))
+        .toList();
+
+    Response first = callApiForPage(scenario, null);
+    String cursor = first.getHeader("X-Next-Cursor");
+    assertNotNull(cursor);
+    assertEquals(expected.subList(0, 1), first.as(new TypeRef<List<Connection>>() {}));
+
+    Response second = callApiForPage(scenario, cursor);
+    assertNull(second.getHeader("X-Next-Cursor"));
+    assertEquals(expected.subList(1, 2), second.as(new TypeRef<List<Connection>>() {}));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldStreamConnectionsAsNdjson(InterconnectionTestScenario scenario) throws JsonProcessingException {
+    String body = given()
+        .port(port)
+        .accept(MediaType.APPLICATION_NDJSON_VALUE)
+        .params(scenario.asQueryParams())
+        .when()
+        .get(STREAM_API_PATH)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+        .extract()
+        .asString();
+
+    List<Connection> actual = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      actual.add(objectMapper.readValue(line, Connection.class));
+    }
+    assertEquals(scenario.expectedConnections(), actual);
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldStreamEveryDestinationAsNdjson(InterconnectionTestScenario scenario) throws JsonProcessingException {
+    String body = given()
+        .port(port)
+        .accept(MediaType.APPLICATION_NDJSON_VALUE)
+        .param("departure", scenario.departure())
+        .param("departureDateTime", scenario.departureDateTime())
+        .param("arrivalDateTime", scenario.arrivalDateTime())
+        .when()
+        .get(ANYWHERE_API_PATH)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+        .extract()
+        .asString();
+
+    Map<String, List<Connection>> actual = new HashMap<>();
+    for (String line : body.split("\n")) {
+      DestinationConnections destination = objectMapper.readValue(line, DestinationConnections.class);
+      actual.put(destination.arrival(), destination.connections());
+    }
+    assertEquals(Set.of("STN", scenario.arrival()), actual.keySet());
+    assertEquals(scenario.expectedConnections(), actual.get(scenario.arrival()));
+
+    // The first leg to STN serves its direct connections and the ones through it, fetched once
+    Map<String, Long> callsPerUrl = wireMock.getAllServeEvents().stream()
+        .collect(Collectors.groupingBy(event -> event.getRequest().getUrl(), Collectors.counting()));
+    assertTrue(callsPerUrl.values().stream().allMatch(calls -> calls == 1));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#invalidRequests")
+  void shouldReturnJsonBadRequestWhenStreamingInvalidRequests(InterconnectionTestScenario testScenario) {
+    Error error = given()
+        .port(port)
+        .accept(MediaType.APPLICATION_NDJSON_VALUE)
+        .params(testScenario.asQueryParams())
+        .when()
+        .get(STREAM_API_PATH)
+        .then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .extract()
+        .as(Error.class);
+    assertEquals(ErrorType.INVALID_REQUEST.getCode(), error.getCode());
+    verify(0, anyRequestedFor(anyUrl()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldReturnGatewayTimeoutWhenDeadlineExpires(InterconnectionTestScenario scenario) {
+    // Arrange (Schedules API slower than the deadline, failing so a late answer is never cached)
+    wireMock.stubFor(WireMock.get(urlPathTemplate(SCHEDULES_API_PATH))
+        .atPriority(1)
+        .willReturn(WireMock.aResponse()
+            .withFixedDelay(2000)
+            .withStatus(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+
+    Error error = given()
+        .port(port)
+        .header("X-Request-Timeout", "PT0.3S")
+        .params(scenario.asQueryParams())
+        .when()
+        .get(API_PATH)
+        .then()
+        .statusCode(HttpStatus.GATEWAY_TIMEOUT.value())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .extract()
+        .as(Error.class);
+    assertEquals(ErrorType.DEADLINE_EXCEEDED.getCode(), error.getCode());
+    assertEquals(ErrorType.DEADLINE_EXCEEDED.getMessage(), error.getMessage());
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldReturnPartialResultsByDeadline(InterconnectionTestScenario scenario) {
+    // Arrange (first legs of the stopovers slower than the deadline)
+    wireMock.stubFor(WireMock.get(urlPathTemplate(SCHEDULES_API_PATH))
+        .atPriority(1)
+        .withPathParam("origin", WireMock.equalTo(scenario.departure()))
+        .withPathParam("destination", WireMock.notContaining(scenario.arrival()))
+        .willReturn(WireMock.aResponse()
+            .withFixedDelay(2000)
+            .withStatus(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+
+    Response response = given()
+        .port(port)
+        .header("X-Request-Timeout", "PT0.5S")
+        .params(scenario.asQueryParams())
+        .param("partial", true)
+        .when()
+        .get(API_PATH)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .extract()
+        .response();
+
+    List<Connection> expected = scenario.expectedConnections().stream()
+        .filter(connection -> connection.getStops() == 0)
+        .toList();
+    assertEquals(expected, response.as(new TypeRef<List<Connection>>() {}));
+    assertEquals("partial", response.getHeader("X-Result-Completeness"));
+    assertNotNull(response.getHeader("X-Skipped-Intermediates"));
+    assertNotNull(response.getHeader("X-Skipped-Months"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldReturnBadRequestForInvalidRequestTimeout(InterconnectionTestScenario scenario) {
+    Error error = given()
+        .port(port)
+        .header("X-Request-Timeout", "10 seconds")
+        .params(scenario.asQueryParams())
+        .when()
+        .get(API_PATH)
+        .then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .extract()
+        .as(Error.class);
+    assertEquals(ErrorType.INVALID_REQUEST.getCode(), error.getCode());
+    verify(0, anyRequestedFor(anyUrl()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldAnswerBatchFetchingEachScheduleMonthOnce(InterconnectionTestScenario scenario) {
+    Map<String, Object> query = new HashMap<>(scenario.asQueryParams());
+    Map<String, Object> unsupported = new HashMap<>(query);
+    unsupported.put("maxStops", 5);
+
+    InterconnectionBatchResponse response = given()
+        .port(port)
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .body(Map.of("queries", List.of(query, query, unsupported)))
+        .when()
+        .post(BATCH_API_PATH)
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .extract()
+        .as(InterconnectionBatchResponse.class);
+
+    List<InterconnectionResult> results = response.getResults();
+    assertEquals(3, results.size());
+    assertEquals(scenario.expectedConnections(), results.get(0).getConnections());
+    assertEquals(scenario.expectedConnections(), results.get(1).getConnections());
+    assertEquals(ErrorType.INVALID_REQUEST.getCode(), results.get(2).getError().getCode());
+
+    // Both queries need the same schedule months, fetched once for the batch
+    Map<String, Long> callsPerUrl = wireMock.getAllServeEvents().stream()
+        .collect(Collectors.groupingBy(event -> event.getRequest().getUrl(), Collectors.counting()));
+    assertTrue(callsPerUrl.values().stream().allMatch(calls -> calls == 1));
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldReturnBadRequestForMalformedBatch(InterconnectionTestScenario scenario) {
+    Map<String, Object> query = new HashMap<>(scenario.asQueryParams());
+    query.put("departureDateTime", "2023-06-01");
+
+    Error error = given()
+        .port(port)
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .body(Map.of("queries", List.of(query)))
+        .when()
+        .post(BATCH_API_PATH)
+        .then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .extract()
+        .as(Error.class);
+    assertEquals(ErrorType.INVALID_REQUEST.getCode(), error.getCode());
+    verify(0, anyRequestedFor(anyUrl()));
+  }
+
   @ParameterizedTest
   @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#emptyResults")
   void shouldReturnEmptyListForNoMatchingConnections(InterconnectionTestScenario testScenario) {
@@ -190,4 +459,55 @@ class InterconnectionControllerIT {
         .withPathParam("year", WireMock.equalTo(String.valueOf(yearMonth.getYear())))
         .withPathParam("month", WireMock.equalTo(String.valueOf(yearMonth.getMonthValue()))));
   }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldFailFastWhenRoutesApiIsSlow(InterconnectionTestScenario scenario) {
+    // Arrange (Routes API answering well after the read timeout of its client)
+    wireMock.stubFor(WireMock.get(urlPathEqualTo(ROUTES_API_PATH))
+        .atPriority(1)
+        .willReturn(WireMock.aResponse()
+            .withFixedDelay(SLOW_UPSTREAM_DELAY_MS)
+            .withStatus(HttpStatus.OK.value())
+            .withBody("[]")));
+
+    long start = System.nanoTime();
+    Error error = callApiWithGivenScenarioError(scenario, HttpStatus.BAD_GATEWAY);
+    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(ErrorType.EXTERNAL_API_ERROR.getCode(), error.getCode());
+    assertTrue(elapsedMs < SLOW_UPSTREAM_DELAY_MS, "Waited " + elapsedMs + " ms for a slow Routes API");
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldFailFastWhenSchedulesApiIsSlow(InterconnectionTestScenario scenario) {
+    // Arrange (Schedules API answering well after the request timeout, failing so a late answer is never cached)
+    wireMock.stubFor(WireMock.get(urlPathTemplate(SCHEDULES_API_PATH))
+        .atPriority(1)
+        .willReturn(WireMock.aResponse()
+            .withFixedDelay(SLOW_UPSTREAM_DELAY_MS)
+            .withStatus(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+
+    long start = System.nanoTime();
+    Error error = callApiWithGivenScenarioError(scenario, HttpStatus.BAD_GATEWAY);
+    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(ErrorType.EXTERNAL_API_ERROR.getCode(), error.getCode());
+    assertTrue(elapsedMs < SLOW_UPSTREAM_DELAY_MS, "Waited " + elapsedMs + " ms for a slow Schedules API");
+  }
+
+  @ParameterizedTest
+  @MethodSource("com.ryanair.interconnector.testutils.InterconnectionTestScenario#withDirectAndStopover")
+  void shouldExposeConnectionPoolMetricsOfFeignClients(InterconnectionTestScenario scenario) {
+    callApiWithGivenScenarioOK(scenario);
+
+    assertEquals(2, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+        .tag("httpclient", "routesClient")
+        .gauge()
+        .value());
+    assertNotNull(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+        .tag("httpclient", "schedulesClient")
+        .gauge());
+  }
 }
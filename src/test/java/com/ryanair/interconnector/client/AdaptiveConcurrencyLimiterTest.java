@@ -0,0 +1,203 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnector.config.ExternalApiLimiterProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final String PREFIX = "interconnector.test.limiter";
+  private static final Duration THRESHOLD = Duration.ofSeconds(1);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong nanos = new AtomicLong();
+  // Expiries of the waiting calls, only run when the test says so
+  private final List<Runnable> expiries = new ArrayList<>();
+  // Calls started by the limiter, completed when the test says so
+  private final List<CompletableFuture<String>> started = new ArrayList<>();
+
+  private ExternalApiLimiterProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ExternalApiLimiterProperties();
+    properties.setInitialLimit(2);
+    properties.setMinLimit(1);
+    properties.setMaxLimit(10);
+    properties.setLatencyThreshold(THRESHOLD);
+    properties.setMaxQueued(1);
+  }
+
+  private AdaptiveConcurrencyLimiter buildLimiter() {
+    return new AdaptiveConcurrencyLimiter("Schedules", PREFIX, properties, meterRegistry, nanos::get, expiries::add);
+  }
+
+  private CompletableFuture<String> call(AdaptiveConcurrencyLimiter limiter) {
+    return limiter.execute(() -> {
+      CompletableFuture<String> future = new CompletableFuture<>();
+      started.add(future);
+      return future;
+    });
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get(PREFIX + ".rejected").tag("reason", reason).counter().count();
+  }
+
+  @Test
+  void shouldQueueCallsBeyondLimitAndStartThemAsSlotsAreReleased() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+
+    // Act
+    call(limiter);
+    call(limiter);
+    CompletableFuture<String> queued = call(limiter);
+    int startedAtLimit = started.size();
+    started.get(0).complete("first");
+    started.get(2).complete("queued");
+
+    // Assert
+    assertEquals(2, startedAtLimit);
+    assertEquals("queued", queued.join());
+    assertEquals(1, limiter.inFlight());
+    assertEquals(0, limiter.queued());
+  }
+
+  @Test
+  void shouldRejectRightAwayWhenQueueIsFull() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+    call(limiter);
+    call(limiter);
+    call(limiter);
+
+    // Act
+    CompletableFuture<String> rejected = call(limiter);
+
+    // Assert
+    CompletionException ex = assertThrows(CompletionException.class, rejected::join);
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+    assertEquals(1, rejections("queue_full"));
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  void shouldRejectCallWaitingLongerThanQueueTimeout() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+    call(limiter);
+    call(limiter);
+    CompletableFuture<String> queued = call(limiter);
+
+    // Act
+    expiries.forEach(Runnable::run);
+    started.get(0).complete("first");
+
+    // Assert
+    CompletionException ex = assertThrows(CompletionException.class, queued::join);
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+    assertEquals(1, rejections("queue_timeout"));
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  void shouldCutLimitOnSlowOrFailedCalls() {
+    // Arrange
+    properties.setInitialLimit(10);
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+    call(limiter);
+    call(limiter);
+
+    // Act
+    nanos.addAndGet(THRESHOLD.toNanos() + 1);
+    started.get(0).complete("slow");
+    int afterSlow = limiter.limit();
+    started.get(1).completeExceptionally(new ExternalApiException("Schedules API down", null));
+
+    // Assert
+    assertEquals(9, afterSlow);
+    assertEquals(8, limiter.limit());
+    assertEquals(8, meterRegistry.get(PREFIX + ".limit").gauge().value());
+  }
+
+  @Test
+  void shouldRaiseLimitWhileInUseAndCallsAreFast() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+
+    // Act (two rounds filling the limit, answered within the threshold)
+    for (int round = 0; round < 2; round++) {
+      call(limiter);
+      call(limiter);
+      started.forEach(future -> future.complete("fast"));
+      started.clear();
+    }
+
+    // Assert
+    assertEquals(3, limiter.limit());
+  }
+
+  @Test
+  void shouldNotRaiseLimitWhileUnused() {
+    // Arrange
+    properties.setInitialLimit(4);
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+
+    // Act
+    for (int i = 0; i < 10; i++) {
+      call(limiter);
+      started.get(i).complete("fast");
+    }
+
+    // Assert
+    assertEquals(4, limiter.limit());
+  }
+
+  @Test
+  void shouldCancelStartedCallWhenCancelled() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+    CompletableFuture<String> result = call(limiter);
+
+    // Act
+    result.cancel(true);
+
+    // Assert
+    assertTrue(started.get(0).isCancelled());
+    assertEquals(0, limiter.inFlight());
+    assertEquals(2, limiter.limit());
+  }
+
+  @Test
+  void shouldNeverStartQueuedCallWhenCancelled() {
+    // Arrange
+    AdaptiveConcurrencyLimiter limiter = buildLimiter();
+    call(limiter);
+    call(limiter);
+    CompletableFuture<String> queued = call(limiter);
+
+    // Act
+    queued.cancel(true);
+    started.get(0).complete("first");
+
+    // Assert
+    assertEquals(2, started.size());
+    assertEquals(0, limiter.queued());
+    assertFalse(started.get(1).isDone());
+  }
+}
@@ -0,0 +1,364 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ryanair.interconnectingflights.external.model.DaySchedule;
+import com.ryanair.interconnectingflights.external.model.Flight;
+import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
+import com.ryanair.interconnector.config.ExternalApiCircuitBreakerProperties;
+import com.ryanair.interconnector.config.ExternalApiClientProperties;
+import com.ryanair.interconnector.config.ExternalApiHedgingProperties;
+import com.ryanair.interconnector.config.ExternalApiLimiterProperties;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.mapping.ScheduleMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@ExtendWith(MockitoExtension.class)
+class CachedSchedulesProviderTest {
+
+  private static final String FROM = "DUB";
+  private static final String TO = "WRO";
+  private static final int YEAR = 2023;
+  private static final int MONTH = 6;
+
+  private static final ScheduleResponse RESPONSE = new ScheduleResponse().month(MONTH).days(List.of(
+      new DaySchedule().day(5).flights(List.of(
+          new Flight().departureTime(LocalTime.of(10, 0)).arrivalTime(LocalTime.of(12, 30))))));
+
+  @Mock
+  SchedulesClient schedulesClient;
+  @Mock
+  AsyncSchedulesClient asyncSchedulesClient;
+
+  // Tasks are only run when the test says so, to have several callers while the load is in flight
+  private final List<Runnable> pending = new ArrayList<>();
+
+  private final ExternalApiCircuitBreakerProperties.Circuit schedulesCircuit =
+      new ExternalApiCircuitBreakerProperties.Circuit();
+  private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+      CachedSchedulesProvider.CACHE_NAME, CachedSchedulesProvider.STALE_CACHE_NAME);
+  private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private CachedSchedulesProvider provider;
+
+  @BeforeEach
+  void setUp() {
+    provider = buildProvider(ExternalApiClientProperties.Mode.BLOCKING);
+  }
+
+  private CachedSchedulesProvider buildProvider(ExternalApiClientProperties.Mode mode) {
+    ExternalApiClientProperties clientProperties = new ExternalApiClientProperties();
+    clientProperties.setMode(mode);
+    ExternalApiCircuitBreakerProperties circuitBreakerProperties = new ExternalApiCircuitBreakerProperties();
+    circuitBreakerProperties.setSchedules(schedulesCircuit);
+    return new CachedSchedulesProvider(schedulesClient, asyncSchedulesClient, new ScheduleMapper(), cacheManager,
+        pending::add, meterRegistry, clientProperties, new ExternalApiLimiterProperties(),
+        new ExternalApiHedgingProperties(), circuitBreakerProperties);
+  }
+
+  private void runPending() {
+    List<Runnable> tasks = new ArrayList<>(pending);
+    pending.clear();
+    tasks.forEach(Runnable::run);
+  }
+
+  @Test
+  void shouldCoalesceConcurrentMissesIntoOneCall() {
+    // Arrange
+    when(schedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(RESPONSE);
+
+    // Act
+    CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    assertFalse(first.isDone());
+    assertFalse(second.isDone());
+    runPending();
+
+    // Assert
+    assertSame(first.join(), second.join());
+    assertEquals(1, first.join().size());
+    verify(schedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH);
+  }
+
+  @Test
+  void shouldServeFromCacheOnceLoaded() {
+    // Arrange
+    when(schedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(RESPONSE);
+    CompletableFuture<MonthlySlots> loaded = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    runPending();
+
+    // Act
+    CompletableFuture<MonthlySlots> cached = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+
+    // Assert
+    assertTrue(cached.isDone());
+    assertSame(loaded.join(), cached.join());
+    assertTrue(pending.isEmpty());
+    verify(schedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH);
+  }
+
+  @Test
+  void shouldFailEveryCallerAndRetryOnNextMiss() {
+    // Arrange
+    when(schedulesClient.getSchedule(FROM, TO, YEAR, MONTH))
+        .thenThrow(new ExternalApiException("Schedules API down", null))
+        .thenReturn(RESPONSE);
+
+    // Act
+    CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    runPending();
+    CompletableFuture<MonthlySlots> retry = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    runPending();
+
+    // Assert
+    CompletionException ex = assertThrows(CompletionException.class, first::join);
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+    assertThrows(CompletionException.class, second::join);
+    assertEquals(1, retry.join().size());
+    verify(schedulesClient, times(2)).getSchedule(FROM, TO, YEAR, MONTH);
+  }
+
+  @Test
+  void shouldNotAffectOtherCallersWhenOneCancels() {
+    // Arrange
+    when(schedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(RESPONSE);
+
+    // Act
+    CompletableFuture<MonthlySlots> cancelled = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    CompletableFuture<MonthlySlots> other = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    cancelled.cancel(true);
+    runPending();
+
+    // Assert
+    assertTrue(cancelled.isCancelled());
+    assertEquals(1, other.join().size());
+  }
+
+  @Test
+  void shouldNotCallUpstreamWhenEveryCallerCancels() {
+    // Act
+    CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    first.cancel(true);
+    second.cancel(true);
+    runPending();
+
+    // Assert
+    verifyNoInteractions(schedulesClient);
+  }
+
+  @Test
+  void shouldStartNewLoadAfterEveryCallerCancels() {
+    // Arrange
+    when(schedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(RESPONSE);
+    provider.getScheduleCached(FROM, TO, YEAR, MONTH).cancel(true);
+
+    // Act
+    CompletableFuture<MonthlySlots> retry = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+    runPending();
+
+    // Assert
+    assertEquals(1, retry.join().size());
+    verify(schedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH);
+  }
+
+  @Nested
+  class AsyncMode {
+
+    // Completed when the test says so, as the response of the call in flight
+    private final CompletableFuture<ScheduleResponse> call = new CompletableFuture<>();
+
+    @BeforeEach
+    void setUp() {
+      provider = buildProvider(ExternalApiClientProperties.Mode.ASYNC);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentMissesIntoOneCallWithoutExecutor() {
+      // Arrange
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(call);
+
+      // Act
+      CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      call.complete(RESPONSE);
+      CompletableFuture<MonthlySlots> cached = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+
+      // Assert
+      assertSame(first.join(), second.join());
+      assertSame(first.join(), cached.join());
+      assertTrue(pending.isEmpty());
+      verify(asyncSchedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH);
+      verifyNoInteractions(schedulesClient);
+    }
+
+    @Test
+    void shouldFailEveryCallerWhenCallFails() {
+      // Arrange
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(call);
+
+      // Act
+      CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      call.completeExceptionally(new ExternalApiException("Schedules API down", null));
+
+      // Assert
+      CompletionException ex = assertThrows(CompletionException.class, first::join);
+      assertInstanceOf(ExternalApiException.class, ex.getCause());
+      assertThrows(CompletionException.class, second::join);
+    }
+
+    @Test
+    void shouldAbortCallWhenEveryCallerCancels() {
+      // Arrange
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH)).thenReturn(call);
+
+      // Act
+      CompletableFuture<MonthlySlots> first = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      CompletableFuture<MonthlySlots> second = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      first.cancel(true);
+      boolean abortedAfterFirst = call.isCancelled();
+      second.cancel(true);
+
+      // Assert
+      assertFalse(abortedAfterFirst);
+      assertTrue(call.isCancelled());
+    }
+  }
+
+  @Nested
+  class CircuitOpen {
+
+    private static final ExternalApiException FAILURE = new ExternalApiException("Schedules API down", null);
+
+    // Loaded before the circuit opens, then expired from the cache
+    private MonthlySlots known;
+
+    @BeforeEach
+    void setUp() {
+      // Opens once one of the last two calls has failed
+      schedulesCircuit.setWindowSize(2);
+      schedulesCircuit.setMinimumCalls(2);
+      schedulesCircuit.setOpenDuration(Duration.ofHours(1));
+    }
+
+    private void openCircuit(CompletableFuture<ScheduleResponse> callAfterOpening) {
+      // Fresh, as the gauges already registered would keep reporting the circuit of the provider built first
+      meterRegistry = new SimpleMeterRegistry();
+      provider = buildProvider(ExternalApiClientProperties.Mode.ASYNC);
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH))
+          .thenReturn(CompletableFuture.completedFuture(RESPONSE), callAfterOpening);
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH + 1))
+          .thenReturn(CompletableFuture.failedFuture(FAILURE));
+      known = provider.getScheduleCached(FROM, TO, YEAR, MONTH).join();
+      provider.getScheduleCached(FROM, TO, YEAR, MONTH + 1);
+      cacheManager.getCache(CachedSchedulesProvider.CACHE_NAME).clear();
+    }
+
+    private double circuitState() {
+      return meterRegistry.get("interconnector.circuit.state").tag("upstream", "schedules").gauge().value();
+    }
+
+    @Test
+    void shouldServeLastKnownSlotsWithoutCallingUpstream() {
+      // Arrange
+      openCircuit(new CompletableFuture<>());
+
+      // Act
+      CompletableFuture<MonthlySlots> stale = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+
+      // Assert
+      assertSame(known, stale.join());
+      assertEquals(CircuitBreaker.State.OPEN.ordinal(), circuitState());
+      assertEquals(1, meterRegistry.get("interconnector.schedules.stale.served").counter().count());
+      verify(asyncSchedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH);
+    }
+
+    @Test
+    void shouldFailFastWhenNoSlotsAreKnown() {
+      // Arrange
+      openCircuit(new CompletableFuture<>());
+
+      // Act
+      CompletableFuture<MonthlySlots> unknown = provider.getScheduleCached(FROM, TO, YEAR, MONTH + 2);
+
+      // Assert
+      CompletionException ex = assertThrows(CompletionException.class, unknown::join);
+      assertInstanceOf(ExternalApiException.class, ex.getCause());
+      verify(asyncSchedulesClient, never()).getSchedule(FROM, TO, YEAR, MONTH + 2);
+    }
+
+    @Test
+    void shouldProbeInBackgroundAndCloseCircuitOnceUpstreamAnswers() {
+      // Arrange
+      schedulesCircuit.setOpenDuration(Duration.ZERO);
+      CompletableFuture<ScheduleResponse> probe = new CompletableFuture<>();
+      openCircuit(probe);
+
+      // Act
+      CompletableFuture<MonthlySlots> stale = provider.getScheduleCached(FROM, TO, YEAR, MONTH);
+      boolean servedBeforeProbe = stale.isDone();
+      probe.complete(RESPONSE);
+
+      // Assert
+      assertTrue(servedBeforeProbe);
+      assertSame(known, stale.join());
+      assertEquals(CircuitBreaker.State.CLOSED.ordinal(), circuitState());
+      verify(asyncSchedulesClient, times(2)).getSchedule(FROM, TO, YEAR, MONTH);
+    }
+
+    @Test
+    void shouldNotCloseCircuitOnLoadJoinedByProbe() {
+      // Arrange
+      schedulesCircuit.setOpenDuration(Duration.ZERO);
+      meterRegistry = new SimpleMeterRegistry();
+      provider = buildProvider(ExternalApiClientProperties.Mode.ASYNC);
+      CompletableFuture<ScheduleResponse> startedBeforeOpening = new CompletableFuture<>();
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH))
+          .thenReturn(CompletableFuture.completedFuture(RESPONSE));
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH + 1))
+          .thenReturn(CompletableFuture.failedFuture(FAILURE), CompletableFuture.completedFuture(RESPONSE));
+      when(asyncSchedulesClient.getSchedule(FROM, TO, YEAR, MONTH + 2)).thenReturn(startedBeforeOpening);
+      provider.getScheduleCached(FROM, TO, YEAR, MONTH).join();
+      provider.getScheduleCached(FROM, TO, YEAR, MONTH + 2);
+      provider.getScheduleCached(FROM, TO, YEAR, MONTH + 1);
+
+      // Act
+      CompletableFuture<MonthlySlots> joined = provider.getScheduleCached(FROM, TO, YEAR, MONTH + 2);
+      startedBeforeOpening.complete(RESPONSE);
+      double stateAfterJoinedLoad = circuitState();
+      provider.getScheduleCached(FROM, TO, YEAR, MONTH + 1).join();
+
+      // Assert
+      assertEquals(1, joined.join().size());
+      assertEquals(CircuitBreaker.State.OPEN.ordinal(), stateAfterJoinedLoad);
+      assertEquals(CircuitBreaker.State.CLOSED.ordinal(), circuitState());
+      verify(asyncSchedulesClient, times(1)).getSchedule(FROM, TO, YEAR, MONTH + 2);
+    }
+  }
+}
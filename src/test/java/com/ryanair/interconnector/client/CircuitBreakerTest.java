@@ -0,0 +1,188 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ryanair.interconnector.config.ExternalApiCircuitBreakerProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+  private static final ExternalApiException FAILURE = new ExternalApiException("Routes API down", null);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setUp() {
+    ExternalApiCircuitBreakerProperties.Circuit properties = new ExternalApiCircuitBreakerProperties.Circuit();
+    properties.setWindowSize(4);
+    properties.setMinimumCalls(4);
+    properties.setFailureRateThreshold(0.5);
+    properties.setOpenDuration(OPEN_DURATION);
+    circuitBreaker = new CircuitBreaker("Routes", "routes", properties, meterRegistry, nanos::get);
+  }
+
+  private String succeed() {
+    calls.incrementAndGet();
+    return "routes";
+  }
+
+  private String fail() {
+    calls.incrementAndGet();
+    throw FAILURE;
+  }
+
+  private void failOnce() {
+    assertThrows(ExternalApiException.class, () -> circuitBreaker.call(this::fail));
+  }
+
+  private void openCircuit() {
+    circuitBreaker.call(this::succeed);
+    circuitBreaker.call(this::succeed);
+    failOnce();
+    failOnce();
+  }
+
+  @Test
+  void shouldStayClosedBelowFailureRateOrMinimumCalls() {
+    // Act
+    failOnce();
+    failOnce();
+    failOnce();
+    circuitBreaker.call(this::succeed);
+    circuitBreaker.call(this::succeed);
+    circuitBreaker.call(this::succeed);
+    failOnce();
+
+    // Assert (3 failures before the minimum calls, then 1 out of the last 4 calls)
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  @Test
+  void shouldOpenAtFailureRateAndRejectCallsWithoutMakingThem() {
+    // Arrange
+    openCircuit();
+
+    // Act
+    ExternalApiException ex = assertThrows(ExternalApiException.class, () -> circuitBreaker.call(this::succeed));
+
+    // Assert
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertEquals("[Routes API] circuit open, call not made", ex.getMessage());
+    assertEquals(4, calls.get());
+    assertEquals(1, meterRegistry.get("interconnector.circuit.rejected").tag("upstream", "routes").counter().count());
+  }
+
+  @Test
+  void shouldCloseOnceProbeAfterOpenDurationSucceeds() {
+    // Arrange
+    openCircuit();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+
+    // Act
+    CircuitBreaker.Permit permit = circuitBreaker.acquire();
+    CircuitBreaker.Permit whileProbing = circuitBreaker.acquire();
+    circuitBreaker.record(CompletableFuture.completedFuture("routes"), permit);
+
+    // Assert
+    assertEquals(CircuitBreaker.Permission.PROBE, permit.permission());
+    assertEquals(CircuitBreaker.Permission.REJECTED, whileProbing.permission());
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    assertEquals(CircuitBreaker.Permission.CALL, circuitBreaker.acquire().permission());
+  }
+
+  @Test
+  void shouldLeaveDecisionToProbeWhenOtherCallsCompleteMeanwhile() {
+    // Arrange
+    CompletableFuture<String> startedBeforeOpening = new CompletableFuture<>();
+    CompletableFuture<String> failingBeforeOpening = new CompletableFuture<>();
+    circuitBreaker.record(startedBeforeOpening, circuitBreaker.acquire());
+    circuitBreaker.record(failingBeforeOpening, circuitBreaker.acquire());
+    openCircuit();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    CircuitBreaker.Permit probe = circuitBreaker.acquire();
+
+    // Act
+    startedBeforeOpening.complete("routes");
+    failingBeforeOpening.completeExceptionally(FAILURE);
+    CircuitBreaker.State beforeProbe = circuitBreaker.state();
+    circuitBreaker.record(CompletableFuture.completedFuture("routes"), probe);
+
+    // Assert
+    assertEquals(CircuitBreaker.State.HALF_OPEN, beforeProbe);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  @Test
+  void shouldLetNextCallProbeWhenProbeIsNotMade() {
+    // Arrange
+    openCircuit();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    CircuitBreaker.Permit notMade = circuitBreaker.acquire();
+
+    // Act
+    circuitBreaker.release(notMade);
+    CircuitBreaker.Permit next = circuitBreaker.acquire();
+    circuitBreaker.record(CompletableFuture.completedFuture("routes"), notMade);
+
+    // Assert
+    assertEquals(CircuitBreaker.Permission.PROBE, next.permission());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+  }
+
+  @Test
+  void shouldOpenAgainWhenProbeFails() {
+    // Arrange
+    openCircuit();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+
+    // Act
+    failOnce();
+
+    // Assert
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertEquals(CircuitBreaker.Permission.REJECTED, circuitBreaker.acquire().permission());
+  }
+
+  @Test
+  void shouldLetNewProbeThroughWhenPreviousOneNeverReportsBack() {
+    // Arrange
+    openCircuit();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    CompletableFuture<String> cancelled = circuitBreaker.record(new CompletableFuture<>(), circuitBreaker.acquire());
+    cancelled.cancel(true);
+
+    // Act
+    CircuitBreaker.Permit beforeOpenDuration = circuitBreaker.acquire();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    CircuitBreaker.Permit afterOpenDuration = circuitBreaker.acquire();
+
+    // Assert
+    assertEquals(CircuitBreaker.Permission.REJECTED, beforeOpenDuration.permission());
+    assertEquals(CircuitBreaker.Permission.PROBE, afterOpenDuration.permission());
+  }
+
+  @Test
+  void shouldExposeStateAsMetric() {
+    // Arrange
+    openCircuit();
+
+    // Act
+    double state = meterRegistry.get("interconnector.circuit.state").tag("upstream", "routes").gauge().value();
+
+    // Assert
+    assertEquals(CircuitBreaker.State.OPEN.ordinal(), state);
+  }
+}
@@ -0,0 +1,58 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.ryanair.interconnector.exception.ExternalApiException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+class ExternalApiTransportClientTest {
+
+  private static final Request REQUEST = Request.create(Request.HttpMethod.GET,
+      "http://localhost/timtbl/3/schedules/DUB/WRO/years/2023/months/6", Map.of(), null, StandardCharsets.UTF_8, null);
+  private static final Request.Options OPTIONS = new Request.Options();
+
+  @Mock
+  Client delegate;
+
+  @Test
+  void shouldReturnResponseOfDelegate() throws IOException {
+    // Arrange
+    Response response = Response.builder().request(REQUEST).status(500).headers(Map.of()).build();
+    when(delegate.execute(REQUEST, OPTIONS)).thenReturn(response);
+
+    // Act
+    Response result = new ExternalApiTransportClient("Schedules", delegate).execute(REQUEST, OPTIONS);
+
+    // Assert
+    assertSame(response, result);
+  }
+
+  @Test
+  void shouldReportCallWithoutResponseAsExternalApiException() throws IOException {
+    // Arrange
+    SocketTimeoutException timeout = new SocketTimeoutException("Read timed out");
+    when(delegate.execute(REQUEST, OPTIONS)).thenThrow(timeout);
+    ExternalApiTransportClient client = new ExternalApiTransportClient("Schedules", delegate);
+
+    // Act
+    ExternalApiException ex = assertThrows(ExternalApiException.class, () -> client.execute(REQUEST, OPTIONS));
+
+    // Assert
+    assertSame(timeout, ex.getCause());
+    assertEquals("[Schedules API] call failed (java.net.SocketTimeoutException: Read timed out)", ex.getMessage());
+  }
+}
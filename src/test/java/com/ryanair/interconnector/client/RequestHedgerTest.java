@@ -0,0 +1,215 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnector.config.ExternalApiHedgingProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RequestHedgerTest {
+
+  private static final String PREFIX = "interconnector.test.hedging";
+  private static final Duration INITIAL_DELAY = Duration.ofMillis(500);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong nanos = new AtomicLong();
+  // Hedges scheduled with their delay, only run when the test says so
+  private final List<Runnable> scheduled = new ArrayList<>();
+  private final List<Duration> delays = new ArrayList<>();
+  // Calls sent, completed when the test says so
+  private final List<CompletableFuture<String>> sent = new ArrayList<>();
+
+  private ExternalApiHedgingProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ExternalApiHedgingProperties();
+    properties.setEnabled(true);
+    properties.setInitialDelay(INITIAL_DELAY);
+    properties.setMinDelay(Duration.ZERO);
+  }
+
+  private RequestHedger buildHedger() {
+    return new RequestHedger("Schedules", PREFIX, properties, meterRegistry, nanos::get, (delay, task) -> {
+      delays.add(delay);
+      scheduled.add(task);
+    });
+  }
+
+  private CompletableFuture<String> call(RequestHedger hedger) {
+    return hedger.execute(() -> {
+      CompletableFuture<String> future = new CompletableFuture<>();
+      sent.add(future);
+      return future;
+    });
+  }
+
+  private void runScheduled() {
+    List<Runnable> tasks = new ArrayList<>(scheduled);
+    scheduled.clear();
+    tasks.forEach(Runnable::run);
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(PREFIX + "." + name).counter().count();
+  }
+
+  @Test
+  void shouldNotHedgeCallAnsweringBeforeDelay() {
+    // Arrange
+    CompletableFuture<String> result = call(buildHedger());
+
+    // Act
+    sent.get(0).complete("first");
+    runScheduled();
+
+    // Assert
+    assertEquals("first", result.join());
+    assertEquals(1, sent.size());
+    assertEquals(List.of(INITIAL_DELAY), delays);
+    assertEquals(0, count("hedges"));
+  }
+
+  @Test
+  void shouldHedgeSlowCallAndCancelLoser() {
+    // Arrange
+    CompletableFuture<String> result = call(buildHedger());
+
+    // Act
+    runScheduled();
+    sent.get(1).complete("hedge");
+
+    // Assert
+    assertEquals("hedge", result.join());
+    assertTrue(sent.get(0).isCancelled());
+    assertEquals(1, count("hedges"));
+    assertEquals(1, count("wins"));
+  }
+
+  @Test
+  void shouldKeepWaitingForHedgeWhenHedgedCallFails() {
+    // Arrange
+    CompletableFuture<String> result = call(buildHedger());
+    runScheduled();
+
+    // Act
+    sent.get(0).completeExceptionally(new ExternalApiException("Schedules API down", null));
+    sent.get(1).complete("hedge");
+
+    // Assert
+    assertEquals("hedge", result.join());
+  }
+
+  @Test
+  void shouldFailWithoutHedgingWhenCallFails() {
+    // Arrange
+    CompletableFuture<String> result = call(buildHedger());
+
+    // Act
+    sent.get(0).completeExceptionally(new ExternalApiException("Schedules API down", null));
+    runScheduled();
+
+    // Assert
+    CompletionException ex = assertThrows(CompletionException.class, result::join);
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+    assertEquals(1, sent.size());
+  }
+
+  @Test
+  void shouldCapHedgesByBudget() {
+    // Arrange
+    properties.setMaxBurst(1);
+    RequestHedger hedger = buildHedger();
+    call(hedger);
+    call(hedger);
+
+    // Act
+    runScheduled();
+
+    // Assert
+    assertEquals(3, sent.size());
+    assertEquals(1, count("hedges"));
+    assertEquals(1, count("denied"));
+  }
+
+  @Test
+  void shouldHedgeAfterPercentileOfRecentLatencies() {
+    // Arrange (20 calls taking 1 to 20 ms)
+    properties.setPercentile(0.9);
+    RequestHedger hedger = buildHedger();
+    for (int millis = 1; millis <= 20; millis++) {
+      call(hedger);
+      nanos.addAndGet(Duration.ofMillis(millis).toNanos());
+      sent.get(sent.size() - 1).complete("fast");
+      nanos.addAndGet(-Duration.ofMillis(millis).toNanos());
+    }
+    delays.clear();
+
+    // Act
+    call(hedger);
+
+    // Assert
+    assertEquals(List.of(Duration.ofMillis(18)), delays);
+  }
+
+  @Test
+  void shouldSampleTimeOfHedgedCallWhenHedgeWins() {
+    // Arrange (20 calls hedged after 90 ms, the hedge answering 10 ms later)
+    properties.setMaxBurst(20);
+    RequestHedger hedger = buildHedger();
+    for (int i = 0; i < 20; i++) {
+      nanos.set(0);
+      call(hedger);
+      nanos.set(Duration.ofMillis(90).toNanos());
+      runScheduled();
+      nanos.set(Duration.ofMillis(100).toNanos());
+      sent.get(sent.size() - 1).complete("hedge");
+    }
+    delays.clear();
+
+    // Act
+    call(hedger);
+
+    // Assert
+    assertEquals(List.of(Duration.ofMillis(100)), delays);
+  }
+
+  @Test
+  void shouldCancelEveryCallWhenCancelled() {
+    // Arrange
+    CompletableFuture<String> result = call(buildHedger());
+    runScheduled();
+
+    // Act
+    result.cancel(true);
+
+    // Assert
+    assertTrue(sent.get(0).isCancelled());
+    assertTrue(sent.get(1).isCancelled());
+  }
+
+  @Test
+  void shouldSendCallAsItIsWhenDisabled() {
+    // Arrange
+    properties.setEnabled(false);
+
+    // Act
+    CompletableFuture<String> result = call(buildHedger());
+
+    // Assert
+    assertTrue(scheduled.isEmpty());
+    assertSame(sent.get(0), result);
+  }
+}
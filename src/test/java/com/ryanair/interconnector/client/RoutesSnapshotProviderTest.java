@@ -0,0 +1,213 @@
+package com.ryanair.interconnector.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnector.config.RoutesRefreshProperties;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.testutils.DirectExecutor;
+import com.ryanair.interconnector.validation.route.RouteValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@ExtendWith(MockitoExtension.class)
+class RoutesSnapshotProviderTest {
+
+  private static final Route DUB_STN = new Route().airportFrom("DUB").airportTo("STN").operator("RYANAIR");
+  private static final Route DUB_WRO = new Route().airportFrom("DUB").airportTo("WRO").operator("RYANAIR");
+
+  @Mock
+  CachedRoutesProvider routesProvider;
+  @Mock
+  RouteValidator routeValidator;
+
+  private final RoutesRefreshProperties properties = new RoutesRefreshProperties();
+
+  private RoutesSnapshotProvider snapshotProvider;
+
+  @BeforeEach
+  void setUp() {
+    snapshotProvider = new RoutesSnapshotProvider(routesProvider, List.of(routeValidator), properties,
+        new DirectExecutor());
+  }
+
+  @Test
+  void shouldLoadSnapshotOnFirstReadAndReuseIt() {
+    // Arrange
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN, DUB_WRO));
+    when(routeValidator.isValidRoute(DUB_STN)).thenReturn(true);
+    when(routeValidator.isValidRoute(DUB_WRO)).thenReturn(false);
+
+    // Act
+    RoutesIndex first = snapshotProvider.currentIndex().join();
+    RoutesIndex second = snapshotProvider.currentIndex().join();
+
+    // Assert
+    assertSame(first, second);
+    assertTrue(first.hasDirectRoute("DUB", "STN"));
+    assertFalse(first.hasDirectRoute("DUB", "WRO"));
+    verify(routesProvider, times(1)).fetchAllRoutesCached();
+    verify(routeValidator, times(2)).isValidRoute(any());
+  }
+
+  @Test
+  void shouldSwapSnapshotOnRefresh() {
+    // Arrange
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN));
+    when(routesProvider.refreshAllRoutes()).thenReturn(List.of(DUB_STN, DUB_WRO));
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+    RoutesIndex before = snapshotProvider.currentIndex().join();
+
+    // Act
+    snapshotProvider.refresh();
+
+    // Assert
+    assertFalse(before.hasDirectRoute("DUB", "WRO"));
+    assertTrue(snapshotProvider.currentIndex().join().hasDirectRoute("DUB", "WRO"));
+  }
+
+  @Test
+  void shouldKeepIndexWhenRefreshedRoutesAreUnchanged() {
+    // Arrange
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN, DUB_WRO));
+    when(routesProvider.refreshAllRoutes()).thenReturn(List.of(DUB_WRO, DUB_STN));
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+    RoutesIndex before = snapshotProvider.currentIndex().join();
+
+    // Act
+    snapshotProvider.refresh();
+
+    // Assert
+    assertSame(before, snapshotProvider.loadedIndex().orElseThrow());
+  }
+
+  @Test
+  void shouldScheduleRefreshEveryRefreshInterval() {
+    // Arrange
+    properties.setRefreshInterval(Duration.ofMinutes(3));
+    ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+    // Act
+    new RoutesSnapshotProvider(routesProvider, List.of(routeValidator), properties, new DirectExecutor())
+        .configureTasks(registrar);
+
+    // Assert
+    IntervalTask task = registrar.getFixedDelayTaskList().get(0);
+    assertEquals(Duration.ofMinutes(3), task.getIntervalDuration());
+    assertEquals(Duration.ofMinutes(3), task.getInitialDelayDuration());
+  }
+
+  @Test
+  void shouldKeepServingPreviousSnapshotWhenRefreshFails() {
+    // Arrange
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN));
+    when(routesProvider.refreshAllRoutes()).thenThrow(new ExternalApiException("Routes API down", null));
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+    RoutesIndex before = snapshotProvider.currentIndex().join();
+
+    // Act
+    snapshotProvider.refresh();
+
+    // Assert
+    assertSame(before, snapshotProvider.currentIndex().join());
+  }
+
+  @Test
+  void shouldNotCallRoutesApiOnReadAfterBackgroundRefresh() {
+    // Arrange
+    when(routesProvider.refreshAllRoutes()).thenReturn(List.of(DUB_STN));
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+
+    // Act
+    snapshotProvider.refresh();
+
+    // Assert
+    assertTrue(snapshotProvider.currentIndex().join().hasDirectRoute("DUB", "STN"));
+    verify(routesProvider, never()).fetchAllRoutesCached();
+  }
+
+  @Test
+  void shouldFailWhenSnapshotIsOlderThanMaxStaleness() {
+    // Arrange
+    properties.setMaxStaleness(Duration.ofSeconds(-1));
+    snapshotProvider = new RoutesSnapshotProvider(routesProvider, List.of(routeValidator), properties,
+        new DirectExecutor());
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN));
+
+    // Act
+    CompletionException ex = assertThrows(CompletionException.class, () -> snapshotProvider.currentIndex().join());
+
+    // Assert
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+  }
+
+  @Test
+  void shouldServeSnapshotOlderThanMaxStalenessWhileCircuitIsOpen() {
+    // Arrange
+    properties.setMaxStaleness(Duration.ofSeconds(-1));
+    snapshotProvider = new RoutesSnapshotProvider(routesProvider, List.of(routeValidator), properties,
+        new DirectExecutor());
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN));
+    when(routesProvider.isCircuitOpen()).thenReturn(true);
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+
+    // Act
+    RoutesIndex index = snapshotProvider.currentIndex().join();
+
+    // Assert
+    assertTrue(index.hasDirectRoute("DUB", "STN"));
+  }
+
+  @Test
+  void shouldPropagateErrorWhenThereIsNoSnapshotToServe() {
+    // Arrange
+    when(routesProvider.fetchAllRoutesCached()).thenThrow(new ExternalApiException("Routes API down", null));
+
+    // Act
+    CompletionException ex = assertThrows(CompletionException.class, () -> snapshotProvider.currentIndex().join());
+
+    // Assert
+    assertInstanceOf(ExternalApiException.class, ex.getCause());
+  }
+
+  @Test
+  void shouldShareTheInitialLoadBetweenConcurrentReaders() {
+    // Arrange
+    List<Runnable> pending = new ArrayList<>();
+    snapshotProvider = new RoutesSnapshotProvider(routesProvider, List.of(routeValidator), properties, pending::add);
+    when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(DUB_STN));
+    when(routeValidator.isValidRoute(any())).thenReturn(true);
+
+    // Act
+    CompletableFuture<RoutesIndex> first = snapshotProvider.currentIndex();
+    CompletableFuture<RoutesIndex> second = snapshotProvider.currentIndex();
+    assertFalse(first.isDone());
+    pending.forEach(Runnable::run);
+
+    // Assert
+    assertEquals(1, pending.size());
+    assertSame(first.join(), second.join());
+    verify(routesProvider, times(1)).fetchAllRoutesCached();
+  }
+}
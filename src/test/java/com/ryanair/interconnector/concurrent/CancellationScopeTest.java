@@ -0,0 +1,109 @@
+package com.ryanair.interconnector.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+class CancellationScopeTest {
+
+  private final CancellationScope scope = new CancellationScope();
+
+  @Test
+  void shouldCancelPendingChildrenWhenResultIsCancelled() {
+    // Arrange
+    CompletableFuture<String> done = scope.track(CompletableFuture.completedFuture("done"));
+    CompletableFuture<String> pending = scope.track(new CompletableFuture<>());
+    CompletableFuture<String> result = scope.bind(pending.thenCombine(done, String::concat));
+
+    // Act
+    result.cancel(true);
+
+    // Assert
+    assertTrue(pending.isCancelled());
+    assertFalse(done.isCancelled());
+  }
+
+  @Test
+  void shouldCancelSiblingsWhenOneChildFails() {
+    // Arrange
+    CompletableFuture<String> failing = scope.track(new CompletableFuture<>());
+    CompletableFuture<String> sibling = scope.track(new CompletableFuture<>());
+    scope.bind(failing.thenCombine(sibling, String::concat));
+
+    // Act
+    failing.completeExceptionally(new IllegalStateException("Schedules API down"));
+
+    // Assert
+    assertTrue(sibling.isCancelled());
+  }
+
+  @Test
+  void shouldFailResultWithTheFailureOfTheChildInsteadOfTheCancelledSibling() {
+    // Arrange
+    IllegalStateException failure = new IllegalStateException("Schedules API down");
+    CompletableFuture<String> sibling = scope.track(new CompletableFuture<>());
+    CompletableFuture<String> failing = scope.track(new CompletableFuture<>());
+    CompletableFuture<Void> result = scope.bind(CompletableFuture.allOf(sibling, failing));
+
+    // Act
+    failing.completeExceptionally(failure);
+
+    // Assert
+    assertSame(failure, assertThrows(CompletionException.class, result::join).getCause());
+  }
+
+  @Test
+  void shouldLeaveSiblingsRunningWhenOptionalChildFails() {
+    // Arrange
+    CompletableFuture<String> failing = scope.trackOptional(new CompletableFuture<>());
+    CompletableFuture<String> sibling = scope.track(new CompletableFuture<>());
+
+    // Act
+    failing.completeExceptionally(new IllegalStateException("Schedules API down"));
+
+    // Assert
+    assertFalse(sibling.isDone());
+  }
+
+  @Test
+  void shouldCancelOptionalChildrenAlongWithScope() {
+    // Arrange
+    CompletableFuture<String> optional = scope.trackOptional(new CompletableFuture<>());
+
+    // Act
+    scope.cancel();
+
+    // Assert
+    assertTrue(optional.isCancelled());
+  }
+
+  @Test
+  void shouldCancelChildrenTrackedAfterCancellation() {
+    // Arrange
+    scope.bind(new CompletableFuture<Void>()).cancel(true);
+
+    // Act
+    CompletableFuture<String> late = scope.track(new CompletableFuture<>());
+
+    // Assert
+    assertTrue(late.isCancelled());
+  }
+
+  @Test
+  void shouldLeaveChildrenRunningWhenResultCompletes() {
+    // Arrange
+    CompletableFuture<String> pending = scope.track(new CompletableFuture<>());
+    CompletableFuture<String> result = scope.bind(new CompletableFuture<>());
+
+    // Act
+    result.complete("done");
+
+    // Assert
+    assertFalse(pending.isDone());
+  }
+}
@@ -0,0 +1,89 @@
+package com.ryanair.interconnector.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class InterruptibleFutureTest {
+
+  @Test
+  void shouldInterruptRunningTaskWhenCancelled() throws InterruptedException {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      CompletableFuture<String> future = InterruptibleFuture.run(() -> {
+        started.countDown();
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException ex) {
+          interrupted.countDown();
+        }
+        return "late";
+      }, executor);
+      started.await();
+
+      // Act
+      future.cancel(true);
+
+      // Assert
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertTrue(future.isCancelled());
+    }
+  }
+
+  @Test
+  void shouldNotRunTaskCancelledBeforeStarting() {
+    // Arrange
+    List<Runnable> pending = new ArrayList<>();
+    AtomicBoolean ran = new AtomicBoolean();
+    CompletableFuture<Boolean> future = InterruptibleFuture.run(() -> ran.getAndSet(true), pending::add);
+
+    // Act
+    future.cancel(true);
+    pending.forEach(Runnable::run);
+
+    // Assert
+    assertFalse(ran.get());
+    assertTrue(future.isCancelled());
+  }
+
+  @Test
+  void shouldNotLeaveThreadInterruptedForNextTask() throws InterruptedException {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<String> cancelled = InterruptibleFuture.run(() -> {
+        started.countDown();
+        // Keeps running regardless of the interruption, like a call ignoring it
+        while (release.getCount() > 0) {
+          Thread.onSpinWait();
+        }
+        return "ignored";
+      }, executor);
+      started.await();
+
+      // Act
+      cancelled.cancel(true);
+      release.countDown();
+      CompletableFuture<Boolean> next = InterruptibleFuture.run(() -> Thread.currentThread().isInterrupted(),
+          executor);
+
+      // Assert
+      assertFalse(next.join());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
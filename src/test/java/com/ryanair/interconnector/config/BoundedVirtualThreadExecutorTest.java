@@ -0,0 +1,51 @@
+package com.ryanair.interconnector.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class BoundedVirtualThreadExecutorTest {
+
+  private static final int LIMIT = 3;
+  private static final int TASKS = 50;
+
+  private final BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", LIMIT);
+
+  @Test
+  void shouldRunEveryTaskOnVirtualThreadsWithinLimit() throws InterruptedException {
+    // Arrange
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    // Act, every task blocks until released so the ones over the limit have to wait
+    List<CompletableFuture<Boolean>> futures = IntStream.range(0, TASKS)
+        .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            release.await();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          return Thread.currentThread().isVirtual();
+        }, executor))
+        .toList();
+
+    // Assert
+    while (executor.waitingTasks() < TASKS - LIMIT || running.get() < LIMIT) {
+      TimeUnit.MILLISECONDS.sleep(1);
+    }
+    assertEquals(LIMIT, running.get());
+    release.countDown();
+    assertTrue(futures.stream().allMatch(CompletableFuture::join));
+    assertEquals(LIMIT, maxRunning.get());
+  }
+}
@@ -0,0 +1,37 @@
+package com.ryanair.interconnector.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class FlightCountWeigherTest {
+
+  private final FlightCountWeigher weigher = new FlightCountWeigher();
+
+  @Test
+  void shouldWeighSchedulesByNumberOfFlights() {
+    MonthlySlots slots = MonthlySlots.builder()
+        .add(LocalDateTime.of(2023, 6, 1, 10, 0), LocalDateTime.of(2023, 6, 1, 12, 0))
+        .add(LocalDateTime.of(2023, 6, 2, 10, 0), LocalDateTime.of(2023, 6, 2, 12, 0))
+        .add(LocalDateTime.of(2023, 6, 3, 10, 0), LocalDateTime.of(2023, 6, 3, 12, 0))
+        .build();
+
+    assertEquals(3, weigher.weigh("key", slots));
+  }
+
+  @Test
+  void shouldWeighRoutesByNumberOfRoutes() {
+    assertEquals(2, weigher.weigh("key", List.of(new Route(), new Route())));
+  }
+
+  @Test
+  void shouldWeighEmptyOrUnknownEntriesAsOne() {
+    assertEquals(1, weigher.weigh("key", MonthlySlots.EMPTY));
+    assertEquals(1, weigher.weigh("key", List.of()));
+    assertEquals(1, weigher.weigh("key", new Object()));
+  }
+}
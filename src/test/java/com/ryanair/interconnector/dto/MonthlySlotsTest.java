@@ -0,0 +1,143 @@
+package com.ryanair.interconnector.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class MonthlySlotsTest {
+
+  private static final LocalDateTime BASE = LocalDateTime.of(2023, 6, 1, 10, 0);
+
+  @Test
+  void shouldConvertEpochMinutesBackAndForth() {
+    int epochMinute = MonthlySlots.toEpochMinute(BASE);
+
+    assertEquals(BASE, MonthlySlots.fromEpochMinute(epochMinute));
+    assertEquals(epochMinute + 90, MonthlySlots.toEpochMinute(BASE.plusMinutes(90)));
+  }
+
+  @Test
+  void shouldRoundLowerBoundsUpToTheNextMinute() {
+    int epochMinute = MonthlySlots.toEpochMinute(BASE);
+
+    assertEquals(epochMinute, MonthlySlots.toEpochMinuteCeil(BASE));
+    assertEquals(epochMinute + 1, MonthlySlots.toEpochMinuteCeil(BASE.plusSeconds(30)));
+    assertEquals(epochMinute + 1, MonthlySlots.toEpochMinuteCeil(BASE.plusNanos(1)));
+    assertEquals(epochMinute, MonthlySlots.toEpochMinute(BASE.plusSeconds(30)));
+  }
+
+  @Test
+  void shouldSortSlotsByDepartureKeepingArrivalsAligned() {
+    // Arrange
+    MonthlySlots.Builder builder = MonthlySlots.builder();
+    for (int i = 20; i > 0; i--) {
+      builder.add(BASE.plusHours(i), BASE.plusHours(i).plusMinutes(i));
+    }
+
+    // Act
+    MonthlySlots slots = builder.build();
+
+    // Assert
+    assertEquals(20, slots.size());
+    for (int i = 0; i < slots.size(); i++) {
+      int hours = i + 1;
+      assertEquals(new FlightSlot(BASE.plusHours(hours), BASE.plusHours(hours).plusMinutes(hours)), slots.slotAt(i));
+      assertEquals(MonthlySlots.toEpochMinute(BASE.plusHours(hours)), slots.departureMinuteAt(i));
+    }
+  }
+
+  @Test
+  void shouldReturnEmptyInstanceWhenNoSlotsAreAdded() {
+    MonthlySlots slots = MonthlySlots.builder().build();
+
+    assertSame(MonthlySlots.EMPTY, slots);
+    assertTrue(slots.isEmpty());
+  }
+
+  @Nested
+  class Window {
+
+    // Hourly flights from 00:00 to 23:00, lasting 1 hour except the one at 12:00 which lasts 3 hours
+    private final MonthlySlots slots = hourlySlots();
+
+    private MonthlySlots hourlySlots() {
+      MonthlySlots.Builder builder = MonthlySlots.builder();
+      LocalDateTime midnight = BASE.toLocalDate().atStartOfDay();
+      for (int hour = 0; hour < 24; hour++) {
+        builder.add(midnight.plusHours(hour), midnight.plusHours(hour + (hour == 12 ? 3 : 1)));
+      }
+      return builder.build();
+    }
+
+    private List<FlightSlot> window(int startHour, int endHour) {
+      LocalDateTime midnight = BASE.toLocalDate().atStartOfDay();
+      return slots.window(MonthlySlots.toEpochMinute(midnight.plusHours(startHour)),
+          MonthlySlots.toEpochMinute(midnight.plusHours(endHour)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 24, 0, 23",
+        "8, 11, 8, 10",
+        "10, 13, 10, 11",
+        "12, 15, 12, 14",
+        "22, 23, 22, 22"
+    })
+    void shouldSelectSlotsInsideTheWindow(int startHour, int endHour, int firstHour, int lastHour) {
+      // Act
+      List<FlightSlot> result = window(startHour, endHour);
+
+      // Assert
+      LocalDateTime midnight = BASE.toLocalDate().atStartOfDay();
+      assertEquals(midnight.plusHours(firstHour), result.get(0).departureDateTime());
+      assertEquals(midnight.plusHours(lastHour), result.get(result.size() - 1).departureDateTime());
+      for (FlightSlot slot : result) {
+        assertTrue(!slot.departureDateTime().isBefore(midnight.plusHours(startHour)));
+        assertTrue(!slot.arrivalDateTime().isAfter(midnight.plusHours(endHour)));
+      }
+    }
+
+    @Test
+    void shouldSkipLongFlightArrivingAfterTheWindowButKeepLaterOnes() {
+      // Act (12:00 flight arrives at 15:00, 13:00 one at 14:00)
+      List<FlightSlot> result = window(11, 14);
+
+      // Assert
+      assertEquals(2, result.size());
+      assertEquals(BASE.withHour(11), result.get(0).departureDateTime());
+      assertEquals(BASE.withHour(13), result.get(1).departureDateTime());
+    }
+
+    @Test
+    void shouldExcludeSlotDepartingBeforeSecondsBearingStart() {
+      // Act (window starting at 10:00:30 cannot take the 10:00 flight)
+      List<FlightSlot> result = slots.window(MonthlySlots.toEpochMinuteCeil(BASE.plusSeconds(30)),
+          MonthlySlots.toEpochMinute(BASE.withHour(13).plusSeconds(30)));
+
+      // Assert
+      assertEquals(List.of(BASE.withHour(11)), result.stream().map(FlightSlot::departureDateTime).toList());
+    }
+
+    @Test
+    void shouldBuildEachSlotOnlyOnce() {
+      // Act
+      List<FlightSlot> result = window(8, 11);
+
+      // Assert
+      assertSame(result.get(1), result.get(1));
+    }
+
+    @Test
+    void shouldReturnEmptyWindowWhenNothingFits() {
+      assertTrue(window(10, 10).isEmpty());
+      assertTrue(MonthlySlots.EMPTY.window(0, Integer.MAX_VALUE).isEmpty());
+    }
+  }
+}
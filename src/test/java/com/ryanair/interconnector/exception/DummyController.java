@@ -33,6 +33,11 @@ class DummyController {
     throw new IllegalStateException("boom");
   }
 
+  @GetMapping("/invalid-request")
+  public String throwInvalidRequestException() {
+    throw new InvalidRequestException("Invalid value");
+  }
+
   @GetMapping("/required-param")
   public String missingParam(@RequestParam(required = true, name = "intParam") int intParam) {
     return "OK";
@@ -73,6 +73,22 @@ class GlobalExceptionHandlerTest {
     assertEquals("Unexpected internal server error", apiError.getDetails());
   }
 
+  @Test
+  void shouldReturnBadRequestForInvalidRequestException() {
+    Error apiError = given()
+        .when()
+        .get("/test/invalid-request")
+        .then()
+        .statusCode(ErrorType.INVALID_REQUEST.getStatus().value())
+        .extract()
+        .as(Error.class);
+
+    assertNotNull(apiError);
+    assertEquals(ErrorType.INVALID_REQUEST.getCode(), apiError.getCode());
+    assertEquals(ErrorType.INVALID_REQUEST.getMessage(), apiError.getMessage());
+    assertEquals("Invalid value", apiError.getDetails());
+  }
+
   @Test
   void shouldReturnBadRequestForMissingQueryParam() {
     Error apiError = given()
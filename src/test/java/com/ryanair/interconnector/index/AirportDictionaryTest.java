@@ -0,0 +1,34 @@
+package com.ryanair.interconnector.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+
+class AirportDictionaryTest {
+
+  private final AirportDictionary dictionary = AirportDictionary.of(Arrays.asList("WRO", "dub", "STN", "DUB", null));
+
+  @Test
+  void shouldAssignDenseIdsInAlphabeticalOrder() {
+    assertEquals(3, dictionary.size());
+    assertEquals(0, dictionary.idOf("DUB"));
+    assertEquals(1, dictionary.idOf("STN"));
+    assertEquals(2, dictionary.idOf("WRO"));
+  }
+
+  @Test
+  void shouldTranslateIdsBackToNormalizedCodes() {
+    for (String code : List.of("DUB", "STN", "WRO")) {
+      assertEquals(code, dictionary.codeOf(dictionary.idOf(code)));
+    }
+    assertEquals("DUB", dictionary.codeOf(dictionary.idOf(" dub ")));
+  }
+
+  @Test
+  void shouldReturnUnknownForMissingAirports() {
+    assertEquals(AirportDictionary.UNKNOWN, dictionary.idOf("BGY"));
+    assertEquals(AirportDictionary.UNKNOWN, dictionary.idOf(null));
+  }
+}
@@ -0,0 +1,92 @@
+package com.ryanair.interconnector.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import java.util.List;
+import java.util.Set;
+
+class RoutesIndexTest {
+
+  private static final String OPERATOR = "RYANAIR";
+
+  private static final Route DUB_STN = route("DUB", "STN", OPERATOR);
+  private static final Route DUB_BGY = route("DUB", "BGY", OPERATOR);
+  private static final Route DUB_ALC = route("DUB", "ALC", OPERATOR);
+  private static final Route STN_WRO = route("STN", "WRO", OPERATOR);
+  private static final Route BGY_WRO = route("bgy", "wro", OPERATOR);
+  private static final Route ALC_WRO_OTHER = route("ALC", "WRO", "OTHER");
+
+  private static final RoutesIndex INDEX = RoutesIndex.of(
+      List.of(DUB_STN, DUB_BGY, DUB_ALC, STN_WRO, BGY_WRO, ALC_WRO_OTHER),
+      route -> OPERATOR.equals(route.getOperator()));
+
+  private static Route route(String from, String to, String operator) {
+    return new Route().airportFrom(from).airportTo(to).operator(operator);
+  }
+
+  @Nested
+  class DirectRoute {
+
+    @ParameterizedTest
+    @CsvSource({
+        "DUB, STN",
+        "dub, stn",
+        "BGY, WRO",
+        "' dub ', STN"
+    })
+    void shouldFindDirectRouteIgnoringCase(String from, String to) {
+      assertTrue(INDEX.hasDirectRoute(from, to));
+    }
+
+    @Test
+    void shouldNotFindReverseOrFilteredRoutes() {
+      assertFalse(INDEX.hasDirectRoute("STN", "DUB"));
+      assertFalse(INDEX.hasDirectRoute("ALC", "WRO"));
+      assertFalse(INDEX.hasDirectRoute("DUB", null));
+      assertFalse(INDEX.hasDirectRoute(null, "STN"));
+    }
+  }
+
+  @Nested
+  class IntermediateAirports {
+
+    @Test
+    void shouldReturnIntersectionOfValidRoutes() {
+      assertEquals(Set.of("STN", "BGY"), INDEX.intermediateAirports("DUB", "WRO"));
+      assertEquals(Set.of("STN", "BGY"), INDEX.intermediateAirports("Dub", "Wro"));
+    }
+
+    @Test
+    void shouldReturnEmptyWhenAirportIsUnknown() {
+      assertTrue(INDEX.intermediateAirports("XXX", "WRO").isEmpty());
+      assertTrue(INDEX.intermediateAirports("DUB", "XXX").isEmpty());
+    }
+
+    @Test
+    void shouldTellIndexesOfSameRoutesApart() {
+      RoutesIndex reordered = RoutesIndex.of(List.of(BGY_WRO, STN_WRO, DUB_ALC, DUB_BGY, DUB_STN),
+          route -> OPERATOR.equals(route.getOperator()));
+      RoutesIndex withoutRoute = RoutesIndex.of(List.of(DUB_STN, DUB_BGY, STN_WRO, BGY_WRO, ALC_WRO_OTHER),
+          route -> OPERATOR.equals(route.getOperator()));
+
+      assertTrue(INDEX.hasSameRoutesAs(reordered));
+      assertFalse(INDEX.hasSameRoutesAs(withoutRoute));
+    }
+
+    @Test
+    void shouldIgnoreRoutesWithoutAirports() {
+      RoutesIndex index = RoutesIndex.of(List.of(route(null, "STN", OPERATOR), route("DUB", null, OPERATOR)),
+          route -> true);
+
+      assertTrue(index.destinationsFrom("DUB").isEmpty());
+      assertTrue(index.originsTo("STN").isEmpty());
+    }
+  }
+}
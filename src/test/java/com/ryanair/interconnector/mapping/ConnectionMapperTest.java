@@ -124,4 +124,48 @@ class ConnectionMapperTest {
       assertTrue(mapper.toMultiLegConnection(ORIGIN, MID, null, VALID_SLOT, SECOND_SLOT).isEmpty());
     }
   }
+
+  @Nested
+  class ToConnection {
+
+    private static final String SECOND_MID = "BGY";
+    private static final FlightSlot SECOND_SLOT = new FlightSlot(
+        LocalDateTime.of(2023, 1, 1, 14, 0),
+        LocalDateTime.of(2023, 1, 1, 16, 0)
+    );
+    private static final FlightSlot THIRD_SLOT = new FlightSlot(
+        LocalDateTime.of(2023, 1, 1, 18, 0),
+        LocalDateTime.of(2023, 1, 1, 20, 0)
+    );
+
+    @Test
+    void shouldMapEveryLegBetweenConsecutiveAirports() {
+      // Act
+      Optional<Connection> result = mapper.toConnection(List.of(ORIGIN, MID, SECOND_MID, DEST),
+          List.of(VALID_SLOT, SECOND_SLOT, THIRD_SLOT));
+
+      // Assert
+      assertTrue(result.isPresent());
+      Connection connection = result.get();
+      assertEquals(2, connection.getStops());
+      assertEquals(3, connection.getLegs().size());
+
+      Leg leg3 = connection.getLegs().get(2);
+      assertEquals(SECOND_MID, leg3.getDepartureAirport());
+      assertEquals(DEST, leg3.getArrivalAirport());
+      assertEquals(THIRD_SLOT.departureDateTime(), leg3.getDepartureDateTime());
+    }
+
+    @Test
+    void shouldReturnEmptyIfAirportsDoNotMatchLegs() {
+      assertTrue(mapper.toConnection(List.of(ORIGIN, DEST), List.of(VALID_SLOT, SECOND_SLOT)).isEmpty());
+      assertTrue(mapper.toConnection(List.of(ORIGIN), List.of()).isEmpty());
+    }
+
+    @Test
+    void shouldReturnEmptyIfAnyLegIsInvalid() {
+      assertTrue(mapper.toConnection(List.of(ORIGIN, MID, DEST),
+          List.of(VALID_SLOT, new FlightSlot(null, null))).isEmpty());
+    }
+  }
 }
@@ -7,6 +7,7 @@ import com.ryanair.interconnectingflights.external.model.DaySchedule;
 import com.ryanair.interconnectingflights.external.model.Flight;
 import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
 import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.dto.MonthlySlots;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
@@ -49,11 +50,11 @@ class ScheduleMapperTest {
     ScheduleResponse response = getScheduleResponseWithFlights(flight);
 
     // Act
-    List<FlightSlot> result = mapper.toFlightSlots(YEAR, response);
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
 
     // Assert
     assertEquals(1, result.size());
-    FlightSlot slot = result.get(0);
+    FlightSlot slot = result.slotAt(0);
     assertEquals(EXPECTED_DEP, slot.departureDateTime());
     assertEquals(EXPECTED_ARR, slot.arrivalDateTime());
   }
@@ -66,11 +67,11 @@ class ScheduleMapperTest {
     ScheduleResponse response = getScheduleResponseWithFlights(validFlight, invalidFlight);
 
     // Act
-    List<FlightSlot> result = mapper.toFlightSlots(YEAR, response);
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
 
     // Assert
     assertEquals(1, result.size());
-    FlightSlot slot = result.get(0);
+    FlightSlot slot = result.slotAt(0);
     assertEquals(EXPECTED_DEP, slot.departureDateTime());
     assertEquals(EXPECTED_ARR, slot.arrivalDateTime());
   }
@@ -84,7 +85,7 @@ class ScheduleMapperTest {
     ScheduleResponse response = new ScheduleResponse().month(MONTH).days(List.of(day));
 
     // Act
-    List<FlightSlot> result = mapper.toFlightSlots(YEAR, response);
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
 
     // Assert
     assertTrue(result.isEmpty());
@@ -98,7 +99,7 @@ class ScheduleMapperTest {
     ScheduleResponse response = new ScheduleResponse().month(MONTH).days(List.of(day));
 
     // Act
-    List<FlightSlot> result = mapper.toFlightSlots(YEAR, response);
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
 
     // Assert
     assertTrue(result.isEmpty());
@@ -112,18 +113,37 @@ class ScheduleMapperTest {
     ScheduleResponse response = new ScheduleResponse().month(MONTH).days(List.of(day));
 
     // Act
-    List<FlightSlot> result = mapper.toFlightSlots(YEAR, response);
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
 
     // Assert
     assertTrue(result.isEmpty());
   }
 
 
+  @Test
+  void shouldSortSlotsByDepartureAcrossDays() {
+    // Arrange
+    Flight late = new Flight().departureTime(LocalTime.of(18, 0)).arrivalTime(LocalTime.of(20, 0));
+    Flight early = new Flight().departureTime(DEP_TIME).arrivalTime(ARR_TIME);
+    DaySchedule nextDay = new DaySchedule().day(DAY + 1).flights(List.of(early));
+    DaySchedule day = new DaySchedule().day(DAY).flights(List.of(late, early));
+    ScheduleResponse response = new ScheduleResponse().month(MONTH).days(List.of(nextDay, day));
+
+    // Act
+    MonthlySlots result = mapper.toMonthlySlots(YEAR, response);
+
+    // Assert
+    assertEquals(3, result.size());
+    assertEquals(EXPECTED_DEP, result.slotAt(0).departureDateTime());
+    assertEquals(LocalDateTime.of(YEAR, MONTH, DAY, 18, 0), result.slotAt(1).departureDateTime());
+    assertEquals(EXPECTED_DEP.plusDays(1), result.slotAt(2).departureDateTime());
+  }
+
   @Test
   void shouldReturnEmptyWhenResponseIsNullOrIncomplete() {
     // Arrange / Act / Assert
-    assertTrue(mapper.toFlightSlots(YEAR, null).isEmpty());
-    assertTrue(mapper.toFlightSlots(YEAR, new ScheduleResponse().month(null)).isEmpty());
-    assertTrue(mapper.toFlightSlots(YEAR, new ScheduleResponse().month(MONTH).days(null)).isEmpty());
+    assertTrue(mapper.toMonthlySlots(YEAR, null).isEmpty());
+    assertTrue(mapper.toMonthlySlots(YEAR, new ScheduleResponse().month(null)).isEmpty());
+    assertTrue(mapper.toMonthlySlots(YEAR, new ScheduleResponse().month(MONTH).days(null)).isEmpty());
   }
 }
@@ -0,0 +1,165 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import com.ryanair.interconnector.validation.connection.MinimumLayoverValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+class AnywhereSearchTest {
+
+  private static final String DUB = "DUB";
+  private static final String STN = "STN";
+  private static final String BGY = "BGY";
+  private static final String WRO = "WRO";
+  private static final String MAD = "MAD";
+
+  private static final Duration MIN_LAYOVER = Duration.ofHours(2);
+  private static final Duration MIN_FLIGHT_DURATION = Duration.ofMinutes(20);
+
+  private static final LocalDateTime SINCE = LocalDateTime.of(2023, 6, 1, 6, 0);
+  private static final LocalDateTime UNTIL = LocalDateTime.of(2023, 6, 1, 23, 59);
+
+  private static final FlightSlot DUB_STN = slot(7, 0, 8, 0);
+  private static final FlightSlot DUB_WRO = slot(9, 0, 12, 0);
+  private static final FlightSlot STN_WRO_TOO_EARLY = slot(9, 0, 11, 0);
+  private static final FlightSlot STN_WRO = slot(10, 0, 12, 0);
+  private static final FlightSlot STN_BGY = slot(13, 0, 15, 0);
+
+  @Mock
+  RoutesSnapshotProvider routesSnapshotProvider;
+  @Mock
+  ScheduleQueryService scheduleQueryService;
+
+  private final Map<String, List<FlightSlot>> schedules = new HashMap<>();
+  private final List<DestinationConnections> destinations = new ArrayList<>();
+
+  private AnywhereSearch search;
+
+  private static FlightSlot slot(int departureHour, int departureMinute, int arrivalHour, int arrivalMinute) {
+    return new FlightSlot(LocalDateTime.of(2023, 6, 1, departureHour, departureMinute),
+        LocalDateTime.of(2023, 6, 1, arrivalHour, arrivalMinute));
+  }
+
+  private static Route route(String from, String to) {
+    return new Route().airportFrom(from).airportTo(to).operator("RYANAIR");
+  }
+
+  @BeforeEach
+  void setUp() {
+    SearchProperties searchProperties = new SearchProperties();
+    searchProperties.setMinFlightDuration(MIN_FLIGHT_DURATION);
+    ConnectionMapper connectionMapper = new ConnectionMapper();
+    search = new AnywhereSearch(routesSnapshotProvider, scheduleQueryService, connectionMapper,
+        new ConnectionJoiner(connectionMapper, List.of(new MinimumLayoverValidator(MIN_LAYOVER)), searchProperties),
+        searchProperties);
+
+    schedules.put(DUB + STN, List.of(DUB_STN));
+    schedules.put(DUB + WRO, List.of(DUB_WRO));
+    schedules.put(STN + WRO, List.of(STN_WRO_TOO_EARLY, STN_WRO));
+    schedules.put(STN + BGY, List.of(STN_BGY));
+
+    // MAD has no flights from the origin, so nothing is reachable through it
+    List<Route> routes = List.of(route(DUB, STN), route(DUB, WRO), route(DUB, MAD), route(STN, WRO), route(STN, BGY),
+        route(STN, DUB), route(MAD, BGY));
+    lenient().when(routesSnapshotProvider.currentIndex()).thenReturn(
+        CompletableFuture.completedFuture(RoutesIndex.of(routes, route -> true)));
+
+    // Answers with the flights of the route departing and arriving within the requested window
+    lenient().when(scheduleQueryService.findFlightSlots(any(), any(), any(), any())).thenAnswer(invocation -> {
+      LocalDateTime start = invocation.getArgument(2);
+      LocalDateTime end = invocation.getArgument(3);
+      List<FlightSlot> slots = schedules.getOrDefault(invocation.getArgument(0) + invocation.<String>getArgument(1),
+          List.of());
+      return CompletableFuture.completedFuture(slots.stream()
+          .filter(slot -> !slot.departureDateTime().isBefore(start) && !slot.arrivalDateTime().isAfter(end))
+          .toList());
+    });
+  }
+
+  private Map<String, List<Integer>> stopsByDestination() {
+    return destinations.stream().collect(Collectors.toMap(DestinationConnections::arrival,
+        destination -> destination.connections().stream().map(Connection::getStops).toList()));
+  }
+
+  @Test
+  void shouldGroupDirectAndOneStopConnectionsByDestination() {
+    // Act
+    search.findDestinations(DUB, SINCE, UNTIL, 1, destinations::add).join();
+
+    // Assert, destinations without connections are not handed over
+    assertEquals(Map.of(STN, List.of(0), WRO, List.of(0, 1), BGY, List.of(1)), stopsByDestination());
+    Connection viaStn = destinations.stream().filter(destination -> destination.arrival().equals(WRO)).findFirst()
+        .orElseThrow().connections().get(1);
+    assertEquals(STN_WRO.departureDateTime(), viaStn.getLegs().get(1).getDepartureDateTime());
+  }
+
+  @Test
+  void shouldFetchEveryFirstLegOnce() {
+    // Act
+    search.findDestinations(DUB, SINCE, UNTIL, 1, destinations::add).join();
+
+    // Assert, the schedule of STN serves the direct connections and the ones through it
+    verify(scheduleQueryService, times(1)).findFlightSlots(DUB, STN, SINCE, UNTIL);
+    verify(scheduleQueryService, times(1)).findFlightSlots(DUB, MAD, SINCE, UNTIL);
+    verify(scheduleQueryService, times(1)).findFlightSlots(eq(STN), eq(WRO), any(), any());
+    verify(scheduleQueryService, never()).findFlightSlots(eq(MAD), any(), any(), any());
+    verify(scheduleQueryService, never()).findFlightSlots(eq(STN), eq(DUB), any(), any());
+  }
+
+  @Test
+  void shouldFetchSecondLegsFromEarliestConnection() {
+    // Act
+    search.findDestinations(DUB, SINCE, UNTIL, 1, destinations::add).join();
+
+    // Assert
+    verify(scheduleQueryService).findFlightSlots(STN, WRO, DUB_STN.arrivalDateTime().plus(MIN_LAYOVER), UNTIL);
+  }
+
+  @Test
+  void shouldOnlyLookUpDirectFlightsWithoutStopovers() {
+    // Act
+    search.findDestinations(DUB, SINCE, UNTIL, 0, destinations::add).join();
+
+    // Assert
+    assertEquals(Map.of(STN, List.of(0), WRO, List.of(0)), stopsByDestination());
+    verify(scheduleQueryService, never()).findFlightSlots(eq(STN), any(), any(), any());
+  }
+
+  @Test
+  void shouldRejectMoreThanOneStop() {
+    // Act & Assert
+    assertThrows(InvalidRequestException.class,
+        () -> search.findDestinations(DUB, SINCE, UNTIL, 2, destinations::add));
+    verifyNoInteractions(routesSnapshotProvider, scheduleQueryService);
+  }
+}
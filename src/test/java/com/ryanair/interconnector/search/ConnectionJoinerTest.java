@@ -0,0 +1,67 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.validation.connection.MinimumLayoverValidator;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class ConnectionJoinerTest {
+
+  private static final LocalDateTime SINCE = LocalDateTime.of(2023, 6, 1, 10, 0);
+  private static final LocalDateTime UNTIL = LocalDateTime.of(2023, 6, 1, 18, 0);
+
+  private final ConnectionJoiner joiner = joiner();
+
+  private static ConnectionJoiner joiner() {
+    SearchProperties searchProperties = new SearchProperties();
+    searchProperties.setMinFlightDuration(Duration.ofMinutes(20));
+    return new ConnectionJoiner(new ConnectionMapper(), List.of(new MinimumLayoverValidator(Duration.ofHours(2))),
+        searchProperties);
+  }
+
+  private static FlightSlot slot(int departureHour, int arrivalHour) {
+    return new FlightSlot(SINCE.withHour(departureHour), SINCE.withHour(arrivalHour));
+  }
+
+  @Test
+  void shouldOnlyJoinLegsLeavingEnoughLayover() {
+    // Arrange
+    List<FlightSlot> firstSlots = List.of(slot(10, 11), slot(12, 13));
+    List<FlightSlot> secondSlots = List.of(slot(12, 13), slot(13, 14), slot(15, 16));
+    List<Connection> connections = new ArrayList<>();
+
+    // Act
+    joiner.join("DUB", "STN", "WRO", firstSlots, secondSlots, connections::add);
+
+    // Assert
+    assertEquals(3, connections.size());
+    assertTrue(connections.stream().allMatch(connection -> connection.getStops() == 1));
+  }
+
+  @Test
+  void shouldNarrowSecondLegToEarliestArrivalPlusLayover() {
+    // Act
+    Optional<LocalDateTime> earliest = joiner.earliestSecondDeparture(List.of(slot(12, 13), slot(10, 11)),
+        SINCE.plusMinutes(140), UNTIL);
+
+    // Assert
+    assertEquals(Optional.of(SINCE.withHour(13)), earliest);
+  }
+
+  @Test
+  void shouldSkipSecondLegWhenNoConnectionFitsTheWindow() {
+    // Act & Assert
+    assertEquals(Optional.empty(), joiner.earliestSecondDeparture(List.of(), SINCE, UNTIL));
+    assertEquals(Optional.empty(), joiner.earliestSecondDeparture(List.of(slot(15, 16)), SINCE, UNTIL));
+  }
+}
@@ -0,0 +1,231 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.Leg;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import com.ryanair.interconnector.validation.connection.FlightConnectionValidator;
+import com.ryanair.interconnector.validation.connection.MinimumLayoverValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionScanEngineTest {
+
+  private static final String DUB = "DUB";
+  private static final String STN = "STN";
+  private static final String BGY = "BGY";
+  private static final String WRO = "WRO";
+  private static final String MAD = "MAD";
+
+  private static final Duration MIN_LAYOVER = Duration.ofHours(2);
+  private static final Duration MIN_FLIGHT_DURATION = Duration.ofMinutes(20);
+
+  private static final LocalDateTime SINCE = LocalDateTime.of(2023, 6, 1, 6, 0);
+  private static final LocalDateTime UNTIL = LocalDateTime.of(2023, 6, 1, 23, 59);
+
+  private static final FlightSlot DUB_STN = slot(7, 0, 8, 0);
+  private static final FlightSlot STN_BGY_TOO_EARLY = slot(9, 0, 11, 0);
+  private static final FlightSlot STN_BGY = slot(10, 0, 12, 0);
+  private static final FlightSlot BGY_WRO_TOO_EARLY = slot(13, 0, 15, 0);
+  private static final FlightSlot BGY_WRO = slot(14, 0, 16, 0);
+  private static final FlightSlot DUB_WRO = slot(9, 0, 12, 0);
+
+  @Mock
+  RoutesSnapshotProvider routesSnapshotProvider;
+  @Mock
+  ScheduleQueryService scheduleQueryService;
+  @Mock
+  FlightConnectionValidator validator;
+
+  private final Map<String, List<FlightSlot>> schedules = new HashMap<>();
+  private final List<FlightConnectionValidator> validators = new ArrayList<>();
+
+  private int maxRouteLookups = 200;
+  private ConnectionScanEngine engine;
+
+  private static FlightSlot slot(int departureHour, int departureMinute, int arrivalHour, int arrivalMinute) {
+    return new FlightSlot(LocalDateTime.of(2023, 6, 1, departureHour, departureMinute),
+        LocalDateTime.of(2023, 6, 1, arrivalHour, arrivalMinute));
+  }
+
+  private static Route route(String from, String to) {
+    return new Route().airportFrom(from).airportTo(to).operator("RYANAIR");
+  }
+
+  // The validators and properties are read when building the engine, so it has to be rebuilt after changing them
+  private ConnectionScanEngine buildEngine() {
+    SearchProperties searchProperties = new SearchProperties();
+    searchProperties.setMinFlightDuration(MIN_FLIGHT_DURATION);
+    searchProperties.setMaxRouteLookups(maxRouteLookups);
+    return new ConnectionScanEngine(routesSnapshotProvider, scheduleQueryService, new ConnectionMapper(), validators,
+        searchProperties);
+  }
+
+  @BeforeEach
+  void setUp() {
+    validators.add(new MinimumLayoverValidator(MIN_LAYOVER));
+    engine = buildEngine();
+
+    schedules.put(DUB + STN, List.of(DUB_STN));
+    schedules.put(STN + BGY, List.of(STN_BGY_TOO_EARLY, STN_BGY));
+    schedules.put(BGY + WRO, List.of(BGY_WRO_TOO_EARLY, BGY_WRO));
+    schedules.put(DUB + WRO, List.of(DUB_WRO));
+
+    List<Route> routes = List.of(route(DUB, STN), route(STN, BGY), route(BGY, WRO), route(DUB, WRO), route(DUB, MAD));
+    lenient().when(routesSnapshotProvider.currentIndex()).thenReturn(
+        CompletableFuture.completedFuture(RoutesIndex.of(routes, route -> true)));
+
+    // Answers with the flights of the route departing and arriving within the requested window
+    lenient().when(scheduleQueryService.findFlightSlots(any(), any(), any(), any())).thenAnswer(invocation -> {
+      LocalDateTime start = invocation.getArgument(2);
+      LocalDateTime end = invocation.getArgument(3);
+      List<FlightSlot> slots = schedules.getOrDefault(invocation.getArgument(0) + invocation.<String>getArgument(1),
+          List.of());
+      return CompletableFuture.completedFuture(slots.stream()
+          .filter(slot -> !slot.departureDateTime().isBefore(start) && !slot.arrivalDateTime().isAfter(end))
+          .toList());
+    });
+  }
+
+  @Test
+  void shouldFindTwoStopConnectionRespectingLayovers() throws ExecutionException, InterruptedException {
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, UNTIL, 2, 2).get();
+
+    // Assert
+    assertEquals(1, result.size());
+    Connection connection = result.get(0);
+    assertEquals(2, connection.getStops());
+    List<Leg> legs = connection.getLegs();
+    assertEquals(List.of(DUB, STN, BGY), legs.stream().map(Leg::getDepartureAirport).toList());
+    assertEquals(List.of(STN, BGY, WRO), legs.stream().map(Leg::getArrivalAirport).toList());
+    assertEquals(List.of(DUB_STN.departureDateTime(), STN_BGY.departureDateTime(), BGY_WRO.departureDateTime()),
+        legs.stream().map(Leg::getDepartureDateTime).toList());
+  }
+
+  @Test
+  void shouldCarryNormalizedCodesWhateverTheCaseRequested() throws ExecutionException, InterruptedException {
+    // Act
+    List<Connection> result = engine.findConnections("dub", "Wro", SINCE, UNTIL, 2, 2).get();
+
+    // Assert
+    List<Leg> legs = result.get(0).getLegs();
+    assertEquals(List.of(DUB, STN, BGY), legs.stream().map(Leg::getDepartureAirport).toList());
+    assertEquals(List.of(STN, BGY, WRO), legs.stream().map(Leg::getArrivalAirport).toList());
+  }
+
+  @Test
+  void shouldIncludeFewerStopsWithinBounds() throws ExecutionException, InterruptedException {
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, UNTIL, 0, 2).get();
+
+    // Assert
+    assertEquals(List.of(2, 0), result.stream().map(Connection::getStops).toList());
+  }
+
+  @Test
+  void shouldFetchEachLegFromTheEarliestArrivalBeforeIt() throws ExecutionException, InterruptedException {
+    // Act
+    engine.findConnections(DUB, WRO, SINCE, UNTIL, 2, 2).get();
+
+    // Assert, the last leg cannot depart before the earliest flight into its origin lands plus the layover
+    verify(scheduleQueryService).findFlightSlots(BGY, WRO, STN_BGY.arrivalDateTime().plus(MIN_LAYOVER), UNTIL);
+    verify(scheduleQueryService, never()).findFlightSlots(eq(DUB), eq(MAD), any(), any());
+    verify(scheduleQueryService, times(4)).findFlightSlots(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldOnlyFetchRoutesOutOfAirportsReachedInTime() throws ExecutionException, InterruptedException {
+    // Arrange, MAD can reach WRO but no flight lands at MAD
+    List<Route> routes = List.of(route(DUB, STN), route(STN, BGY), route(BGY, WRO), route(DUB, WRO), route(DUB, MAD),
+        route(MAD, WRO));
+    when(routesSnapshotProvider.currentIndex()).thenReturn(
+        CompletableFuture.completedFuture(RoutesIndex.of(routes, route -> true)));
+
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, UNTIL, 0, 2).get();
+
+    // Assert
+    assertEquals(List.of(2, 0), result.stream().map(Connection::getStops).toList());
+    verify(scheduleQueryService).findFlightSlots(eq(DUB), eq(MAD), any(), any());
+    verify(scheduleQueryService, never()).findFlightSlots(eq(MAD), eq(WRO), any(), any());
+    verify(scheduleQueryService, times(5)).findFlightSlots(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldStopFetchingRoutesOnceLookupsAreExhausted() throws ExecutionException, InterruptedException {
+    // Arrange
+    maxRouteLookups = 3;
+    engine = buildEngine();
+
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, UNTIL, 0, 2).get();
+
+    // Assert, the last leg of the connection with two stops is beyond the cap
+    assertEquals(List.of(0), result.stream().map(Connection::getStops).toList());
+    verify(scheduleQueryService, never()).findFlightSlots(eq(BGY), eq(WRO), any(), any());
+    verify(scheduleQueryService, times(3)).findFlightSlots(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldRespectValidatorChain() throws ExecutionException, InterruptedException {
+    // Arrange
+    validators.add(validator);
+    engine = buildEngine();
+    when(validator.isValidConnection(any(), any())).thenReturn(false);
+
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, UNTIL, 2, 2).get();
+
+    // Assert
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void shouldNotFindConnectionsWhenWindowIsTooShort() throws ExecutionException, InterruptedException {
+    // Act
+    List<Connection> result = engine.findConnections(DUB, WRO, SINCE, BGY_WRO.arrivalDateTime().minusMinutes(1), 2, 2)
+        .get();
+
+    // Assert
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void shouldReturnEmptyWhenOriginIsDestination() throws ExecutionException, InterruptedException {
+    // Act
+    List<Connection> result = engine.findConnections(DUB, "dub", SINCE, UNTIL, 2, 2).get();
+
+    // Assert
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(routesSnapshotProvider, scheduleQueryService);
+  }
+}
@@ -0,0 +1,202 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.Leg;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.index.RoutesIndex;
+import com.ryanair.interconnector.service.ScheduleQueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@ExtendWith(MockitoExtension.class)
+class InterconnectionResultCacheTest {
+
+  private static final String DUB = "DUB";
+  private static final String WRO = "WRO";
+  private static final String MONTH = "DUB-WRO/2023-06";
+
+  private static final LocalDateTime DAY_START = LocalDateTime.of(2023, 6, 1, 0, 0);
+  private static final LocalDateTime DAY_END = LocalDateTime.of(2023, 6, 1, 23, 59);
+
+  private static final Connection MORNING = connection(8, 11);
+  private static final Connection EVENING = connection(18, 21);
+
+  @Mock
+  RoutesSnapshotProvider routesSnapshotProvider;
+  @Mock
+  ScheduleQueryService scheduleQueryService;
+  @Mock
+  ScheduleQueryService versionedSchedules;
+
+  // Windows searched, by start and end
+  private final List<LocalDateTime[]> searches = new ArrayList<>();
+  private final AtomicBoolean monthCurrent = new AtomicBoolean(true);
+  private final RoutesIndex routes = RoutesIndex.of(List.of(new Route().airportFrom(DUB).airportTo(WRO)),
+      route -> true);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private InterconnectionResultCache cache;
+
+  private static Connection connection(int departureHour, int arrivalHour) {
+    return new Connection().stops(0).legs(List.of(new Leg()
+        .departureAirport(DUB)
+        .arrivalAirport(WRO)
+        .departureDateTime(DAY_START.withHour(departureHour))
+        .arrivalDateTime(DAY_START.withHour(arrivalHour))));
+  }
+
+  @BeforeEach
+  void setUp() {
+    SearchProperties searchProperties = new SearchProperties();
+    searchProperties.setResultCacheMaxDays(2);
+    cache = new InterconnectionResultCache(new ConcurrentMapCacheManager(InterconnectionResultCache.CACHE_NAME),
+        routesSnapshotProvider, scheduleQueryService, searchProperties, meterRegistry);
+
+    lenient().when(routesSnapshotProvider.loadedIndex()).thenReturn(Optional.of(routes));
+    // Every versioned search depends on one schedule month, current for as long as the test says so
+    lenient().when(scheduleQueryService.versionedView(any())).thenAnswer(invocation -> {
+      invocation.<SourceVersions>getArgument(0).record(MONTH, monthCurrent::get);
+      return versionedSchedules;
+    });
+  }
+
+  private CompletableFuture<List<Connection>> search(ScheduleQueryService schedules, LocalDateTime start,
+      LocalDateTime end) {
+    searches.add(new LocalDateTime[] {start, end});
+    return CompletableFuture.completedFuture(List.of(MORNING, EVENING));
+  }
+
+  private List<Connection> find(LocalDateTime start, LocalDateTime end) {
+    return cache.find(DUB, WRO, start, end, 1, this::search).join();
+  }
+
+  @Test
+  void shouldSearchWholeDayAndSliceNarrowerWindows() {
+    // Act
+    List<Connection> morning = find(DAY_START.withHour(6), DAY_START.withHour(12));
+    List<Connection> evening = find(DAY_START.withHour(12), DAY_END);
+    List<Connection> day = find(DAY_START, DAY_END);
+
+    // Assert
+    assertEquals(List.of(MORNING), morning);
+    assertEquals(List.of(EVENING), evening);
+    assertEquals(List.of(MORNING, EVENING), day);
+    assertEquals(1, searches.size());
+    assertEquals(DAY_START, searches.get(0)[0]);
+    assertEquals(DAY_END, searches.get(0)[1]);
+  }
+
+  @Test
+  void shouldRecomputeOnceScheduleMonthIsRefreshed() {
+    // Arrange
+    find(DAY_START, DAY_END);
+    monthCurrent.set(false);
+
+    // Act
+    find(DAY_START, DAY_END);
+    monthCurrent.set(true);
+    find(DAY_START, DAY_END);
+
+    // Assert
+    assertEquals(2, searches.size());
+    assertEquals(1, meterRegistry.get("interconnector.results.stale").counter().count());
+  }
+
+  @Test
+  void shouldShareResultWhateverTheCaseOfTheAirports() {
+    // Arrange
+    find(DAY_START, DAY_END);
+
+    // Act
+    List<Connection> connections = cache.find("dub", " wro", DAY_START, DAY_END, 1, this::search).join();
+
+    // Assert
+    assertEquals(List.of(MORNING, EVENING), connections);
+    assertEquals(1, searches.size());
+  }
+
+  @Test
+  void shouldRecomputeOnceRoutesSnapshotIsRefreshed() {
+    // Arrange
+    find(DAY_START, DAY_END);
+    RoutesIndex refreshed = RoutesIndex.of(List.of(), route -> true);
+    when(routesSnapshotProvider.loadedIndex()).thenReturn(Optional.of(refreshed));
+
+    // Act
+    find(DAY_START, DAY_END);
+    find(DAY_START, DAY_END);
+
+    // Assert
+    assertEquals(2, searches.size());
+  }
+
+  @Test
+  void shouldNotCacheWithoutRoutesSnapshot() {
+    // Arrange
+    when(routesSnapshotProvider.loadedIndex()).thenReturn(Optional.empty());
+
+    // Act
+    find(DAY_START, DAY_END);
+    find(DAY_START, DAY_END);
+
+    // Assert
+    assertEquals(2, searches.size());
+  }
+
+  @Test
+  void shouldCoalesceConcurrentMissesOfSameDay() {
+    // Arrange
+    CompletableFuture<List<Connection>> pending = new CompletableFuture<>();
+    List<LocalDateTime[]> started = new ArrayList<>();
+    InterconnectionResultCache.WindowSearch slowSearch = (schedules, start, end) -> {
+      started.add(new LocalDateTime[] {start, end});
+      return pending;
+    };
+
+    // Act
+    CompletableFuture<List<Connection>> first = cache.find(DUB, WRO, DAY_START, DAY_END, 1, slowSearch);
+    CompletableFuture<List<Connection>> second = cache.find(DUB, WRO, DAY_START.withHour(12), DAY_END, 1, slowSearch);
+    pending.complete(List.of(MORNING, EVENING));
+
+    // Assert
+    assertEquals(1, started.size());
+    assertEquals(List.of(MORNING, EVENING), first.join());
+    assertEquals(List.of(EVENING), second.join());
+  }
+
+  @Test
+  void shouldSearchWiderWindowsAsTheyAreWithoutCaching() {
+    // Arrange
+    LocalDateTime end = DAY_END.plusDays(2);
+
+    // Act
+    find(DAY_START.withHour(6), end);
+    find(DAY_START.withHour(6), end);
+
+    // Assert
+    assertEquals(2, searches.size());
+    assertEquals(DAY_START.withHour(6), searches.get(0)[0]);
+    assertSame(end, searches.get(0)[1]);
+    verifyNoInteractions(routesSnapshotProvider);
+  }
+}
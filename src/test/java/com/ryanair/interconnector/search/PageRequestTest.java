@@ -0,0 +1,54 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ryanair.interconnector.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import java.util.OptionalInt;
+
+class PageRequestTest {
+
+  private static final String ARRIVAL_CURSOR = new ConnectionCursor(ConnectionOrder.ARRIVAL, 42L, "DUB WRO").encode();
+
+  @Test
+  void shouldDefaultToDepartureWithoutLimit() {
+    // Act
+    PageRequest request = PageRequest.of(null, null, null);
+
+    // Assert
+    assertEquals(new PageRequest(ConnectionOrder.DEPARTURE, OptionalInt.empty(), null), request);
+  }
+
+  @Test
+  void shouldTakeOrderFromCursor() {
+    // Act
+    PageRequest request = PageRequest.of(null, 10, ARRIVAL_CURSOR);
+
+    // Assert
+    assertEquals(ConnectionOrder.ARRIVAL, request.order());
+    assertEquals(new ConnectionCursor(ConnectionOrder.ARRIVAL, 42L, "DUB WRO"), request.after());
+    assertEquals(OptionalInt.of(10), request.limit());
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "Duration, DURATION",
+      "arrival, ARRIVAL"
+  })
+  void shouldParseOrderIgnoringCase(String sort, ConnectionOrder expected) {
+    // Act & Assert
+    assertEquals(expected, PageRequest.of(sort, null, null).order());
+  }
+
+  @Test
+  void shouldRejectInvalidParameters() {
+    // Act & Assert
+    assertThrows(InvalidRequestException.class, () -> PageRequest.of("price", null, null));
+    assertThrows(InvalidRequestException.class, () -> PageRequest.of(null, 0, null));
+    assertThrows(InvalidRequestException.class, () -> PageRequest.of(null, null, "not-a-cursor"));
+    assertThrows(InvalidRequestException.class, () -> PageRequest.of("departure", null, ARRIVAL_CURSOR));
+  }
+}
@@ -0,0 +1,80 @@
+package com.ryanair.interconnector.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.Leg;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class TopConnectionsTest {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2023, 6, 1, 0, 0);
+
+  // Departing at the given hour and landing after the given hours
+  private static Connection connection(int departureHour, int durationHours) {
+    LocalDateTime departure = DAY.plusHours(departureHour);
+    return new Connection().stops(0).legs(List.of(new Leg()
+        .departureAirport("DUB")
+        .arrivalAirport("WRO")
+        .departureDateTime(departure)
+        .arrivalDateTime(departure.plusHours(durationHours))));
+  }
+
+  private static final Connection EARLY_LONG = connection(6, 5);
+  private static final Connection MIDDAY_SHORT = connection(12, 1);
+  private static final Connection EVENING_SHORT = connection(18, 2);
+  private static final Connection NIGHT_LONG = connection(20, 3);
+
+  private static final List<Connection> FOUND = List.of(NIGHT_LONG, MIDDAY_SHORT, EARLY_LONG, EVENING_SHORT);
+
+  private static ConnectionPage collect(ConnectionOrder order, ConnectionCursor after, int limit) {
+    TopConnections top = new TopConnections(order, after, limit);
+    FOUND.forEach(top);
+    return top.page();
+  }
+
+  @Test
+  void shouldKeepFirstConnectionsInOrder() {
+    // Act
+    ConnectionPage page = collect(ConnectionOrder.DEPARTURE, null, 2);
+
+    // Assert
+    assertEquals(List.of(EARLY_LONG, MIDDAY_SHORT), page.connections());
+    assertTrue(page.next().isPresent());
+  }
+
+  @Test
+  void shouldSortByDuration() {
+    // Act
+    ConnectionPage page = collect(ConnectionOrder.DURATION, null, 3);
+
+    // Assert
+    assertEquals(List.of(MIDDAY_SHORT, EVENING_SHORT, NIGHT_LONG), page.connections());
+  }
+
+  @Test
+  void shouldResumeAfterCursorOfPreviousPage() {
+    // Arrange
+    ConnectionCursor cursor = collect(ConnectionOrder.ARRIVAL, null, 2).next().orElseThrow();
+
+    // Act
+    ConnectionPage page = collect(ConnectionOrder.ARRIVAL, ConnectionCursor.decode(cursor.encode()), 2);
+
+    // Assert
+    assertEquals(List.of(EVENING_SHORT, NIGHT_LONG), page.connections());
+    assertTrue(page.next().isEmpty());
+  }
+
+  @Test
+  void shouldNotReturnCursorWhenEverythingFits() {
+    // Act
+    ConnectionPage page = collect(ConnectionOrder.DEPARTURE, null, FOUND.size());
+
+    // Assert
+    assertEquals(List.of(EARLY_LONG, MIDDAY_SHORT, EVENING_SHORT, NIGHT_LONG), page.connections());
+    assertTrue(page.next().isEmpty());
+  }
+}
@@ -1,9 +1,13 @@
 package com.ryanair.interconnector.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -11,26 +15,53 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.ryanair.interconnectingflights.model.Connection;
+import com.ryanair.interconnectingflights.model.InterconnectionQuery;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.concurrent.CancellationScope;
+import com.ryanair.interconnector.concurrent.Deadline;
+import com.ryanair.interconnector.config.SearchProperties;
+import com.ryanair.interconnector.config.SearchProperties.LegFetchStrategy;
 import com.ryanair.interconnector.dto.FlightSlot;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.exception.InvalidRequestException;
 import com.ryanair.interconnector.mapping.ConnectionMapper;
+import com.ryanair.interconnector.search.AnywhereSearch;
+import com.ryanair.interconnector.search.BatchSearch;
+import com.ryanair.interconnector.search.ConnectionOrder;
+import com.ryanair.interconnector.search.ConnectionPage;
+import com.ryanair.interconnector.search.ConnectionJoiner;
+import com.ryanair.interconnector.search.ConnectionScanEngine;
+import com.ryanair.interconnector.search.ConnectionSearch;
+import com.ryanair.interconnector.search.DestinationConnections;
+import com.ryanair.interconnector.search.InterconnectionResultCache;
+import com.ryanair.interconnector.search.PageRequest;
+import com.ryanair.interconnector.search.PartialConnections;
 import com.ryanair.interconnector.service.RouteQueryService;
 import com.ryanair.interconnector.service.ScheduleQueryService;
 import com.ryanair.interconnector.validation.connection.FlightConnectionValidator;
+import com.ryanair.interconnector.validation.connection.MinimumLayoverValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 @ExtendWith(MockitoExtension.class)
 class InterconnectionServiceImplTest {
@@ -42,12 +73,18 @@ class InterconnectionServiceImplTest {
   @Mock
   ConnectionMapper connectionMapper;
   @Mock
+  ConnectionScanEngine connectionScanEngine;
+  @Mock
+  AnywhereSearch anywhereSearch;
+  @Mock
+  RoutesSnapshotProvider routesSnapshotProvider;
+  @Mock
   FlightConnectionValidator validator;
   @Spy
   List<FlightConnectionValidator> validatorList = new ArrayList<>();
 
-  @InjectMocks
   InterconnectionServiceImpl service;
+  MeterRegistry meterRegistry;
 
   static final String ORIGIN = "DUB";
   static final String DEST = "WRO";
@@ -55,6 +92,11 @@ class InterconnectionServiceImplTest {
 
   static final LocalDateTime SINCE = LocalDateTime.of(2023, 6, 1, 10, 0);
   static final LocalDateTime UNTIL = LocalDateTime.of(2023, 6, 1, 18, 0);
+  static final Duration MIN_LAYOVER = Duration.ofHours(2);
+  static final Duration MIN_FLIGHT_DURATION = Duration.ofMinutes(20);
+  // Windows of each leg, narrowed by the minimum layover and flight duration
+  static final LocalDateTime FIRST_LEG_UNTIL = UNTIL.minus(MIN_LAYOVER).minus(MIN_FLIGHT_DURATION);
+  static final LocalDateTime SECOND_LEG_SINCE = SINCE.plus(MIN_LAYOVER).plus(MIN_FLIGHT_DURATION);
 
   FlightSlot slotDirect;
   FlightSlot slotFirstLeg;
@@ -64,6 +106,9 @@ class InterconnectionServiceImplTest {
 
   @BeforeEach
   void setUpSlotsAndConnections() {
+    validatorList.add(new MinimumLayoverValidator(MIN_LAYOVER));
+    service = buildService(LegFetchStrategy.EAGER);
+
     slotDirect = new FlightSlot(SINCE, SINCE.plusHours(2));
     slotFirstLeg = new FlightSlot(SINCE.minusHours(1), SINCE);
     slotSecondLeg = new FlightSlot(SINCE.plusHours(3), UNTIL);
@@ -74,6 +119,30 @@ class InterconnectionServiceImplTest {
     multiConn.setStops(1);
   }
 
+  // The validators are compiled when building the service, so it has to be rebuilt after changing them
+  private InterconnectionServiceImpl buildService(LegFetchStrategy legFetchStrategy) {
+    SearchProperties searchProperties = new SearchProperties();
+    searchProperties.setLegFetchStrategy(legFetchStrategy);
+    searchProperties.setMinFlightDuration(MIN_FLIGHT_DURATION);
+    // The result cache is tested on its own, here every search runs on the window requested
+    searchProperties.setResultCacheMaxDays(0);
+    meterRegistry = new SimpleMeterRegistry();
+    InterconnectionResultCache resultCache = new InterconnectionResultCache(
+        new ConcurrentMapCacheManager(InterconnectionResultCache.CACHE_NAME), routesSnapshotProvider,
+        scheduleQueryService, searchProperties, meterRegistry);
+    ConnectionJoiner connectionJoiner = new ConnectionJoiner(connectionMapper, validatorList, searchProperties);
+    ConnectionSearch connectionSearch = new ConnectionSearch(routeQueryService, connectionMapper, connectionJoiner,
+        connectionScanEngine, searchProperties, meterRegistry);
+    return new InterconnectionServiceImpl(scheduleQueryService, connectionSearch,
+        new BatchSearch(scheduleQueryService, connectionSearch, searchProperties), anywhereSearch, resultCache,
+        searchProperties);
+  }
+
+  private double legMonths(String outcome) {
+    return meterRegistry.get("interconnector.legs.schedule.month.lookups").tag("outcome", outcome).summary()
+        .totalAmount();
+  }
+
   private void mockValidSingleLegSetup() {
     when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
     when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(
@@ -84,14 +153,24 @@ class InterconnectionServiceImplTest {
   private void mockValidMultiLegSetup() {
     when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
         CompletableFuture.completedFuture(Set.of(MID)));
-    when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, UNTIL)).thenReturn(
+    when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
         CompletableFuture.completedFuture(List.of(slotFirstLeg)));
-    when(scheduleQueryService.findFlightSlots(MID, DEST, SINCE, UNTIL)).thenReturn(
+    when(scheduleQueryService.findFlightSlots(MID, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
         CompletableFuture.completedFuture(List.of(slotSecondLeg)));
     when(connectionMapper.toMultiLegConnection(ORIGIN, MID, DEST, slotFirstLeg, slotSecondLeg)).thenReturn(
         Optional.of(multiConn));
   }
 
+  // The engine hands the connections over to the sink it is given, as soon as it finds them
+  private void mockMultiStopConnections(Connection... connections) {
+    when(connectionScanEngine.findConnections(eq(ORIGIN), eq(DEST), eq(SINCE), eq(UNTIL), eq(2), eq(2),
+        eq(scheduleQueryService), any())).thenAnswer(invocation -> {
+          Consumer<Connection> sink = invocation.getArgument(7);
+          List.of(connections).forEach(sink);
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
   @Nested
   class SingleLegPath {
 
@@ -161,8 +240,8 @@ class InterconnectionServiceImplTest {
     @BeforeEach
     void setUp() {
       when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(false));
-      validatorList.clear();
       validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
     }
 
     @Test
@@ -186,9 +265,9 @@ class InterconnectionServiceImplTest {
       // Arrange
       when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
           CompletableFuture.completedFuture(Set.of(MID)));
-      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, UNTIL)).thenReturn(
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
           CompletableFuture.completedFuture(List.of(slotFirstLeg)));
-      when(scheduleQueryService.findFlightSlots(MID, DEST, SINCE, UNTIL)).thenReturn(
+      when(scheduleQueryService.findFlightSlots(MID, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
           CompletableFuture.completedFuture(List.of(slotSecondLeg)));
       when(validator.isValidConnection(any(), any())).thenReturn(false);
 
@@ -202,6 +281,49 @@ class InterconnectionServiceImplTest {
       verifyNoInteractions(connectionMapper);
     }
 
+    @Test
+    void shouldOnlyValidateSecondLegsDepartingAfterMinimumLayover() throws ExecutionException, InterruptedException {
+      // Arrange
+      FlightSlot tooEarly = new FlightSlot(SINCE.plusHours(1), SINCE.plusHours(3));
+      FlightSlot justInTime = new FlightSlot(SINCE.plus(MIN_LAYOVER), SINCE.plusHours(4));
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of(MID)));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotFirstLeg)));
+      when(scheduleQueryService.findFlightSlots(MID, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(tooEarly, justInTime, slotSecondLeg)));
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+      when(connectionMapper.toMultiLegConnection(eq(ORIGIN), eq(MID), eq(DEST), eq(slotFirstLeg), any())).thenReturn(
+          Optional.of(multiConn));
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL);
+
+      // Assert
+      assertEquals(List.of(multiConn, multiConn), result.get());
+
+      // Verify the second leg departing before the minimum layover is never visited
+      verify(validator, never()).isValidConnection(slotFirstLeg, tooEarly);
+      verify(validator).isValidConnection(slotFirstLeg, justInTime);
+      verify(validator).isValidConnection(slotFirstLeg, slotSecondLeg);
+    }
+
+    @Test
+    void shouldNotLookUpStopoversWhenWindowCannotFitTwoFlightsAndLayover()
+        throws ExecutionException, InterruptedException {
+      // Arrange
+      LocalDateTime tooSoon = SINCE.plus(MIN_LAYOVER).plus(MIN_FLIGHT_DURATION);
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, tooSoon);
+
+      // Assert
+      assertEquals(List.of(), result.get());
+
+      // Verify
+      verify(routeQueryService, never()).intermediateAirports(any(), any());
+    }
+
     @Test
     void returnsEmptyWhenNoIntermediateAirports() throws ExecutionException, InterruptedException {
       // Arrange
@@ -219,13 +341,477 @@ class InterconnectionServiceImplTest {
     }
   }
 
+  @Nested
+  class ConditionalLegFetch {
+
+    @BeforeEach
+    void setUp() {
+      validatorList.add(validator);
+      service = buildService(LegFetchStrategy.CONDITIONAL);
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(false));
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of(MID)));
+    }
+
+    @Test
+    void shouldNotFetchSecondLegWhenFirstLegHasNoFlights() throws ExecutionException, InterruptedException {
+      // Arrange
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of()));
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL);
+
+      // Assert
+      assertEquals(List.of(), result.get());
+      assertEquals(1, legMonths("looked-up"));
+      assertEquals(1, legMonths("skipped"));
+
+      // Verify
+      verify(scheduleQueryService, never()).findFlightSlots(eq(MID), eq(DEST), any(), any());
+      verifyNoInteractions(connectionMapper);
+    }
+
+    @Test
+    void shouldFetchSecondLegFromEarliestFeasibleConnection() throws ExecutionException, InterruptedException {
+      // Arrange
+      FlightSlot lateFirstLeg = new FlightSlot(SINCE.plusHours(1), SINCE.plusHours(3));
+      LocalDateTime earliestConnection = lateFirstLeg.arrivalDateTime().plus(MIN_LAYOVER);
+      FlightSlot connectingSecondLeg = new FlightSlot(earliestConnection, UNTIL);
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(lateFirstLeg)));
+      when(scheduleQueryService.findFlightSlots(MID, DEST, earliestConnection, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(connectingSecondLeg)));
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+      when(connectionMapper.toMultiLegConnection(ORIGIN, MID, DEST, lateFirstLeg, connectingSecondLeg)).thenReturn(
+          Optional.of(multiConn));
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL);
+
+      // Assert
+      assertEquals(List.of(multiConn), result.get());
+      assertEquals(2, legMonths("looked-up"));
+      assertEquals(0, legMonths("skipped"));
+
+      // Verify
+      verify(scheduleQueryService).findFlightSlots(MID, DEST, earliestConnection, UNTIL);
+    }
+
+    @Test
+    void shouldRecordLegMonthsOfFailedRequest() {
+      // Arrange
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.failedFuture(new ExternalApiException("Schedules API down", null)));
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL);
+
+      // Assert
+      assertThrows(ExecutionException.class, result::get);
+      assertEquals(1, legMonths("looked-up"));
+      assertEquals(0, legMonths("skipped"));
+    }
+  }
+
+  @Nested
+  class MaxStops {
+
+    @Test
+    void shouldOnlyLookUpDirectFlightsWithoutStops() throws ExecutionException, InterruptedException {
+      // Arrange
+      mockValidSingleLegSetup();
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 0);
+
+      // Assert
+      assertEquals(List.of(directConn), result.get());
+
+      // Verify
+      verify(routeQueryService, never()).intermediateAirports(any(), any());
+      verifyNoInteractions(connectionScanEngine);
+    }
+
+    @Test
+    void shouldAppendMultiStopConnectionsFromEngine() throws ExecutionException, InterruptedException {
+      // Arrange
+      Connection twoStopConn = new Connection().stops(2);
+      mockValidSingleLegSetup();
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of()));
+      mockMultiStopConnections(twoStopConn);
+
+      // Act
+      CompletableFuture<List<Connection>> result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 2);
+
+      // Assert
+      assertEquals(List.of(directConn, twoStopConn), result.get());
+    }
+
+    @Test
+    void shouldRejectUnsupportedNumberOfStops() {
+      // Act & Assert
+      assertThrows(InvalidRequestException.class, () -> service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, -1));
+      assertThrows(InvalidRequestException.class, () -> service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 3));
+      verifyNoInteractions(routeQueryService, scheduleQueryService, connectionScanEngine);
+    }
+  }
+
+  @Nested
+  class Streaming {
+
+    private final List<List<Connection>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+      validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
+    }
+
+    @Test
+    void shouldHoldStopoversBackUntilDirectConnectionsAreEmitted() {
+      // Arrange
+      CompletableFuture<List<FlightSlot>> directSlots = new CompletableFuture<>();
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(directSlots);
+      when(connectionMapper.toSingleLegConnection(ORIGIN, DEST, slotDirect)).thenReturn(Optional.of(directConn));
+      mockValidMultiLegSetup();
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+
+      // Act
+      CompletableFuture<Void> result = service.streamInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1, batches::add);
+      assertTrue(batches.isEmpty());
+      directSlots.complete(List.of(slotDirect));
+
+      // Assert
+      assertTrue(result.isDone());
+      assertEquals(List.of(List.of(directConn), List.of(multiConn)), batches);
+    }
+
+    @Test
+    void shouldHoldItinerariesWithMoreStopsBackUntilStopoversAreEmitted() {
+      // Arrange
+      Connection twoStopConn = new Connection().stops(2);
+      CompletableFuture<List<FlightSlot>> directSlots = new CompletableFuture<>();
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(directSlots);
+      when(connectionMapper.toSingleLegConnection(ORIGIN, DEST, slotDirect)).thenReturn(Optional.of(directConn));
+      mockValidMultiLegSetup();
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+      mockMultiStopConnections(twoStopConn);
+
+      // Act
+      CompletableFuture<Void> result = service.streamInterconnections(ORIGIN, DEST, SINCE, UNTIL, 2, batches::add);
+      assertTrue(batches.isEmpty());
+      assertFalse(result.isDone());
+      directSlots.complete(List.of(slotDirect));
+
+      // Assert
+      assertTrue(result.isDone());
+      assertEquals(List.of(List.of(directConn), List.of(multiConn), List.of(twoStopConn)), batches);
+    }
+
+    @Test
+    void shouldSearchNormalizedCodesWhateverTheCaseRequested() {
+      // Arrange
+      mockValidSingleLegSetup();
+
+      // Act
+      CompletableFuture<Void> result = service.streamInterconnections("dub", "Wro", SINCE, UNTIL, 0, batches::add);
+
+      // Assert
+      assertTrue(result.isDone());
+      assertEquals(List.of(List.of(directConn)), batches);
+    }
+
+    @Test
+    void shouldEmitEachIntermediateAirportAsSoonAsItsLegsAreJoined() {
+      // Arrange
+      String slowMid = "BGY";
+      CompletableFuture<List<FlightSlot>> slowFirstLeg = new CompletableFuture<>();
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(false));
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of(MID, slowMid)));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotFirstLeg)));
+      when(scheduleQueryService.findFlightSlots(MID, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotSecondLeg)));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, slowMid, SINCE, FIRST_LEG_UNTIL)).thenReturn(slowFirstLeg);
+      when(scheduleQueryService.findFlightSlots(slowMid, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotSecondLeg)));
+      when(connectionMapper.toMultiLegConnection(ORIGIN, MID, DEST, slotFirstLeg, slotSecondLeg)).thenReturn(
+          Optional.of(multiConn));
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+
+      // Act
+      CompletableFuture<Void> result = service.streamInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1, batches::add);
+
+      // Assert, the slow intermediate airport does not delay the other one
+      assertEquals(List.of(List.of(multiConn)), batches);
+      assertFalse(result.isDone());
+      slowFirstLeg.complete(List.of());
+      assertTrue(result.isDone());
+      assertEquals(1, batches.size());
+    }
+
+    @Test
+    void shouldRejectUnsupportedNumberOfStops() {
+      // Act & Assert
+      assertThrows(InvalidRequestException.class,
+          () -> service.streamInterconnections(ORIGIN, DEST, SINCE, UNTIL, 3, batches::add));
+      verifyNoInteractions(routeQueryService, scheduleQueryService, connectionScanEngine);
+    }
+  }
+
+  @Nested
+  class Paging {
+
+    private final ConnectionMapper mapper = new ConnectionMapper();
+
+    @BeforeEach
+    void setUp() {
+      validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
+    }
+
+    private void mockDirectAndStopover() {
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotDirect)));
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of(MID)));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, MID, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotFirstLeg)));
+      when(scheduleQueryService.findFlightSlots(MID, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotSecondLeg)));
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+      // Connections with legs, as the page is sorted by their times
+      when(connectionMapper.toSingleLegConnection(ORIGIN, DEST, slotDirect)).thenReturn(
+          mapper.toSingleLegConnection(ORIGIN, DEST, slotDirect));
+      when(connectionMapper.toMultiLegConnection(ORIGIN, MID, DEST, slotFirstLeg, slotSecondLeg)).thenReturn(
+          mapper.toMultiLegConnection(ORIGIN, MID, DEST, slotFirstLeg, slotSecondLeg));
+    }
+
+    @Test
+    void shouldReturnFirstConnectionsInRequestedOrderWithCursor() throws ExecutionException, InterruptedException {
+      // Arrange
+      mockDirectAndStopover();
+
+      // Act
+      ConnectionPage page = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1,
+          new PageRequest(ConnectionOrder.DEPARTURE, OptionalInt.of(1), null)).get();
+
+      // Assert, the stopover departs before the direct flight
+      assertEquals(1, page.connections().size());
+      assertEquals(1, page.connections().get(0).getStops());
+      assertTrue(page.next().isPresent());
+
+      // Act on the following page
+      ConnectionPage next = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1,
+          new PageRequest(ConnectionOrder.DEPARTURE, OptionalInt.of(1), page.next().get())).get();
+
+      // Assert
+      assertEquals(List.of(0), next.connections().stream().map(Connection::getStops).toList());
+      assertTrue(next.next().isEmpty());
+    }
+
+    @Test
+    void shouldRejectPagesLargerThanAllowed() {
+      // Arrange
+      PageRequest tooLarge = new PageRequest(ConnectionOrder.DEPARTURE, OptionalInt.of(501), null);
+
+      // Act & Assert
+      assertThrows(InvalidRequestException.class,
+          () -> service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1, tooLarge));
+    }
+  }
+
+  @Nested
+  class BestEffort {
+
+    @BeforeEach
+    void setUp() {
+      validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
+    }
+
+    @Test
+    void shouldSkipIntermediatesMissingTheDeadline() throws ExecutionException, InterruptedException {
+      // Arrange
+      String slowMid = "BGY";
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(false));
+      mockValidMultiLegSetup();
+      when(routeQueryService.intermediateAirports(ORIGIN, DEST)).thenReturn(
+          CompletableFuture.completedFuture(Set.of(MID, slowMid)));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, slowMid, SINCE, FIRST_LEG_UNTIL)).thenReturn(
+          new CompletableFuture<>());
+      when(scheduleQueryService.findFlightSlots(slowMid, DEST, SECOND_LEG_SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotSecondLeg)));
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+
+      // Act
+      PartialConnections result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1,
+          Deadline.after(Duration.ofMillis(50))).get();
+
+      // Assert
+      assertEquals(List.of(multiConn), result.connections());
+      assertFalse(result.isComplete());
+      assertEquals(List.of(slowMid), result.skippedIntermediates());
+      assertEquals(List.of("DUB-BGY/2023-06"), result.skippedMonths());
+    }
+
+    @Test
+    void shouldSkipFailingLookupsInsteadOfFailingTheSearch() throws ExecutionException, InterruptedException {
+      // Arrange
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(
+          CompletableFuture.failedFuture(new ExternalApiException("Schedules API down", null)));
+      mockValidMultiLegSetup();
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+
+      // Act
+      PartialConnections result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1,
+          Deadline.after(Duration.ofSeconds(5))).get();
+
+      // Assert
+      assertEquals(List.of(multiConn), result.connections());
+      assertTrue(result.skippedIntermediates().isEmpty());
+      assertEquals(List.of("DUB-WRO/2023-06"), result.skippedMonths());
+    }
+
+    @Test
+    void shouldBeCompleteWhenNothingIsSkipped() throws ExecutionException, InterruptedException {
+      // Arrange
+      mockValidSingleLegSetup();
+      mockValidMultiLegSetup();
+      when(validator.isValidConnection(any(), any())).thenReturn(true);
+
+      // Act
+      PartialConnections result = service.findInterconnections(ORIGIN, DEST, SINCE, UNTIL, 1,
+          Deadline.after(Duration.ofSeconds(5))).get();
+
+      // Assert
+      assertEquals(List.of(directConn, multiConn), result.connections());
+      assertTrue(result.isComplete());
+    }
+  }
+
+  @Nested
+  class Batch {
+
+    @BeforeEach
+    void setUp() {
+      validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
+    }
+
+    private InterconnectionQuery query(int maxStops) {
+      return new InterconnectionQuery().departure(ORIGIN).arrival(DEST).departureDateTime(SINCE).arrivalDateTime(UNTIL)
+          .maxStops(maxStops);
+    }
+
+    @Test
+    void shouldAnswerEveryQueryThroughTheSharedSchedules() throws ExecutionException, InterruptedException {
+      // Arrange
+      ScheduleQueryService batchSchedules = mock(ScheduleQueryService.class);
+      when(scheduleQueryService.batchView(any())).thenReturn(batchSchedules);
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(batchSchedules.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL)).thenReturn(
+          CompletableFuture.completedFuture(List.of(slotDirect)));
+      when(connectionMapper.toSingleLegConnection(ORIGIN, DEST, slotDirect)).thenReturn(Optional.of(directConn));
+      InterconnectionQuery direct = query(0);
+
+      // Act
+      List<CompletableFuture<List<Connection>>> results = service.findInterconnectionsBatch(List.of(direct, direct));
+
+      // Assert
+      assertEquals(2, results.size());
+      assertEquals(List.of(directConn), results.get(0).get());
+      assertEquals(List.of(directConn), results.get(1).get());
+      verify(scheduleQueryService).batchView(any());
+      verifyNoMoreInteractions(scheduleQueryService);
+    }
+
+    @Test
+    void shouldCancelSharedSchedulesOnceEveryQueryIsAbandoned() {
+      // Arrange
+      CompletableFuture<MonthlySlots> sharedMonth = new CompletableFuture<>();
+      when(scheduleQueryService.batchView(any())).thenAnswer(invocation -> {
+        invocation.<CancellationScope>getArgument(0).trackOptional(sharedMonth);
+        return scheduleQueryService;
+      });
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(true));
+      when(scheduleQueryService.findFlightSlots(ORIGIN, DEST, SINCE, UNTIL))
+          .thenAnswer(invocation -> new CompletableFuture<>());
+      List<CompletableFuture<List<Connection>>> results =
+          service.findInterconnectionsBatch(List.of(query(0), query(0)));
+
+      // Act
+      results.get(0).cancel(true);
+      boolean cancelledWhileAnotherQueryWaits = sharedMonth.isCancelled();
+      results.get(1).cancel(true);
+
+      // Assert
+      assertFalse(cancelledWhileAnotherQueryWaits);
+      assertTrue(sharedMonth.isCancelled());
+    }
+
+    @Test
+    void shouldOnlyFailUnsupportedQueries() throws ExecutionException, InterruptedException {
+      // Arrange
+      when(scheduleQueryService.batchView(any())).thenReturn(scheduleQueryService);
+      when(routeQueryService.existsDirectRoute(ORIGIN, DEST)).thenReturn(CompletableFuture.completedFuture(false));
+      InterconnectionQuery supported = query(0);
+      InterconnectionQuery tooManyStops = query(3);
+
+      // Act
+      List<CompletableFuture<List<Connection>>> results =
+          service.findInterconnectionsBatch(List.of(supported, tooManyStops));
+
+      // Assert
+      assertTrue(results.get(0).get().isEmpty());
+      ExecutionException ex = assertThrows(ExecutionException.class, () -> results.get(1).get());
+      assertInstanceOf(InvalidRequestException.class, ex.getCause());
+    }
+
+    @Test
+    void shouldRejectBatchesLargerThanAllowed() {
+      // Arrange
+      List<InterconnectionQuery> queries = Collections.nCopies(21, query(1));
+
+      // Act & Assert
+      assertThrows(InvalidRequestException.class, () -> service.findInterconnectionsBatch(queries));
+      verifyNoInteractions(routeQueryService, scheduleQueryService, connectionScanEngine);
+    }
+  }
+
+  @Nested
+  class Anywhere {
+
+    @Test
+    void shouldDelegateToAnywhereSearch() {
+      // Arrange
+      Consumer<DestinationConnections> sink = destination -> { };
+      when(anywhereSearch.findDestinations(ORIGIN, SINCE, UNTIL, 1, sink)).thenReturn(
+          CompletableFuture.completedFuture(null));
+
+      // Act, with the codes normalized before searching
+      CompletableFuture<Void> result = service.streamInterconnectionsFrom("dub", SINCE, UNTIL, 1, sink);
+
+      // Assert
+      assertTrue(result.isDone());
+      verifyNoInteractions(routeQueryService, scheduleQueryService, connectionScanEngine);
+    }
+  }
+
   @Nested
   class MixedScenarios {
 
     @BeforeEach
     void setUp() {
-      validatorList.clear();
       validatorList.add(validator);
+      service = buildService(LegFetchStrategy.EAGER);
     }
 
     @Test
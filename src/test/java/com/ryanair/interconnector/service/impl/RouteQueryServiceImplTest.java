@@ -8,10 +8,9 @@ import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 import com.ryanair.interconnectingflights.external.model.Route;
-import com.ryanair.interconnector.client.CachedRoutesProvider;
-import com.ryanair.interconnector.testutils.DirectExecutor;
+import com.ryanair.interconnector.client.RoutesSnapshotProvider;
+import com.ryanair.interconnector.index.RoutesIndex;
 import com.ryanair.interconnector.validation.route.RouteValidator;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,14 +19,11 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,15 +37,9 @@ class RouteQueryServiceImplTest {
   private static final String DESTINATION_AIRPORT_LOWER = "Stn";
 
   @Mock
-  CachedRoutesProvider routesProvider;
-
-  // Using direct execution for the unit tests, as we do not want async checks here
-  @Spy
-  Executor directExecutor = new DirectExecutor();
+  RoutesSnapshotProvider routesSnapshotProvider;
   @Mock
   RouteValidator routeValidator;
-  @Spy
-  List<RouteValidator> validatorList = new ArrayList<>();
 
   @InjectMocks
   RouteQueryServiceImpl service;
@@ -60,15 +50,15 @@ class RouteQueryServiceImplTest {
   private final Route invalidRoute = new Route().airportFrom(ORIGIN_AIRPORT).airportTo(DESTINATION_AIRPORT).operator(
       "INVALID_OPERATOR");
 
+  // The snapshot index is built from the given routes, filtered by the mocked validator
+  private void givenRoutes(List<Route> routes) {
+    when(routesSnapshotProvider.currentIndex()).thenAnswer(
+        invocation -> CompletableFuture.completedFuture(RoutesIndex.of(routes, routeValidator::isValidRoute)));
+  }
+
   @Nested
   class ExistsValidRoute {
 
-    @BeforeEach
-    void setUp() {
-      validatorList.clear();
-      validatorList.add(routeValidator);
-    }
-
     @ParameterizedTest
     @CsvSource({
         ORIGIN_AIRPORT + ", " + DESTINATION_AIRPORT,
@@ -79,7 +69,7 @@ class RouteQueryServiceImplTest {
     void shouldReturnTrueWhenValidRouteExists(String originAirport, String destinationAirport)
         throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(invalidRoute, validRoute));
+      givenRoutes(List.of(invalidRoute, validRoute));
       when(routeValidator.isValidRoute(validRoute)).thenReturn(true);
       lenient().when(routeValidator.isValidRoute(invalidRoute)).thenReturn(false);
 
@@ -94,7 +84,7 @@ class RouteQueryServiceImplTest {
     @Test
     void shouldReturnFalseIfNoMatchingRouteIsValid() throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(invalidRoute));
+      givenRoutes(List.of(invalidRoute));
       when(routeValidator.isValidRoute(invalidRoute)).thenReturn(false);
 
       // Act
@@ -107,7 +97,7 @@ class RouteQueryServiceImplTest {
     @Test
     void shouldReturnFalseIfNoRoutesExist() throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of());
+      givenRoutes(List.of());
 
       // Act
       CompletableFuture<Boolean> result = service.existsDirectRoute(ORIGIN_AIRPORT, DESTINATION_AIRPORT);
@@ -121,7 +111,7 @@ class RouteQueryServiceImplTest {
       // Arrange
       Route differentRoute = new Route().airportFrom(ORIGIN_AIRPORT).airportTo("ABC").operator(OPERATOR);
       Route anotherDifferentRoute = new Route().airportFrom("LMN").airportTo(DESTINATION_AIRPORT).operator(OPERATOR);
-      when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(differentRoute, anotherDifferentRoute));
+      givenRoutes(List.of(differentRoute, anotherDifferentRoute));
 
       // Act
       CompletableFuture<Boolean> result = service.existsDirectRoute(ORIGIN_AIRPORT, DESTINATION_AIRPORT);
@@ -147,12 +137,6 @@ class RouteQueryServiceImplTest {
         OPERATOR);
 
 
-    @BeforeEach
-    void setUp() {
-      validatorList.clear();
-      validatorList.add(routeValidator);
-    }
-
     /**
      * Provides various permutations of [FROM_ROUTE_1, FROM_ROUTE_2, TO_ROUTE_1, TO_ROUTE_2] to ensure the method works
      * regardless of the order in which routes are processed.
@@ -171,8 +155,7 @@ class RouteQueryServiceImplTest {
     void shouldReturnIntersectionRegardlessOfOrder(List<Route> routesInAnyOrder)
         throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached())
-          .thenReturn(routesInAnyOrder);
+      givenRoutes(routesInAnyOrder);
       when(routeValidator.isValidRoute(any())).thenReturn(true);
 
       Set<String> expected = Set.of(INTERMEDIATE_AIRPORT_1, INTERMEDIATE_AIRPORT_2);
@@ -188,8 +171,7 @@ class RouteQueryServiceImplTest {
     @Test
     void shouldReturnIntersectionCaseInsensitive() throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached())
-          .thenReturn(List.of(FROM_ROUTE_1, TO_ROUTE_1));
+      givenRoutes(List.of(FROM_ROUTE_1, TO_ROUTE_1));
       when(routeValidator.isValidRoute(any())).thenReturn(true);
 
       // Act
@@ -204,8 +186,7 @@ class RouteQueryServiceImplTest {
     @Test
     void shouldReturnEmptyIfNoIntersection() throws ExecutionException, InterruptedException {
       // Arrange
-      when(routesProvider.fetchAllRoutesCached())
-          .thenReturn(List.of(FROM_ROUTE_1, TO_ROUTE_2));
+      givenRoutes(List.of(FROM_ROUTE_1, TO_ROUTE_2));
       when(routeValidator.isValidRoute(any())).thenReturn(true);
 
       // Act
@@ -231,7 +212,7 @@ class RouteQueryServiceImplTest {
       when(routeValidator.isValidRoute(wrongOperator1)).thenReturn(firstValid);
       when(routeValidator.isValidRoute(wrongOperator2)).thenReturn(secondValid);
 
-      when(routesProvider.fetchAllRoutesCached()).thenReturn(List.of(wrongOperator1, wrongOperator2));
+      givenRoutes(List.of(wrongOperator1, wrongOperator2));
 
       // Act
       CompletableFuture<Set<String>> result = service.intermediateAirports(ORIGIN_AIRPORT, DESTINATION_AIRPORT);
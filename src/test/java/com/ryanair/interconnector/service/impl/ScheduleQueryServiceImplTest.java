@@ -1,30 +1,30 @@
 package com.ryanair.interconnector.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
-import com.ryanair.interconnectingflights.external.model.ScheduleResponse;
 import com.ryanair.interconnector.client.CachedSchedulesProvider;
+import com.ryanair.interconnector.concurrent.CancellationScope;
 import com.ryanair.interconnector.dto.FlightSlot;
-import com.ryanair.interconnector.mapping.ScheduleMapper;
-import com.ryanair.interconnector.testutils.DirectExecutor;
+import com.ryanair.interconnector.dto.MonthlySlots;
+import com.ryanair.interconnector.exception.ExternalApiException;
+import com.ryanair.interconnector.search.SourceVersions;
+import com.ryanair.interconnector.service.ScheduleQueryService;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 
 @ExtendWith(MockitoExtension.class)
 class ScheduleQueryServiceImplTest {
@@ -39,26 +39,23 @@ class ScheduleQueryServiceImplTest {
   private static final LocalDateTime RANGE_START = BASE;
   private static final LocalDateTime RANGE_END = BASE.plusDays(10).withHour(18);
 
-  @Mock
-  ScheduleMapper mapper;
-
   @Mock
   CachedSchedulesProvider schedulesProvider;
 
-  // Using direct execution for the unit tests, as we do not want async checks here
-  @Spy
-  Executor directExecutor = new DirectExecutor();
-
   @InjectMocks
   ScheduleQueryServiceImpl service;
 
   private void stubMonth(YearMonth ym, FlightSlot... slots) {
-    ScheduleResponse resp = mock(ScheduleResponse.class);
     if (slots.length == 0) {
-      when(schedulesProvider.getScheduleCached(FROM, TO, ym.getYear(), ym.getMonthValue())).thenReturn(null);
+      when(schedulesProvider.getScheduleCached(FROM, TO, ym.getYear(), ym.getMonthValue()))
+          .thenReturn(CompletableFuture.completedFuture(null));
     } else {
-      when(schedulesProvider.getScheduleCached(FROM, TO, ym.getYear(), ym.getMonthValue())).thenReturn(resp);
-      when(mapper.toFlightSlots(ym.getYear(), resp)).thenReturn(List.of(slots));
+      MonthlySlots.Builder builder = MonthlySlots.builder();
+      for (FlightSlot slot : slots) {
+        builder.add(slot.departureDateTime(), slot.arrivalDateTime());
+      }
+      when(schedulesProvider.getScheduleCached(FROM, TO, ym.getYear(), ym.getMonthValue()))
+          .thenReturn(CompletableFuture.completedFuture(builder.build()));
     }
   }
 
@@ -106,6 +103,20 @@ class ScheduleQueryServiceImplTest {
       verifyNoMoreInteractions(schedulesProvider);
     }
 
+    @Test
+    void shouldExcludeSlotDepartingBeforeSecondsBearingStart() throws ExecutionException, InterruptedException {
+      // Arrange
+      FlightSlot atStartMinute = new FlightSlot(RANGE_START, RANGE_START.plusHours(2));
+      FlightSlot nextMinute = new FlightSlot(RANGE_START.plusMinutes(1), RANGE_START.plusHours(2));
+      stubMonth(JAN, atStartMinute, nextMinute);
+
+      // Act
+      List<FlightSlot> result = service.findFlightSlots(FROM, TO, RANGE_START.plusSeconds(30), RANGE_END).get();
+
+      // Assert
+      assertEquals(List.of(nextMinute), result);
+    }
+
     @Test
     void shouldReturnEmptyWhenNoSlots() throws ExecutionException, InterruptedException {
       // Arrange
@@ -178,5 +189,104 @@ class ScheduleQueryServiceImplTest {
       verify(schedulesProvider).getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue());
       verifyNoMoreInteractions(schedulesProvider);
     }
+
+    @Test
+    void shouldCancelPendingMonthsWhenOneFails() {
+      // Arrange
+      CompletableFuture<MonthlySlots> january = new CompletableFuture<>();
+      CompletableFuture<MonthlySlots> february = new CompletableFuture<>();
+      when(schedulesProvider.getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue())).thenReturn(january);
+      when(schedulesProvider.getScheduleCached(FROM, TO, FEB.getYear(), FEB.getMonthValue())).thenReturn(february);
+      CompletableFuture<List<FlightSlot>> result =
+          service.findFlightSlots(FROM, TO, RANGE_START, FEB.atDay(15).atTime(12, 0));
+
+      // Act
+      january.completeExceptionally(new ExternalApiException("Schedules API down", null));
+
+      // Assert
+      assertTrue(february.isCancelled());
+      assertTrue(result.isCompletedExceptionally());
+    }
+  }
+
+  @Nested
+  class BatchView {
+
+    @Test
+    void shouldFetchEachMonthOnceForTheWholeBatch() throws ExecutionException, InterruptedException {
+      // Arrange
+      FlightSlot morning = new FlightSlot(RANGE_START.plusHours(1), RANGE_START.plusHours(3));
+      FlightSlot evening = new FlightSlot(RANGE_END.minusHours(4), RANGE_END.minusHours(2));
+      stubMonth(JAN, morning, evening);
+      ScheduleQueryService batch = service.batchView(new CancellationScope());
+
+      // Act, different windows within the same month
+      List<FlightSlot> early = batch.findFlightSlots(FROM, TO, RANGE_START, RANGE_START.plusHours(5)).get();
+      List<FlightSlot> late = batch.findFlightSlots(FROM, TO, RANGE_END.minusHours(5), RANGE_END).get();
+
+      // Assert
+      assertEquals(List.of(morning), early);
+      assertEquals(List.of(evening), late);
+      verify(schedulesProvider).getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue());
+      verifyNoMoreInteractions(schedulesProvider);
+    }
+
+    @Test
+    void shouldNotAffectOtherQueriesWhenOneCancels() throws ExecutionException, InterruptedException {
+      // Arrange
+      CompletableFuture<MonthlySlots> month = new CompletableFuture<>();
+      when(schedulesProvider.getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue())).thenReturn(month);
+      ScheduleQueryService batch = service.batchView(new CancellationScope());
+
+      // Act
+      batch.findFlightSlots(FROM, TO, RANGE_START, RANGE_END).cancel(true);
+      CompletableFuture<List<FlightSlot>> other = batch.findFlightSlots(FROM, TO, RANGE_START, RANGE_END);
+      month.complete(MonthlySlots.builder().build());
+
+      // Assert
+      assertTrue(other.get().isEmpty());
+      verify(schedulesProvider).getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue());
+    }
+
+    @Test
+    void shouldCancelSharedMonthsWhenBatchIsCancelled() {
+      // Arrange
+      CompletableFuture<MonthlySlots> month = new CompletableFuture<>();
+      when(schedulesProvider.getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue())).thenReturn(month);
+      CancellationScope batchScope = new CancellationScope();
+      CompletableFuture<List<FlightSlot>> query =
+          service.batchView(batchScope).findFlightSlots(FROM, TO, RANGE_START, RANGE_END);
+
+      // Act
+      batchScope.cancel();
+
+      // Assert
+      assertTrue(month.isCancelled());
+      assertTrue(query.isCompletedExceptionally());
+    }
+  }
+
+  @Nested
+  class VersionedView {
+
+    @Test
+    void shouldRecordMonthsUntilRefreshed() throws ExecutionException, InterruptedException {
+      // Arrange
+      MonthlySlots january = MonthlySlots.builder().build();
+      when(schedulesProvider.getScheduleCached(FROM, TO, JAN.getYear(), JAN.getMonthValue()))
+          .thenReturn(CompletableFuture.completedFuture(january));
+      SourceVersions versions = new SourceVersions();
+      ScheduleQueryService versioned = service.versionedView(versions);
+
+      // Act, the same month twice is recorded once
+      versioned.findFlightSlots(FROM, TO, RANGE_START, RANGE_END).get();
+      versioned.findFlightSlots(FROM, TO, RANGE_START, RANGE_START.plusHours(2)).get();
+
+      // Assert
+      when(schedulesProvider.isCached(FROM, TO, JAN.getYear(), JAN.getMonthValue(), january)).thenReturn(true, false);
+      assertEquals(1, versions.size());
+      assertTrue(versions.isCurrent());
+      assertFalse(versions.isCurrent());
+    }
   }
 }
@@ -0,0 +1,64 @@
+package com.ryanair.interconnector.validation.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnector.dto.FlightSlot;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConnectionValidatorChainTest {
+
+  private static final LocalDateTime DEPARTURE = LocalDateTime.of(2025, 6, 1, 10, 0);
+  private static final FlightSlot FIRST = new FlightSlot(DEPARTURE, DEPARTURE.plusHours(1));
+  private static final FlightSlot SECOND = new FlightSlot(DEPARTURE.plusHours(4), DEPARTURE.plusHours(5));
+
+  @Test
+  void shouldAcceptWhenEveryValidatorAccepts() {
+    // Arrange
+    ConnectionValidatorChain chain = ConnectionValidatorChain.of(List.of(
+        new MinimumLayoverValidator(Duration.ofHours(1)), (first, second) -> true));
+
+    // Act & Assert
+    assertTrue(chain.isValidConnection(FIRST, SECOND));
+  }
+
+  @Test
+  void shouldStopAtFirstRejectingValidator() {
+    // Arrange
+    AtomicInteger laterCalls = new AtomicInteger();
+    ConnectionValidatorChain chain = ConnectionValidatorChain.of(List.of(
+        (first, second) -> false,
+        (first, second) -> laterCalls.incrementAndGet() > 0));
+
+    // Act & Assert
+    assertFalse(chain.isValidConnection(FIRST, SECOND));
+    assertEquals(0, laterCalls.get());
+  }
+
+  @Test
+  void shouldExposeStrictestMinimumLayover() {
+    // Arrange
+    ConnectionValidatorChain chain = ConnectionValidatorChain.of(List.of(
+        new MinimumLayoverValidator(Duration.ofMinutes(90)),
+        (first, second) -> true,
+        new MinimumLayoverValidator(Duration.ofHours(2))));
+
+    // Act & Assert
+    assertEquals(Duration.ofHours(2), chain.minimumLayover());
+  }
+
+  @Test
+  void shouldAcceptAnythingWhenEmpty() {
+    // Arrange
+    ConnectionValidatorChain chain = ConnectionValidatorChain.of(List.of());
+
+    // Act & Assert
+    assertTrue(chain.isValidConnection(FIRST, SECOND));
+    assertEquals(Duration.ZERO, chain.minimumLayover());
+  }
+}
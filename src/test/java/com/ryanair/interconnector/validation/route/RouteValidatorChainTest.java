@@ -0,0 +1,34 @@
+package com.ryanair.interconnector.validation.route;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ryanair.interconnectingflights.external.model.Route;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+class RouteValidatorChainTest {
+
+  RouteValidator routeValidator = RouteValidatorChain.of(
+      List.of(new RouteOperatorValidator(), new NullConnectingAirportValidator()));
+
+  @Test
+  void testIsValidRoute() {
+    // Arrange
+    Route validRoute = new Route().operator("RYANAIR");
+
+    // Act & Assert
+    assertTrue(routeValidator.isValidRoute(validRoute));
+  }
+
+  @Test
+  void testIsInvalidRouteWhenAnyValidatorRejects() {
+    // Arrange
+    Route otherOperator = new Route().operator("OTHER_AIRLINE");
+    Route connecting = new Route().operator("RYANAIR").connectingAirport("STN");
+
+    // Act & Assert
+    assertFalse(routeValidator.isValidRoute(otherOperator));
+    assertFalse(routeValidator.isValidRoute(connecting));
+  }
+}